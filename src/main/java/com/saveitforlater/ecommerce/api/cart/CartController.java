@@ -1,6 +1,7 @@
 package com.saveitforlater.ecommerce.api.cart;
 
 import com.saveitforlater.ecommerce.api.cart.dto.AddToCartRequest;
+import com.saveitforlater.ecommerce.api.cart.dto.CartBatchRequest;
 import com.saveitforlater.ecommerce.api.cart.dto.CartItemResponse;
 import com.saveitforlater.ecommerce.api.cart.dto.CartResponse;
 import com.saveitforlater.ecommerce.api.cart.dto.UpdateCartItemRequest;
@@ -70,6 +71,17 @@ public class CartController {
         return ResponseEntity.status(HttpStatus.CREATED).body(cart);
     }
 
+    /**
+     * Apply several add/set-quantity/remove operations at once - accessible to authenticated users
+     */
+    @PostMapping("/batch")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<CartResponse> applyBatch(@Valid @RequestBody CartBatchRequest request) {
+        log.info("POST /api/cart/batch - Applying {} cart operations", request.operations().size());
+        CartResponse cart = cartService.applyBatch(request);
+        return ResponseEntity.ok(cart);
+    }
+
     /**
      * Update cart item quantity - accessible to authenticated users
      */
@@ -0,0 +1,35 @@
+package com.saveitforlater.ecommerce.api.cart.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+// Several cart changes applied together, in order, in one transaction
+public record CartBatchRequest(
+        @NotEmpty(message = "At least one operation is required")
+        @Size(max = 100, message = "At most 100 operations per batch")
+        List<@Valid Operation> operations
+) {
+    public record Operation(
+            @NotNull(message = "Operation type is required")
+            Type type,
+
+            @NotBlank(message = "Product ID is required")
+            String productId,
+
+            // Required for ADD and SET_QUANTITY, ignored for REMOVE
+            @Positive(message = "Quantity must be positive")
+            Integer quantity
+    ) {}
+
+    public enum Type {
+        ADD,          // Add to the quantity in the cart, adding the product if it is not there yet
+        SET_QUANTITY, // Replace the quantity in the cart, adding the product if it is not there yet
+        REMOVE        // Remove the product from the cart
+    }
+}
@@ -5,9 +5,14 @@ import com.saveitforlater.ecommerce.api.cart.dto.CartResponse;
 import com.saveitforlater.ecommerce.persistence.entity.cart.Cart;
 import com.saveitforlater.ecommerce.persistence.entity.cart.CartItem;
 import com.saveitforlater.ecommerce.persistence.entity.product.Product;
+import com.saveitforlater.ecommerce.persistence.projection.CartLineView;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
 @Mapper
 public interface CartMapper {
 
@@ -22,4 +27,35 @@ public interface CartMapper {
 
     @Mapping(source = "publicId", target = "id")
     CartItemResponse.ProductSummary toProductSummary(Product product);
+
+    /**
+     * Same shape as {@link #toCartResponse(Cart)}, built from the rows of one cart read; totals are
+     * summed while the items are mapped
+     */
+    default CartResponse linesToCartResponse(List<CartLineView> lines) {
+        CartLineView cart = lines.get(0);
+        List<CartItemResponse> items = new ArrayList<>(lines.size());
+        BigDecimal totalPrice = BigDecimal.ZERO;
+        int totalItems = 0;
+        for (CartLineView line : lines) {
+            if (line.itemPublicId() == null) {
+                continue;
+            }
+            BigDecimal subtotal = line.priceAtAddition().multiply(BigDecimal.valueOf(line.quantity()));
+            items.add(new CartItemResponse(
+                    line.itemPublicId(),
+                    new CartItemResponse.ProductSummary(line.productPublicId(), line.sku(), line.productName(),
+                            line.productSlug(), line.price(), line.salePrice(), line.stockQuantity()),
+                    line.quantity(),
+                    line.priceAtAddition(),
+                    Product.effectivePriceOf(line.price(), line.salePrice()),
+                    subtotal,
+                    line.itemCreatedAt(),
+                    line.itemUpdatedAt()));
+            totalPrice = totalPrice.add(subtotal);
+            totalItems += line.quantity();
+        }
+        return new CartResponse(cart.cartPublicId(), cart.userPublicId(), items, totalPrice, totalItems,
+                cart.cartCreatedAt(), cart.cartUpdatedAt());
+    }
 }
@@ -1,8 +1,11 @@
 package com.saveitforlater.ecommerce.api.category;
 
 import com.saveitforlater.ecommerce.api.category.dto.CategoryResponse;
+import com.saveitforlater.ecommerce.api.category.dto.CategoryTreeResponse;
 import com.saveitforlater.ecommerce.api.category.dto.CreateCategoryRequest;
 import com.saveitforlater.ecommerce.api.category.dto.UpdateCategoryRequest;
+import com.saveitforlater.ecommerce.api.support.ConditionalResponses;
+import com.saveitforlater.ecommerce.domain.catalog.CatalogVersion;
 import com.saveitforlater.ecommerce.domain.category.CategoryService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -14,8 +17,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 @Slf4j
 @RestController
@@ -24,15 +29,26 @@ import java.util.List;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final CatalogVersion catalogVersion;
 
     /**
      * Get all categories - accessible to everyone
+     * Category reads answer conditional requests with 304 until any category or attribute changes
      */
     @GetMapping
-    public ResponseEntity<List<CategoryResponse>> getAllCategories() {
+    public ResponseEntity<List<CategoryResponse>> getAllCategories(WebRequest webRequest) {
         log.debug("GET /api/categories - Fetching all categories");
-        List<CategoryResponse> categories = categoryService.getAllCategories();
-        return ResponseEntity.ok(categories);
+        return catalogResponse(webRequest, categoryService::getAllCategories);
+    }
+
+    /**
+     * Get the whole category hierarchy - accessible to everyone
+     * Each node carries its depth, breadcrumbs and name-sorted children; served from memory
+     */
+    @GetMapping("/tree")
+    public ResponseEntity<List<CategoryTreeResponse>> getCategoryTree(WebRequest webRequest) {
+        log.debug("GET /api/categories/tree - Fetching category tree");
+        return catalogResponse(webRequest, categoryService::getCategoryTree);
     }
 
     /**
@@ -40,30 +56,28 @@ public class CategoryController {
      */
     @GetMapping("/paginated")
     public ResponseEntity<Page<CategoryResponse>> getCategories(
-            @PageableDefault(size = 20, sort = "name") Pageable pageable) {
+            @PageableDefault(size = 20, sort = "name") Pageable pageable,
+            WebRequest webRequest) {
         log.debug("GET /api/categories/paginated - Fetching categories with pagination: {}", pageable);
-        Page<CategoryResponse> categories = categoryService.getCategories(pageable);
-        return ResponseEntity.ok(categories);
+        return catalogResponse(webRequest, () -> categoryService.getCategories(pageable));
     }
 
     /**
      * Get category by ID - accessible to everyone
      */
     @GetMapping("/{id}")
-    public ResponseEntity<CategoryResponse> getCategoryById(@PathVariable String id) {
+    public ResponseEntity<CategoryResponse> getCategoryById(@PathVariable String id, WebRequest webRequest) {
         log.debug("GET /api/categories/{} - Fetching category by ID", id);
-        CategoryResponse category = categoryService.getCategoryById(id);
-        return ResponseEntity.ok(category);
+        return catalogResponse(webRequest, () -> categoryService.getCategoryById(id));
     }
 
     /**
      * Get top-level categories - accessible to everyone
      */
     @GetMapping("/top-level")
-    public ResponseEntity<List<CategoryResponse>> getTopLevelCategories() {
+    public ResponseEntity<List<CategoryResponse>> getTopLevelCategories(WebRequest webRequest) {
         log.debug("GET /api/categories/top-level - Fetching top-level categories");
-        List<CategoryResponse> categories = categoryService.getTopLevelCategories();
-        return ResponseEntity.ok(categories);
+        return catalogResponse(webRequest, categoryService::getTopLevelCategories);
     }
 
     /**
@@ -101,4 +115,13 @@ public class CategoryController {
         categoryService.deleteCategory(id);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Category responses embed their parent, children and product counts, so they are validated by the
+     * catalog version, which also follows product changes, rather than the row's own update time
+     */
+    private <T> ResponseEntity<T> catalogResponse(WebRequest webRequest, Supplier<T> body) {
+        return ConditionalResponses.ok(webRequest,
+                catalogVersion.catalogTag(), catalogVersion.catalogLastModified(), body);
+    }
 }
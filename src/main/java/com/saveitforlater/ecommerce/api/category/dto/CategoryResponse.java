@@ -11,8 +11,16 @@ public record CategoryResponse(
         String slug,
         String description,
         CategorySummary parent, // Parent category (can be null)
-        Set<CategorySummary> children // Child categories
+        Set<CategorySummary> children, // Child categories
+        ProductCounts productCounts // Null while the counts are still being built at startup
 ) {
     // Nested DTO for parent and children
     public record CategorySummary(UUID id, String name, String slug) {}
+
+    // Products in the category itself, and in the category or any of its descendants (each product once)
+    public record ProductCounts(long total, long inStock, long totalWithSubcategories, long inStockWithSubcategories) {}
+
+    public CategoryResponse withProductCounts(ProductCounts productCounts) {
+        return new CategoryResponse(id, name, slug, description, parent, children, productCounts);
+    }
 }
@@ -0,0 +1,15 @@
+package com.saveitforlater.ecommerce.api.category.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+// A category with its subtree, for navigation menus
+public record CategoryTreeResponse(
+        UUID id,
+        String name,
+        String slug,
+        int depth,                                      // 0 for top-level categories
+        List<CategoryResponse.CategorySummary> breadcrumbs, // Ancestors, top-level first
+        CategoryResponse.ProductCounts productCounts,   // Null while the counts are still being built at startup
+        List<CategoryTreeResponse> children             // Sorted by name
+) {}
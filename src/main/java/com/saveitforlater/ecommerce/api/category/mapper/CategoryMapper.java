@@ -12,6 +12,8 @@ import org.mapstruct.MappingTarget;
 public interface CategoryMapper {
 
     @Mapping(source = "publicId", target = "id")
+    @Mapping(target = "productCounts", ignore = true) // Filled in by the service from CategoryProductCounts
+    @Mapping(target = "withProductCounts", ignore = true) // Wither, which MapStruct takes for a fluent setter
     CategoryResponse toCategoryResponse(Category category);
 
     @Mapping(source = "publicId", target = "id")
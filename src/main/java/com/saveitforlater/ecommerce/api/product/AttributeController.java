@@ -3,6 +3,8 @@ package com.saveitforlater.ecommerce.api.product;
 import com.saveitforlater.ecommerce.api.product.dto.AttributeDto;
 import com.saveitforlater.ecommerce.api.product.dto.AttributeOptionDto;
 import com.saveitforlater.ecommerce.api.product.mapper.ProductMapper;
+import com.saveitforlater.ecommerce.api.support.ConditionalResponses;
+import com.saveitforlater.ecommerce.domain.catalog.CatalogVersion;
 import com.saveitforlater.ecommerce.domain.product.AttributeOptionService;
 import com.saveitforlater.ecommerce.domain.product.AttributeService;
 import com.saveitforlater.ecommerce.persistence.entity.product.Attribute;
@@ -17,8 +19,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @RestController
@@ -29,17 +33,16 @@ public class AttributeController {
     private final AttributeService attributeService;
     private final AttributeOptionService attributeOptionService;
     private final ProductMapper productMapper;
+    private final CatalogVersion catalogVersion;
 
     /**
      * Get all attributes (accessible to everyone)
      */
     @GetMapping
-    public ResponseEntity<List<AttributeDto>> getAllAttributes() {
-        List<Attribute> attributes = attributeService.getAllActiveAttributes();
-        List<AttributeDto> response = attributes.stream()
+    public ResponseEntity<List<AttributeDto>> getAllAttributes(WebRequest webRequest) {
+        return taxonomyResponse(webRequest, () -> attributeService.getAllActiveAttributes().stream()
                 .map(productMapper::toAttributeDto)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(response);
+                .collect(Collectors.toList()));
     }
 
     /**
@@ -47,22 +50,22 @@ public class AttributeController {
      */
     @GetMapping("/paginated")
     public ResponseEntity<Page<AttributeDto>> getAttributes(
-            @PageableDefault(size = 20, sort = "name") Pageable pageable) {
-        Page<Attribute> attributes = attributeService.getAttributes(pageable);
-        Page<AttributeDto> response = attributes.map(productMapper::toAttributeDto);
-        return ResponseEntity.ok(response);
+            @PageableDefault(size = 20, sort = "name") Pageable pageable,
+            WebRequest webRequest) {
+        return taxonomyResponse(webRequest, () ->
+                attributeService.getAttributes(pageable).map(productMapper::toAttributeDto));
     }
 
     /**
      * Get attribute by ID (accessible to everyone)
      */
     @GetMapping("/{attributeId}")
-    public ResponseEntity<AttributeDto> getAttributeById(@PathVariable String attributeId) {
-        Attribute attribute = attributeService.findByPublicId(attributeId)
-                .orElseThrow(() -> new IllegalArgumentException("Attribute not found with ID: " + attributeId));
-        
-        AttributeDto response = productMapper.toAttributeDto(attribute);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<AttributeDto> getAttributeById(@PathVariable String attributeId, WebRequest webRequest) {
+        return taxonomyResponse(webRequest, () -> {
+            Attribute attribute = attributeService.findByPublicId(attributeId)
+                    .orElseThrow(() -> new IllegalArgumentException("Attribute not found with ID: " + attributeId));
+            return productMapper.toAttributeDto(attribute);
+        });
     }
 
     /**
@@ -104,12 +107,12 @@ public class AttributeController {
      * Get options for a specific attribute (accessible to everyone)
      */
     @GetMapping("/{attributeId}/options")
-    public ResponseEntity<List<AttributeOptionDto>> getAttributeOptions(@PathVariable String attributeId) {
-        List<AttributeOption> options = attributeOptionService.getActiveOptionsByAttributeId(attributeId);
-        List<AttributeOptionDto> response = options.stream()
+    public ResponseEntity<List<AttributeOptionDto>> getAttributeOptions(@PathVariable String attributeId,
+                                                                        WebRequest webRequest) {
+        return taxonomyResponse(webRequest, () -> attributeOptionService.getActiveOptionsByAttributeId(attributeId)
+                .stream()
                 .map(productMapper::toAttributeOptionDto)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(response);
+                .collect(Collectors.toList()));
     }
 
     /**
@@ -151,6 +154,11 @@ public class AttributeController {
         return ResponseEntity.noContent().build();
     }
 
+    private <T> ResponseEntity<T> taxonomyResponse(WebRequest webRequest, Supplier<T> body) {
+        return ConditionalResponses.ok(webRequest,
+                catalogVersion.taxonomyTag(), catalogVersion.taxonomyLastModified(), body);
+    }
+
     // Request DTOs
     public record CreateAttributeRequest(
             String name,
@@ -2,6 +2,9 @@ package com.saveitforlater.ecommerce.api.product;
 
 import com.saveitforlater.ecommerce.api.product.dto.ProductAttributeValueDto;
 import com.saveitforlater.ecommerce.api.product.mapper.ProductMapper;
+import com.saveitforlater.ecommerce.api.support.ConditionalResponses;
+import com.saveitforlater.ecommerce.domain.catalog.CatalogVersion;
+import com.saveitforlater.ecommerce.domain.product.AttributeSelection;
 import com.saveitforlater.ecommerce.domain.product.AttributeOptionService;
 import com.saveitforlater.ecommerce.domain.product.AttributeService;
 import com.saveitforlater.ecommerce.domain.product.ProductAttributeValueService;
@@ -19,6 +22,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -38,22 +42,25 @@ public class ProductAttributeController {
     private final AttributeService attributeService;
     private final AttributeOptionService attributeOptionService;
     private final ProductMapper productMapper;
+    private final CatalogVersion catalogVersion;
 
     /**
      * Get all attribute assignments for a product - accessible to everyone
      */
     @GetMapping
-    public ResponseEntity<List<ProductAttributeValueDto>> getProductAttributes(@PathVariable String productId) {
+    public ResponseEntity<List<ProductAttributeValueDto>> getProductAttributes(@PathVariable String productId,
+                                                                               WebRequest webRequest) {
         log.debug("GET /api/products/{}/attributes - Fetching product attributes", productId);
-        
-        List<ProductAttributeValue> attributeValues = productAttributeValueService
-                .getActiveAttributeValuesByProductId(productId);
-        
-        List<ProductAttributeValueDto> response = attributeValues.stream()
-                .map(productMapper::toProductAttributeValueDto)
-                .collect(Collectors.toList());
-        
-        return ResponseEntity.ok(response);
+
+        return ConditionalResponses.ok(webRequest,
+                catalogVersion.catalogTag(), catalogVersion.catalogLastModified(), () -> {
+                    List<ProductAttributeValue> attributeValues = productAttributeValueService
+                            .getActiveAttributeValuesByProductId(productId);
+
+                    return attributeValues.stream()
+                            .map(productMapper::toProductAttributeValueDto)
+                            .collect(Collectors.toList());
+                });
     }
 
     /**
@@ -103,7 +110,7 @@ public class ProductAttributeController {
 
     /**
      * Replace all attribute assignments for a product - ADMIN ONLY
-     * Removes existing attributes and sets the provided ones.
+     * Existing assignments that are requested again are kept; only the difference is written.
      */
     @PutMapping
     @PreAuthorize("hasAuthority('ADMIN')")
@@ -118,11 +125,8 @@ public class ProductAttributeController {
         Product product = productRepository.findByPublicId(productId)
                 .orElseThrow(() -> ProductNotFoundException.byPublicId(productId));
         
-        // Clear all existing attributes
-        productAttributeValueService.clearAllAttributeValuesForProduct(product);
-        
-        // Add new attributes
-        List<ProductAttributeValue> newValues = request.attributes().stream()
+        // Resolve the requested pairs, then apply only the difference to the current ones
+        List<AttributeSelection> selections = request.attributes().stream()
                 .map(attr -> {
                     Attribute attribute = attributeService.findByPublicId(attr.attributeId())
                             .orElseThrow(() -> new IllegalArgumentException(
@@ -138,9 +142,10 @@ public class ProductAttributeController {
                                 "Option " + attr.optionId() + " does not belong to attribute " + attr.attributeId());
                     }
                     
-                    return productAttributeValueService.addAttributeValueToProduct(product, attribute, option);
+                    return new AttributeSelection(attribute, option);
                 })
                 .collect(Collectors.toList());
+        List<ProductAttributeValue> newValues = productAttributeValueService.replaceAttributeValues(product, selections);
         
         List<ProductAttributeValueDto> response = newValues.stream()
                 .map(productMapper::toProductAttributeValueDto)
@@ -1,11 +1,22 @@
 package com.saveitforlater.ecommerce.api.product;
 
 import com.saveitforlater.ecommerce.api.product.dto.CreateProductRequest;
+import com.saveitforlater.ecommerce.api.product.dto.CursorPageResponse;
+import com.saveitforlater.ecommerce.api.product.dto.FacetedSearchResponse;
+import com.saveitforlater.ecommerce.api.product.dto.ProductCardResponse;
 import com.saveitforlater.ecommerce.api.product.dto.ProductFilterRequest;
+import com.saveitforlater.ecommerce.api.product.dto.ProductImportResponse;
 import com.saveitforlater.ecommerce.api.product.dto.ProductResponse;
+import com.saveitforlater.ecommerce.api.product.dto.SuggestionResponse;
 import com.saveitforlater.ecommerce.api.product.dto.UpdateProductRequest;
+import com.saveitforlater.ecommerce.api.support.ConditionalResponses;
+import com.saveitforlater.ecommerce.domain.catalog.CatalogVersion;
 import com.saveitforlater.ecommerce.domain.file.ProductImageService;
 import com.saveitforlater.ecommerce.domain.product.ProductService;
+import com.saveitforlater.ecommerce.domain.product.ProductSort;
+import com.saveitforlater.ecommerce.domain.product.importer.ProductImportService;
+import com.saveitforlater.ecommerce.domain.product.stats.ProductStatsCounters;
+import com.saveitforlater.ecommerce.domain.product.suggest.SuggestionIndex;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -18,10 +29,17 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.function.Supplier;
 
 @Slf4j
 @RestController
@@ -31,16 +49,44 @@ public class ProductController {
 
     private final ProductService productService;
     private final ProductImageService productImageService;
+    private final ProductImportService productImportService;
     private final ObjectMapper objectMapper;
+    private final CatalogVersion catalogVersion;
+    private final SuggestionIndex suggestionIndex;
+    private final ProductStatsCounters productStatsCounters;
 
     /**
      * Get all products - accessible to everyone
+     * List endpoints answer conditional requests with 304 until any product, category or attribute changes;
+     * lists sorted by popularity also revalidate after each popularity flush
      */
     @GetMapping
-    public ResponseEntity<List<ProductResponse>> getAllProducts() {
+    public ResponseEntity<List<ProductResponse>> getAllProducts(WebRequest webRequest) {
         log.debug("GET /api/products - Fetching all products");
-        List<ProductResponse> products = productService.getAllProducts();
-        return ResponseEntity.ok(products);
+        return catalogResponse(webRequest, false, productService::getAllProducts);
+    }
+
+    /**
+     * Export the full catalog as NDJSON (one product per line) - ADMIN only
+     * Streams products as they are read instead of building the whole list in memory
+     */
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        log.debug("GET /api/products/export - Streaming product export");
+        // Image URLs are built from the current request, which is not bound to the streaming thread
+        RequestAttributes requestAttributes = RequestContextHolder.currentRequestAttributes();
+        StreamingResponseBody body = out -> {
+            RequestContextHolder.setRequestAttributes(requestAttributes);
+            try {
+                productService.exportProducts(out);
+            } finally {
+                RequestContextHolder.resetRequestAttributes();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     /**
@@ -48,15 +94,18 @@ public class ProductController {
      */
     @GetMapping("/paginated")
     public ResponseEntity<Page<ProductResponse>> getProducts(
-            @PageableDefault(size = 20, sort = "name") Pageable pageable) {
+            @PageableDefault(size = 20, sort = "name") Pageable pageable,
+            WebRequest webRequest) {
         log.debug("GET /api/products/paginated - Fetching products with pagination: {}", pageable);
-        Page<ProductResponse> products = productService.getProducts(pageable);
-        return ResponseEntity.ok(products);
+        return catalogResponse(webRequest, isPopularitySorted(pageable), () -> productService.getProducts(pageable));
     }
 
     /**
      * Search and filter products with pagination - accessible to everyone
-     * Supports query parameters for filtering: searchTerm, categoryIds, minPrice, maxPrice, inStock
+     * Supports query parameters for filtering: searchTerm, categoryIds, minPrice, maxPrice, inStock;
+     * set includeSubcategories=true to also match products in categories under the given ones
+     * Pass sort=relevance to order search results by match quality, sort=popularity,desc for best sellers,
+     * or sort=effectivePrice to order by the price customers pay (sale price when set)
      */
     @GetMapping("/search")
     public ResponseEntity<Page<ProductResponse>> searchProducts(
@@ -65,7 +114,9 @@ public class ProductController {
             @RequestParam(required = false) BigDecimal minPrice,
             @RequestParam(required = false) BigDecimal maxPrice,
             @RequestParam(required = false) Boolean inStock,
-            @PageableDefault(size = 20, sort = "name") Pageable pageable) {
+            @RequestParam(defaultValue = "false") boolean includeSubcategories,
+            @PageableDefault(size = 20, sort = "name") Pageable pageable,
+            WebRequest webRequest) {
         log.debug("GET /api/products/search - Searching products with filters");
         
         // Build filter from query parameters
@@ -75,31 +126,133 @@ public class ProductController {
             minPrice, 
             maxPrice, 
             inStock, 
-            null  // attributes filtering not supported via query params (too complex)
+            null,  // attributes filtering not supported via query params (too complex)
+            includeSubcategories
         );
         
-        Page<ProductResponse> products = productService.getProductsWithFilters(filter, pageable);
-        return ResponseEntity.ok(products);
+        return catalogResponse(webRequest, isPopularitySorted(pageable),
+                () -> productService.getProductsWithFilters(filter, pageable));
+    }
+
+    /**
+     * Faceted search - accessible to everyone
+     * Takes the full filter (including attribute filters) as JSON body and returns
+     * a page of product cards with attribute, category, price and stock facet counts
+     */
+    @PostMapping("/search/faceted")
+    public ResponseEntity<FacetedSearchResponse> searchProductsFaceted(
+            @RequestBody ProductFilterRequest filter,
+            @PageableDefault(size = 20, sort = "name") Pageable pageable) {
+        log.debug("POST /api/products/search/faceted - Faceted product search");
+        FacetedSearchResponse response = productService.searchProductsFaceted(filter, pageable);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Typeahead suggestions - accessible to everyone
+     * Returns the most popular products and categories with a name word (or product SKU) starting with q,
+     * answered from memory; limit is capped at app.search.suggest.max-results
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<SuggestionResponse> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "5") int limit) {
+        log.debug("GET /api/products/suggest - Suggesting for prefix '{}'", q);
+        return ResponseEntity.ok(suggestionIndex.suggest(q, Math.max(1, Math.min(limit, suggestionIndex.maxResults()))));
+    }
+
+    /**
+     * Browse and filter products with cursor pagination - accessible to everyone
+     * Pass the returned nextCursor back as cursor to get the following page;
+     * set includeTotal=true to also run the count query
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPageResponse<ProductResponse>> scrollProducts(
+            @RequestParam(required = false) String searchTerm,
+            @RequestParam(required = false) List<String> categoryIds,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(defaultValue = "false") boolean includeSubcategories,
+            @RequestParam(defaultValue = "NAME") ProductSort sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            WebRequest webRequest) {
+        log.debug("GET /api/products/scroll - Fetching products by cursor, sort={}", sort);
+
+        ProductFilterRequest filter = new ProductFilterRequest(
+            searchTerm,
+            categoryIds,
+            minPrice,
+            maxPrice,
+            inStock,
+            null,
+            includeSubcategories
+        );
+
+        // Same bounds as the default Pageable resolver
+        int pageSize = Math.max(1, Math.min(size, 2000));
+        return catalogResponse(webRequest, sort == ProductSort.POPULARITY, () ->
+                productService.getProductsByCursor(filter, sort, cursor, pageSize, includeTotal));
+    }
+
+    /**
+     * Card listing mode for product grids - accessible to everyone
+     * Accepts the same filters as /search but returns slim product cards
+     * (id, name, slug, prices, stock flag, primary image URL)
+     */
+    @GetMapping("/cards")
+    public ResponseEntity<Page<ProductCardResponse>> getProductCards(
+            @RequestParam(required = false) String searchTerm,
+            @RequestParam(required = false) List<String> categoryIds,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(defaultValue = "false") boolean includeSubcategories,
+            @PageableDefault(size = 20, sort = "name") Pageable pageable,
+            WebRequest webRequest) {
+        log.debug("GET /api/products/cards - Fetching product cards with filters");
+
+        ProductFilterRequest filter = new ProductFilterRequest(
+            searchTerm,
+            categoryIds,
+            minPrice,
+            maxPrice,
+            inStock,
+            null,
+            includeSubcategories
+        );
+
+        return catalogResponse(webRequest, isPopularitySorted(pageable),
+                () -> productService.getProductCards(filter, pageable));
     }
 
     /**
      * Get product by ID - accessible to everyone
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ProductResponse> getProductById(@PathVariable String id) {
+    public ResponseEntity<ProductResponse> getProductById(@PathVariable String id, WebRequest webRequest) {
         log.debug("GET /api/products/{} - Fetching product by ID", id);
-        ProductResponse product = productService.getProductById(id);
-        return ResponseEntity.ok(product);
+        return productResponse(webRequest, productService.getProductById(id));
     }
 
     /**
      * Get product by SKU - accessible to everyone
      */
     @GetMapping("/sku/{sku}")
-    public ResponseEntity<ProductResponse> getProductBySku(@PathVariable String sku) {
+    public ResponseEntity<ProductResponse> getProductBySku(@PathVariable String sku, WebRequest webRequest) {
         log.debug("GET /api/products/sku/{} - Fetching product by SKU", sku);
-        ProductResponse product = productService.getProductBySku(sku);
-        return ResponseEntity.ok(product);
+        return productResponse(webRequest, productService.getProductBySku(sku));
+    }
+
+    /**
+     * Get product by slug - accessible to everyone
+     */
+    @GetMapping("/slug/{slug}")
+    public ResponseEntity<ProductResponse> getProductBySlug(@PathVariable String slug, WebRequest webRequest) {
+        log.debug("GET /api/products/slug/{} - Fetching product by slug", slug);
+        return productResponse(webRequest, productService.getProductBySlug(slug));
     }
 
     /**
@@ -164,6 +317,28 @@ public class ProductController {
         }
     }
 
+    /**
+     * Bulk import products from NDJSON (one create request per line) - ADMIN ONLY
+     * Invalid rows are skipped and reported; the rest are imported
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<ProductImportResponse> importProductsNdjson(InputStream body) throws IOException {
+        log.info("POST /api/products/import - Importing products from NDJSON");
+        return ResponseEntity.ok(productImportService.importNdjson(body));
+    }
+
+    /**
+     * Bulk import products from CSV with a header row - ADMIN ONLY
+     * categoryIds and attributes (Attribute:Option pairs) are separated by '|'
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<ProductImportResponse> importProductsCsv(InputStream body) throws IOException {
+        log.info("POST /api/products/import - Importing products from CSV");
+        return ResponseEntity.ok(productImportService.importCsv(body));
+    }
+
     /**
      * Update product - ADMIN ONLY
      */
@@ -187,5 +362,37 @@ public class ProductController {
         productService.deleteProduct(id);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Lists sorted by popularity also revalidate when popularity is flushed; other lists only when the catalog changes
+     */
+    private <T> ResponseEntity<T> catalogResponse(WebRequest webRequest, boolean popularitySorted, Supplier<T> body) {
+        if (popularitySorted) {
+            return ConditionalResponses.ok(webRequest,
+                    catalogVersion.popularityTag(), catalogVersion.popularityLastModified(), body);
+        }
+        return ConditionalResponses.ok(webRequest,
+                catalogVersion.catalogTag(), catalogVersion.catalogLastModified(), body);
+    }
+
+    private static boolean isPopularitySorted(Pageable pageable) {
+        return pageable.getSort().getOrderFor(ProductSort.POPULARITY.getProperty()) != null;
+    }
+
+    /**
+     * Single products are validated by their own update time; the response comes from the product cache,
+     * so a 304 skips only serialization
+     */
+    private ResponseEntity<ProductResponse> productResponse(WebRequest webRequest, ProductResponse product) {
+        ResponseEntity<ProductResponse> response = ConditionalResponses.ok(webRequest,
+                catalogVersion.productTag(product.id(), product.updatedAt()),
+                catalogVersion.productLastModified(product.updatedAt()),
+                () -> product);
+        // Only served pages count towards popularity; a 304 is a cache revalidation, not a new view
+        if (response.getStatusCode().is2xxSuccessful()) {
+            productStatsCounters.recordView(product.id());
+        }
+        return response;
+    }
 }
 
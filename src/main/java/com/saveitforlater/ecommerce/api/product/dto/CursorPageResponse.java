@@ -0,0 +1,12 @@
+package com.saveitforlater.ecommerce.api.product.dto;
+
+import java.util.List;
+
+// Response DTO for keyset-paginated listings; totalElements is only set when requested
+public record CursorPageResponse<T>(
+        List<T> content,
+        int size,
+        boolean hasNext,
+        String nextCursor,
+        Long totalElements
+) {}
@@ -0,0 +1,9 @@
+package com.saveitforlater.ecommerce.api.product.dto;
+
+import org.springframework.data.domain.Page;
+
+// Response DTO for faceted search: a page of product cards plus facet counts for the whole result
+public record FacetedSearchResponse(
+        Page<ProductCardResponse> products,
+        ProductFacets facets
+) {}
@@ -0,0 +1,14 @@
+package com.saveitforlater.ecommerce.api.product.dto;
+
+import java.math.BigDecimal;
+
+// Slim response DTO for product grids (no description, attributes or full image list)
+public record ProductCardResponse(
+        String id,
+        String name,
+        String slug,
+        BigDecimal price,
+        BigDecimal salePrice,
+        boolean inStock,
+        String primaryImageUrl
+) {}
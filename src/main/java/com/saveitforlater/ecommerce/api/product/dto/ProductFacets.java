@@ -0,0 +1,48 @@
+package com.saveitforlater.ecommerce.api.product.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Facet counts for a product search. Each facet is counted with every filter applied
+// except its own, so shoppers see how many results selecting another value would give.
+public record ProductFacets(
+        List<AttributeFacet> attributes,
+        List<CategoryFacet> categories,
+        List<PriceRangeFacet> priceRanges,
+        StockFacet stock
+) {
+    public record AttributeFacet(
+            String attributeId,
+            String attributeName,
+            List<OptionCount> options
+    ) {}
+
+    public record OptionCount(
+            String optionId,
+            String optionName,
+            long count,
+            boolean selected
+    ) {}
+
+    public record CategoryFacet(
+            String categoryId,
+            String categoryName,
+            long count,
+            boolean selected
+    ) {}
+
+    public record PriceRangeFacet(
+            BigDecimal from,              // inclusive
+            BigDecimal to,                // exclusive, null for the last range
+            long count
+    ) {}
+
+    public record StockFacet(
+            long inStock,
+            long outOfStock
+    ) {}
+
+    public static ProductFacets empty() {
+        return new ProductFacets(List.of(), List.of(), List.of(), new StockFacet(0, 0));
+    }
+}
@@ -9,8 +9,18 @@ public record ProductFilterRequest(
         BigDecimal minPrice,             // Minimum price
         BigDecimal maxPrice,             // Maximum price
         Boolean inStock,                 // true = only in stock, false = only out of stock, null = all
-        List<AttributeFilter> attributes // Filter by attribute values
+        List<AttributeFilter> attributes, // Filter by attribute values
+        Boolean includeSubcategories     // true = categoryIds also match their subcategories
 ) {
+    public ProductFilterRequest withoutSearchTerm() {
+        return new ProductFilterRequest(null, categoryIds, minPrice, maxPrice, inStock, attributes,
+                includeSubcategories);
+    }
+
+    public boolean includesSubcategories() {
+        return Boolean.TRUE.equals(includeSubcategories);
+    }
+
     public record AttributeFilter(
             String attributeName,         // Attribute name (e.g., "Color")
             List<String> optionNames      // Option names (e.g., ["Red", "Blue"])
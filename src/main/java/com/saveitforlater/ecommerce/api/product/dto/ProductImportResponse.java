@@ -0,0 +1,13 @@
+package com.saveitforlater.ecommerce.api.product.dto;
+
+import java.util.List;
+
+// Response DTO for bulk imports; errors lists rejected rows (1-based, header excluded), capped at a fixed size
+public record ProductImportResponse(
+        int received,
+        int imported,
+        int failed,
+        List<RowError> errors
+) {
+    public record RowError(int row, String sku, String message) {}
+}
@@ -3,6 +3,7 @@ package com.saveitforlater.ecommerce.api.product.dto;
 import com.saveitforlater.ecommerce.domain.file.dto.ProductImageResponse;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 import java.util.Set;
 
@@ -19,7 +20,8 @@ public record ProductResponse(
         int stockQuantity,
         Set<CategorySummary> categories,
         List<ProductAttributeValueDto> attributes,
-        List<ProductImageResponse> images
+        List<ProductImageResponse> images,
+        Instant updatedAt
 ) {
     // Nested DTO
     public record CategorySummary(String id, String name, String slug, String parentId) {}
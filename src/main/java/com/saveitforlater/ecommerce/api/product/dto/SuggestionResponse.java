@@ -0,0 +1,15 @@
+package com.saveitforlater.ecommerce.api.product.dto;
+
+import java.util.List;
+
+// Typeahead suggestions for a search prefix, most popular first
+public record SuggestionResponse(
+        List<Item> products,
+        List<Item> categories
+) {
+    public record Item(
+            String id,
+            String name,
+            String slug
+    ) {}
+}
@@ -1,6 +1,7 @@
 package com.saveitforlater.ecommerce.api.product.exception;
 
 import com.saveitforlater.ecommerce.api.auth.exception.ErrorResponse;
+import com.saveitforlater.ecommerce.domain.product.exception.InvalidProductCursorException;
 import com.saveitforlater.ecommerce.domain.product.exception.ProductNotFoundException;
 import com.saveitforlater.ecommerce.domain.product.exception.ProductSkuAlreadyExistsException;
 import com.saveitforlater.ecommerce.domain.product.exception.ProductSlugAlreadyExistsException;
@@ -55,5 +56,18 @@ public class ProductExceptionHandler {
 
         return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
     }
-}
 
+    @ExceptionHandler(InvalidProductCursorException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidProductCursor(InvalidProductCursorException ex) {
+        log.warn("Invalid product cursor: {}", ex.getMessage());
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                "INVALID_PRODUCT_CURSOR",
+                ex.getMessage(),
+                HttpStatus.BAD_REQUEST.value(),
+                "/api/products"
+        );
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+    }
+}
@@ -0,0 +1,34 @@
+package com.saveitforlater.ecommerce.api.support;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Instant;
+import java.util.function.Supplier;
+
+/**
+ * Conditional GET support: answers If-None-Match / If-Modified-Since with 304 before the body
+ * is built, otherwise returns the body with ETag and Last-Modified.
+ * Responses are marked no-cache so browsers and the edge cache revalidate instead of
+ * falling back to the no-store default of Spring Security.
+ */
+public final class ConditionalResponses {
+
+    private ConditionalResponses() {
+    }
+
+    public static <T> ResponseEntity<T> ok(WebRequest request, String etag, Instant lastModified, Supplier<T> body) {
+        if (request.checkNotModified(etag, lastModified.toEpochMilli())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag)
+                .lastModified(lastModified)
+                .body(body.get());
+    }
+}
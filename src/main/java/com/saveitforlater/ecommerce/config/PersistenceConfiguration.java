@@ -1,5 +1,9 @@
 package com.saveitforlater.ecommerce.config;
 
+import com.saveitforlater.ecommerce.persistence.id.PooledIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
@@ -9,4 +13,12 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 @EnableJpaAuditing
 public class PersistenceConfiguration {
     // You can also move @EntityScan here if you were using it
+
+    /**
+     * Pass the ID block size to the pooled ID generators, which only see Hibernate settings
+     */
+    @Bean
+    HibernatePropertiesCustomizer idBlockSizeCustomizer(@Value("${app.id.block-size:50}") int blockSize) {
+        return properties -> properties.put(PooledIdGenerator.BLOCK_SIZE_SETTING, blockSize);
+    }
 }
\ No newline at end of file
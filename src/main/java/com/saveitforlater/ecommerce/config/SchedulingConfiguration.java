@@ -0,0 +1,13 @@
+package com.saveitforlater.ecommerce.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Runs the periodic jobs (e.g. the product stats flush and the abandoned cart purge) on Spring's scheduler.
+ * Its pool (spring.task.scheduling.pool.size) has a thread per job, so one slow run never delays the others.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableScheduling
+public class SchedulingConfiguration {
+}
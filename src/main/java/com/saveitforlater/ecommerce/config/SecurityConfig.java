@@ -91,7 +91,9 @@ public class SecurityConfig {
         http.authorizeHttpRequests(authz -> authz
                 // Public endpoints - allow anonymous access
                 .requestMatchers("/api/auth/register", "/api/auth/login", "/api/auth/logout").permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/products/export").hasAuthority("ADMIN") // Long-running full catalog stream
                 .requestMatchers(HttpMethod.GET, "/api/products/**", "/api/categories/**", "/api/attributes/**").permitAll()
+                .requestMatchers(HttpMethod.POST, "/api/products/search/faceted").permitAll() // Read-only search with JSON filter body
                 .requestMatchers(HttpMethod.GET, "/api/files/**").permitAll()
                 .requestMatchers("/api/auth/debug/**").permitAll() // Debug endpoints (remove in production)
                 .requestMatchers("/error").permitAll() // Spring Boot error endpoint
@@ -1,6 +1,7 @@
 package com.saveitforlater.ecommerce.domain.cart;
 
 import com.saveitforlater.ecommerce.api.cart.dto.AddToCartRequest;
+import com.saveitforlater.ecommerce.api.cart.dto.CartBatchRequest;
 import com.saveitforlater.ecommerce.api.cart.dto.CartItemResponse;
 import com.saveitforlater.ecommerce.api.cart.dto.CartResponse;
 import com.saveitforlater.ecommerce.api.cart.dto.UpdateCartItemRequest;
@@ -8,11 +9,15 @@ import com.saveitforlater.ecommerce.api.cart.mapper.CartMapper;
 import com.saveitforlater.ecommerce.domain.cart.exception.CartItemNotFoundException;
 import com.saveitforlater.ecommerce.domain.cart.exception.CartNotFoundException;
 import com.saveitforlater.ecommerce.domain.cart.exception.InsufficientStockException;
+import com.saveitforlater.ecommerce.domain.cart.store.WriteBehindCartStore;
 import com.saveitforlater.ecommerce.domain.product.exception.ProductNotFoundException;
+import com.saveitforlater.ecommerce.domain.product.stats.ProductStatsCounters;
 import com.saveitforlater.ecommerce.persistence.entity.cart.Cart;
 import com.saveitforlater.ecommerce.persistence.entity.cart.CartItem;
 import com.saveitforlater.ecommerce.persistence.entity.product.Product;
 import com.saveitforlater.ecommerce.persistence.entity.user.User;
+import com.saveitforlater.ecommerce.persistence.id.IdBlockAllocator;
+import com.saveitforlater.ecommerce.persistence.projection.CartLineView;
 import com.saveitforlater.ecommerce.persistence.repository.cart.CartItemRepository;
 import com.saveitforlater.ecommerce.persistence.repository.cart.CartRepository;
 import com.saveitforlater.ecommerce.persistence.repository.product.ProductRepository;
@@ -25,30 +30,55 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Cart reads and changes of the current user. When the write-behind store is enabled
+ * ({@code app.cart.write-behind.enabled}) the current user's cart is read and changed in memory and
+ * written to the database later; reads straight from the database flush the user's cart first.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CartService {
 
+    private static final String CART_ITEM_SEQUENCE = "cart_item_seq";
+
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final ProductRepository productRepository;
     private final CartMapper cartMapper;
+    private final ProductStatsCounters productStatsCounters;
+    private final IdBlockAllocator idBlockAllocator;
+    private final Optional<WriteBehindCartStore> writeBehindCartStore;
 
     /**
-     * Get the current authenticated user's cart
+     * Get the current authenticated user's cart.
+     * Cart, items and product summaries are read in one query.
      */
     @Transactional
     public CartResponse getMyCart() {
         User currentUser = getCurrentUser();
         log.debug("Fetching cart for user: {}", currentUser.getEmail());
-        
-        Cart cart = cartRepository.findByUser(currentUser)
-                .orElseGet(() -> createCartForUser(currentUser));
+        if (writeBehindCartStore.isPresent()) {
+            return writeBehindCartStore.get().read(currentUser);
+        }
 
-        return cartMapper.toCartResponse(cart);
+        List<CartLineView> lines = cartRepository.findLinesByUserId(currentUser.getId());
+        if (lines.isEmpty()) {
+            return cartMapper.toCartResponse(createCartForUser(currentUser));
+        }
+        return cartMapper.linesToCartResponse(lines);
     }
 
     /**
@@ -60,10 +90,12 @@ public class CartService {
         
         // Note: Authorization is handled at controller level with @PreAuthorize("hasAuthority('ADMIN')")
         // This method is only called by admins, so we can safely proceed
-        Cart cart = cartRepository.findByUserPublicId(userPublicId)
-                .orElseThrow(() -> CartNotFoundException.byUserId(userPublicId));
-
-        return cartMapper.toCartResponse(cart);
+        writeBehindCartStore.ifPresent(store -> store.flushUser(userPublicId));
+        List<CartLineView> lines = cartRepository.findLinesByUserPublicId(userPublicId);
+        if (lines.isEmpty()) {
+            throw CartNotFoundException.byUserId(userPublicId);
+        }
+        return cartMapper.linesToCartResponse(lines);
     }
 
     /**
@@ -73,7 +105,8 @@ public class CartService {
     public Page<CartItemResponse> getMyCartItems(Pageable pageable) {
         User currentUser = getCurrentUser();
         log.debug("Fetching paginated cart items for user: {}", currentUser.getEmail());
-        
+        writeBehindCartStore.ifPresent(store -> store.flushUser(currentUser.getPublicId()));
+
         Cart cart = cartRepository.findByUser(currentUser)
                 .orElseGet(() -> createCartForUser(currentUser));
 
@@ -82,63 +115,186 @@ public class CartService {
     }
 
     /**
-     * Add item to cart or update quantity if already exists
+     * Add item to cart or update quantity if already exists.
+     * The item is written by one upsert guarded by the product's stock, so concurrent adds of the same
+     * product add up instead of failing on the (cart, product) unique constraint. The cart row is locked
+     * first: concurrent upserts into one cart would otherwise take their gap and row locks in opposite
+     * orders and deadlock.
      */
     @Transactional
     public CartResponse addToCart(AddToCartRequest request) {
         User currentUser = getCurrentUser();
         log.info("Adding item to cart for user: {} - Product ID: {}, Quantity: {}", 
                 currentUser.getEmail(), request.productId(), request.quantity());
+        if (writeBehindCartStore.isPresent()) {
+            Product product = productRepository.findByPublicId(request.productId())
+                    .orElseThrow(() -> ProductNotFoundException.byPublicId(request.productId()));
+            CartResponse response = writeBehindCartStore.get().update(currentUser,
+                    Map.of(product.getPublicId(), product),
+                    cart -> {
+                        Map<String, Integer> quantities = Map.of(product.getPublicId(),
+                                cart.quantityOf(product.getPublicId()) + request.quantity());
+                        checkStock(quantities, Map.of(product.getPublicId(), product));
+                        return quantities;
+                    });
+            productStatsCounters.recordAddToCart(request.productId());
+            return response;
+        }
 
-        // Get or create cart
-        Cart cart = cartRepository.findByUser(currentUser)
-                .orElseGet(() -> createCartForUser(currentUser));
+        // Get or create cart, locked for the rest of the transaction
+        Long cartId = cartRepository.lockIdByUserId(currentUser.getId())
+                .orElseGet(() -> createCartForUser(currentUser).getId());
 
-        // Get product
+        int written = cartItemRepository.upsertItem(idBlockAllocator.next(CART_ITEM_SEQUENCE),
+                UUID.randomUUID().toString(), cartId, request.productId(), request.quantity(), Instant.now());
+        if (written == 0) {
+            throw insufficientStock(cartId, request);
+        }
+        log.debug("Added {} of product {} to cart", request.quantity(), request.productId());
+
+        productStatsCounters.recordAddToCart(request.productId());
+        return cartResponse(cartId);
+    }
+
+    /**
+     * Explain an add the upsert rejected: the product does not exist, or its stock does not cover the
+     * quantity already in the cart plus the requested one
+     */
+    private InsufficientStockException insufficientStock(Long cartId, AddToCartRequest request) {
         Product product = productRepository.findByPublicId(request.productId())
                 .orElseThrow(() -> ProductNotFoundException.byPublicId(request.productId()));
+        int inCart = cartItemRepository.findQuantity(cartId, request.productId()).orElse(0);
+        return InsufficientStockException.forProduct(
+                product.getName(),
+                inCart + request.quantity(),
+                product.getStockQuantity());
+    }
 
-        // Check stock availability
-        if (product.getStockQuantity() < request.quantity()) {
-            throw InsufficientStockException.forProduct(
-                    product.getName(), 
-                    request.quantity(), 
-                    product.getStockQuantity());
+    /**
+     * Apply several adds, quantity changes and removals to the current user's cart, in order and all
+     * or nothing. The cart's items and every product involved are each read with one query; stock is
+     * checked against the final quantities, and the changes are flushed as batched statements.
+     */
+    @Transactional
+    public CartResponse applyBatch(CartBatchRequest request) {
+        User currentUser = getCurrentUser();
+        log.info("Applying {} cart operations for user: {}", request.operations().size(), currentUser.getEmail());
+
+        // The products named by the batch, by public ID
+        Set<String> productIds = request.operations().stream()
+                .map(CartBatchRequest.Operation::productId)
+                .collect(Collectors.toSet());
+        Map<String, Product> products = new HashMap<>();
+        productRepository.findByPublicIdIn(productIds)
+                .forEach(product -> products.put(product.getPublicId(), product));
+
+        if (writeBehindCartStore.isPresent()) {
+            List<String> added = new ArrayList<>();
+            CartResponse response = writeBehindCartStore.get().update(currentUser, products, cart -> {
+                Map<String, Integer> quantities = finalQuantities(request.operations(), cart::quantityOf);
+                checkStock(quantities, products);
+                quantities.forEach((productId, quantity) -> {
+                    if (quantity > cart.quantityOf(productId)) {
+                        added.add(productId);
+                    }
+                });
+                return quantities;
+            });
+            added.forEach(productStatsCounters::recordAddToCart);
+            return response;
         }
 
-        // Check if item already exists in cart
-        CartItem existingItem = cartItemRepository.findByCartAndProduct(cart, product)
-                .orElse(null);
+        // Get or create cart, locked for the rest of the transaction so concurrent batches apply in turn
+        Long cartId = cartRepository.lockIdByUserId(currentUser.getId())
+                .orElseGet(() -> createCartForUser(currentUser).getId());
+        Cart cart = cartRepository.getReferenceById(cartId);
+
+        // Current items by product public ID
+        Map<String, CartItem> items = new HashMap<>();
+        cartItemRepository.findWithProductByCartId(cartId)
+                .forEach(item -> items.put(item.getProduct().getPublicId(), item));
+
+        Map<String, Integer> quantities = finalQuantities(request.operations(), productId -> {
+            CartItem existing = items.get(productId);
+            return existing != null ? existing.getQuantity() : 0;
+        });
+        // Check every final quantity before writing anything
+        checkStock(quantities, products);
+
+        quantities.forEach((productId, quantity) -> {
+            CartItem item = items.get(productId);
+            int previous = item != null ? item.getQuantity() : 0;
+            if (quantity == 0) {
+                // An item added and removed again within the batch was never saved
+                if (item != null) {
+                    cartItemRepository.delete(item);
+                }
+            } else if (item == null) {
+                Product product = products.get(productId);
+                cartItemRepository.save(new CartItem(cart, product, quantity, product.getEffectivePrice()));
+            } else {
+                item.setQuantity(quantity);
+            }
+            if (quantity > previous) {
+                productStatsCounters.recordAddToCart(productId);
+            }
+        });
+
+        return cartResponse(cartId);
+    }
+
+    /**
+     * Final quantity of every product the operations touch, applied in order to the current
+     * quantities; 0 when it ends up removed
+     */
+    private static Map<String, Integer> finalQuantities(List<CartBatchRequest.Operation> operations,
+                                                        ToIntFunction<String> currentQuantity) {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        for (CartBatchRequest.Operation operation : operations) {
+            String productId = operation.productId();
+            int current = quantities.containsKey(productId)
+                    ? quantities.get(productId)
+                    : currentQuantity.applyAsInt(productId);
+            switch (operation.type()) {
+                case ADD -> quantities.put(productId, current + requireQuantity(operation));
+                case SET_QUANTITY -> quantities.put(productId, requireQuantity(operation));
+                case REMOVE -> {
+                    if (current == 0) {
+                        throw CartItemNotFoundException.byProductId(productId);
+                    }
+                    quantities.put(productId, 0);
+                }
+            }
+        }
+        return quantities;
+    }
 
-        if (existingItem != null) {
-            // Update quantity
-            int newQuantity = existingItem.getQuantity() + request.quantity();
-            
-            // Check stock for new quantity
-            if (product.getStockQuantity() < newQuantity) {
+    /**
+     * Check that every product kept in the cart exists and has stock for its quantity
+     */
+    private static void checkStock(Map<String, Integer> quantities, Map<String, Product> products) {
+        quantities.forEach((productId, quantity) -> {
+            if (quantity == 0) {
+                return;
+            }
+            Product product = products.get(productId);
+            if (product == null) {
+                throw ProductNotFoundException.byPublicId(productId);
+            }
+            if (product.getStockQuantity() < quantity) {
                 throw InsufficientStockException.forProduct(
-                        product.getName(), 
-                        newQuantity, 
+                        product.getName(),
+                        quantity,
                         product.getStockQuantity());
             }
-            
-            existingItem.setQuantity(newQuantity);
-            cartItemRepository.save(existingItem);
-            log.debug("Updated cart item quantity to: {}", newQuantity);
-        } else {
-            // Create new cart item
-            BigDecimal currentPrice = product.getSalePrice().compareTo(BigDecimal.ZERO) > 0 
-                    ? product.getSalePrice() 
-                    : product.getPrice();
-            
-            CartItem newItem = new CartItem(cart, product, request.quantity(), currentPrice);
-            cart.addItem(newItem);
-            cartItemRepository.save(newItem);
-            log.debug("Added new item to cart");
-        }
+        });
+    }
 
-        cart = cartRepository.save(cart);
-        return cartMapper.toCartResponse(cart);
+    private static int requireQuantity(CartBatchRequest.Operation operation) {
+        if (operation.quantity() == null) {
+            throw new IllegalArgumentException("Quantity is required for " + operation.type() + " operations");
+        }
+        return operation.quantity();
     }
 
     /**
@@ -148,6 +304,17 @@ public class CartService {
     public CartResponse updateCartItem(String cartItemId, UpdateCartItemRequest request) {
         User currentUser = getCurrentUser();
         log.info("Updating cart item: {} - New quantity: {}", cartItemId, request.quantity());
+        if (writeBehindCartStore.isPresent()) {
+            return writeBehindCartStore.get().update(currentUser, Map.of(), cart -> {
+                String productId = cart.productOf(cartItemId)
+                        .orElseThrow(() -> CartItemNotFoundException.byPublicId(cartItemId));
+                Product product = productRepository.findByPublicId(productId)
+                        .orElseThrow(() -> ProductNotFoundException.byPublicId(productId));
+                Map<String, Integer> quantities = Map.of(productId, request.quantity());
+                checkStock(quantities, Map.of(productId, product));
+                return quantities;
+            });
+        }
 
         CartItem cartItem = cartItemRepository.findByPublicId(cartItemId)
                 .orElseThrow(() -> CartItemNotFoundException.byPublicId(cartItemId));
@@ -170,7 +337,7 @@ public class CartService {
         cartItemRepository.save(cartItem);
 
         Cart cart = cartItem.getCart();
-        return cartMapper.toCartResponse(cart);
+        return cartResponse(cart.getId());
     }
 
     /**
@@ -180,6 +347,11 @@ public class CartService {
     public CartResponse removeCartItem(String cartItemId) {
         User currentUser = getCurrentUser();
         log.info("Removing cart item: {}", cartItemId);
+        if (writeBehindCartStore.isPresent()) {
+            return writeBehindCartStore.get().update(currentUser, Map.of(), cart -> Map.of(
+                    cart.productOf(cartItemId).orElseThrow(() -> CartItemNotFoundException.byPublicId(cartItemId)),
+                    0));
+        }
 
         CartItem cartItem = cartItemRepository.findByPublicId(cartItemId)
                 .orElseThrow(() -> CartItemNotFoundException.byPublicId(cartItemId));
@@ -193,7 +365,7 @@ public class CartService {
         cart.removeItem(cartItem);
         cartItemRepository.delete(cartItem);
 
-        return cartMapper.toCartResponse(cart);
+        return cartResponse(cart.getId());
     }
 
     /**
@@ -203,6 +375,10 @@ public class CartService {
     public CartResponse clearCart() {
         User currentUser = getCurrentUser();
         log.info("Clearing cart for user: {}", currentUser.getEmail());
+        if (writeBehindCartStore.isPresent()) {
+            return writeBehindCartStore.get().update(currentUser, Map.of(), cart -> cart.productPublicIds().stream()
+                    .collect(Collectors.toMap(productId -> productId, productId -> 0)));
+        }
 
         Cart cart = cartRepository.findByUser(currentUser)
                 .orElseThrow(() -> CartNotFoundException.byUserId(currentUser.getPublicId()));
@@ -211,7 +387,14 @@ public class CartService {
         cartItemRepository.deleteByCart(cart);
         cart = cartRepository.save(cart);
 
-        return cartMapper.toCartResponse(cart);
+        return cartResponse(cart.getId());
+    }
+
+    /**
+     * Re-read a cart in one query; the query flushes pending item changes first
+     */
+    private CartResponse cartResponse(Long cartId) {
+        return cartMapper.linesToCartResponse(cartRepository.findLinesByCartId(cartId));
     }
 
     /**
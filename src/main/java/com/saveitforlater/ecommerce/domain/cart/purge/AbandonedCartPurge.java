@@ -0,0 +1,143 @@
+package com.saveitforlater.ecommerce.domain.cart.purge;
+
+import com.saveitforlater.ecommerce.domain.cart.store.WriteBehindCartStore;
+import com.saveitforlater.ecommerce.persistence.repository.cart.CartItemRepository;
+import com.saveitforlater.ecommerce.persistence.repository.cart.CartRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Scheduled deletion of abandoned carts: carts whose row and items have not changed for
+ * {@code app.cart.purge.abandoned-after}.
+ * <p>
+ * Carts are found in ID order, a batch at a time (keyset, no offset), and each batch is deleted in
+ * its own short transaction that re-checks and locks its carts first, so a cart used since it was
+ * found is kept and checkout never waits on more than one batch. The run pauses between batches to
+ * leave the database to regular traffic. Carts held by the {@link WriteBehindCartStore} are in use
+ * and skipped; they are checked under the lock, and the store touches a cart when it loads one, which
+ * waits for the lock, so the store never holds a purged cart.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.cart.purge.enabled", havingValue = "true", matchIfMissing = true)
+public class AbandonedCartPurge {
+
+    private static final String METRIC_PREFIX = "cart.purge";
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Optional<WriteBehindCartStore> writeBehindCartStore;
+    private final Duration abandonedAfter;
+    private final int batchSize;
+    private final Duration pause;
+
+    private final Counter purgedCarts;
+    private final Counter purgedItems;
+    private final Timer runs;
+
+    public AbandonedCartPurge(CartRepository cartRepository,
+                              CartItemRepository cartItemRepository,
+                              TransactionTemplate transactionTemplate,
+                              Optional<WriteBehindCartStore> writeBehindCartStore,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.cart.purge.abandoned-after:P30D}") Duration abandonedAfter,
+                              @Value("${app.cart.purge.batch-size:500}") int batchSize,
+                              @Value("${app.cart.purge.pause:PT0.1S}") Duration pause) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.writeBehindCartStore = writeBehindCartStore;
+        this.abandonedAfter = abandonedAfter;
+        this.batchSize = batchSize;
+        this.pause = pause;
+        this.purgedCarts = Counter.builder(METRIC_PREFIX + ".deleted").tag("table", "cart").register(meterRegistry);
+        this.purgedItems = Counter.builder(METRIC_PREFIX + ".deleted").tag("table", "cart_item").register(meterRegistry);
+        this.runs = Timer.builder(METRIC_PREFIX + ".runs").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.purge.interval:PT1H}",
+               initialDelayString = "${app.cart.purge.interval:PT1H}")
+    public void purge() {
+        long start = System.nanoTime();
+        Instant cutoff = Instant.now().minus(abandonedAfter);
+        long carts = 0;
+        long items = 0;
+        long lastId = 0L;
+        List<Long> batch;
+        try {
+            do {
+                batch = cartRepository.findAbandonedIdsAfter(lastId, cutoff, PageRequest.ofSize(batchSize));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                lastId = batch.get(batch.size() - 1);
+
+                Purged purged = deleteBatch(batch, cutoff);
+                carts += purged.carts();
+                items += purged.items();
+            } while (batch.size() == batchSize && pause());
+        } catch (DataAccessException ex) {
+            log.warn("Abandoned cart purge stopped after {} carts, continuing on the next run: {}", carts, ex.getMessage());
+        } finally {
+            runs.record(Duration.ofNanos(System.nanoTime() - start));
+        }
+
+        if (carts > 0) {
+            log.info("Purged {} abandoned carts with {} items in {} ms",
+                    carts, items, Duration.ofNanos(System.nanoTime() - start).toMillis());
+        }
+    }
+
+    private Purged deleteBatch(List<Long> candidates, Instant cutoff) {
+        Purged purged = transactionTemplate.execute(status -> {
+            Set<Long> ids = new HashSet<>(cartRepository.lockAbandonedIdsIn(candidates, cutoff));
+            // Held carts are re-checked once locked: the store may have loaded one since the batch was found
+            writeBehindCartStore.ifPresent(store -> ids.removeAll(store.cartIds()));
+            if (ids.isEmpty()) {
+                return new Purged(0, 0);
+            }
+            int deletedItems = cartItemRepository.deleteByCartIdIn(ids);
+            cartRepository.deleteByIdIn(ids);
+            return new Purged(ids.size(), deletedItems);
+        });
+        purgedCarts.increment(purged.carts());
+        purgedItems.increment(purged.items());
+        return purged;
+    }
+
+    /**
+     * Wait between batches; false when the thread was interrupted, which ends the run
+     */
+    private boolean pause() {
+        if (pause.isZero()) {
+            return true;
+        }
+        try {
+            Thread.sleep(pause.toMillis());
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private record Purged(int carts, int items) {
+    }
+}
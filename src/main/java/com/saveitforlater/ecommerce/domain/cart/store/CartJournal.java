@@ -0,0 +1,238 @@
+package com.saveitforlater.ecommerce.domain.cart.store;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Append-only local journal of cart item writes not yet flushed to the database.
+ * <p>
+ * One line per record: {@code U} an item's full state, {@code D} an item's removal, {@code F} a cart
+ * whose writes so far are in the database. Records are full states, so replaying them is
+ * idempotent. The journal is split into numbered segments: a flush rotates to a new segment before
+ * it takes the pending writes and deletes the older segments once they are committed, so the
+ * segments on disk always cover every write that is not in the database yet.
+ * <p>
+ * The last line of a segment may be torn by a crash and is skipped. Any other unreadable line means
+ * the journal is damaged: it is skipped as well, but logged and counted in {@link #corruptLines()}.
+ * <p>
+ * Not thread-safe for appends; {@link WriteBehindCartStore} appends under its journal lock.
+ */
+@Slf4j
+final class CartJournal {
+
+    private static final String SEGMENT_PREFIX = "cart-journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final boolean sync;
+    private long segment;
+    private FileChannel channel;
+    private long corruptLines = 0;
+
+    CartJournal(Path directory, boolean sync) {
+        this.directory = directory;
+        this.sync = sync;
+        try {
+            Files.createDirectories(directory);
+            this.segment = segments().stream().mapToLong(Long::longValue).max().orElse(0L) + 1;
+            this.channel = open(segment);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not open cart journal in " + directory, ex);
+        }
+    }
+
+    void appendWrites(Collection<ItemState> writes) {
+        StringBuilder lines = new StringBuilder();
+        writes.forEach(write -> lines.append(encode(write)).append('\n'));
+        append(lines.toString());
+    }
+
+    /**
+     * Record that every earlier write of the cart is in the database
+     */
+    void appendFlushed(long cartId) {
+        append("F|" + cartId + "\n");
+    }
+
+    /**
+     * Continue in a new segment and return its number; older segments receive no more records
+     */
+    long rotate() {
+        try {
+            channel.close();
+            segment++;
+            channel = open(segment);
+            return segment;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not rotate cart journal", ex);
+        }
+    }
+
+    /**
+     * Delete the segments numbered below the given one
+     */
+    void deleteBefore(long segmentNumber) {
+        try {
+            for (long number : segments()) {
+                if (number < segmentNumber) {
+                    Files.deleteIfExists(path(number));
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not delete cart journal segments", ex);
+        }
+    }
+
+    /**
+     * The writes recorded in the segments below the given one, oldest first and coalesced to the last
+     * write per item; writes recorded before a cart's flush marker are left out
+     */
+    List<ItemState> read(long beforeSegment) {
+        Map<String, ItemState> writes = new LinkedHashMap<>();
+        try {
+            for (long number : segments().stream().sorted().toList()) {
+                if (number >= beforeSegment) {
+                    continue;
+                }
+                try (BufferedReader reader = Files.newBufferedReader(path(number), StandardCharsets.UTF_8)) {
+                    readSegment(number, reader, writes);
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read cart journal", ex);
+        }
+        return new ArrayList<>(writes.values());
+    }
+
+    /**
+     * Number of unreadable lines found before the last line of a segment by all reads so far
+     */
+    long corruptLines() {
+        return corruptLines;
+    }
+
+    void close() {
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not close cart journal", ex);
+        }
+    }
+
+    private void append(String lines) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (sync) {
+                channel.force(false);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not append to cart journal", ex);
+        }
+    }
+
+    private void readSegment(long number, BufferedReader reader, Map<String, ItemState> writes) throws IOException {
+        long corrupt = 0;
+        long firstCorrupt = 0;
+        long lineNumber = 0;
+        String line = reader.readLine();
+        while (line != null) {
+            String next = reader.readLine();
+            lineNumber++;
+            try {
+                readLine(line, writes);
+            } catch (RuntimeException ex) {
+                // The last line may be torn by a crashed process; everything before it must be complete
+                if (next != null && corrupt++ == 0) {
+                    firstCorrupt = lineNumber;
+                }
+            }
+            line = next;
+        }
+        if (corrupt > 0) {
+            corruptLines += corrupt;
+            log.warn("Skipped {} corrupt lines in cart journal segment {}, the first at line {}",
+                    corrupt, number, firstCorrupt);
+        }
+    }
+
+    private static void readLine(String line, Map<String, ItemState> writes) {
+        String[] fields = line.split("\\|", -1);
+        switch (fields[0]) {
+            case "U" -> {
+                if (fields.length != 8) {
+                    throw new IllegalArgumentException("Malformed item write");
+                }
+                ItemState write = new ItemState(Long.parseLong(fields[1]), fields[2], fields[3],
+                        Integer.parseInt(fields[4]), new BigDecimal(fields[5]),
+                        Instant.parse(fields[6]), Instant.parse(fields[7]), false);
+                writes.remove(write.publicId());
+                writes.put(write.publicId(), write);
+            }
+            case "D" -> {
+                if (fields.length != 4) {
+                    throw new IllegalArgumentException("Malformed item removal");
+                }
+                ItemState write = ItemState.removed(Long.parseLong(fields[1]), fields[2], fields[3]);
+                writes.remove(write.publicId());
+                writes.put(write.publicId(), write);
+            }
+            case "F" -> {
+                if (fields.length != 2 || fields[1].isEmpty()) {
+                    throw new IllegalArgumentException("Malformed flush marker");
+                }
+                long cartId = Long.parseLong(fields[1]);
+                writes.values().removeIf(write -> write.cartId() == cartId);
+            }
+            default -> throw new IllegalArgumentException("Unknown record type");
+        }
+    }
+
+    private static String encode(ItemState write) {
+        if (write.removed()) {
+            return "D|" + write.cartId() + "|" + write.publicId() + "|" + write.productPublicId();
+        }
+        return "U|" + write.cartId() + "|" + write.publicId() + "|" + write.productPublicId() + "|"
+                + write.quantity() + "|" + write.priceAtAddition().toPlainString() + "|"
+                + write.createdAt() + "|" + write.updatedAt();
+    }
+
+    private FileChannel open(long number) throws IOException {
+        return FileChannel.open(path(number), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    private Path path(long number) {
+        return directory.resolve(SEGMENT_PREFIX + number + SEGMENT_SUFFIX);
+    }
+
+    private List<Long> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()))
+                    .filter(number -> !number.isEmpty() && number.chars().allMatch(Character::isDigit))
+                    .map(Long::parseLong)
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.saveitforlater.ecommerce.domain.cart.store;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * A cart item as the write-behind store holds it, and as a pending write: its full state, or its removal.
+ */
+record ItemState(
+        long cartId,
+        String publicId,
+        String productPublicId,
+        int quantity,
+        BigDecimal priceAtAddition,
+        Instant createdAt,
+        Instant updatedAt,
+        boolean removed
+) {
+    static ItemState removed(long cartId, String publicId, String productPublicId) {
+        return new ItemState(cartId, publicId, productPublicId, 0, null, null, null, true);
+    }
+
+    ItemState withQuantity(int newQuantity, Instant now) {
+        return new ItemState(cartId, publicId, productPublicId, newQuantity, priceAtAddition, createdAt, now, false);
+    }
+
+    ItemState toRemoval() {
+        return removed(cartId, publicId, productPublicId);
+    }
+}
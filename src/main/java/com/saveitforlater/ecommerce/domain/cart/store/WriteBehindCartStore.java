@@ -0,0 +1,625 @@
+package com.saveitforlater.ecommerce.domain.cart.store;
+
+import com.saveitforlater.ecommerce.api.cart.dto.CartResponse;
+import com.saveitforlater.ecommerce.api.cart.mapper.CartMapper;
+import com.saveitforlater.ecommerce.persistence.entity.cart.Cart;
+import com.saveitforlater.ecommerce.persistence.entity.product.Product;
+import com.saveitforlater.ecommerce.persistence.entity.user.User;
+import com.saveitforlater.ecommerce.persistence.id.IdBlockAllocator;
+import com.saveitforlater.ecommerce.persistence.projection.CartLineView;
+import com.saveitforlater.ecommerce.persistence.projection.CartProductView;
+import com.saveitforlater.ecommerce.persistence.repository.cart.CartRepository;
+import com.saveitforlater.ecommerce.persistence.repository.product.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Optional write-behind storage for active carts ({@code app.cart.write-behind.enabled}).
+ * <p>
+ * Carts are held in memory per user, loaded from the database on first use. Changes are applied in
+ * memory and appended to a local {@link CartJournal}; the database receives them later, coalesced to
+ * the last state of each item, in one batched transaction per flush. Carts are flushed on a schedule,
+ * before checkout and when they are evicted, either because they have been idle or because the store
+ * is full (least recently used first). Eviction runs with the scheduled flush, never on a request, so
+ * the store may briefly hold more carts than its capacity. Each user's cart is guarded by one of a
+ * fixed set of striped locks, so requests for different users rarely contend. After a crash the
+ * journal is replayed into the database on startup.
+ * <p>
+ * Product data shown in the cart (name, price, stock) is read from the database for every response;
+ * only cart writes are deferred.
+ * <p>
+ * The in-memory cart is the authoritative copy, so the store assumes that all requests of a user
+ * reach this instance: a single instance, or sticky sessions in front of several.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.cart.write-behind.enabled", havingValue = "true")
+public class WriteBehindCartStore {
+
+    private static final int STRIPES = 64;
+    private static final String CART_ITEM_SEQUENCE = "cart_item_seq";
+
+    private static final String DELETE_ITEM = "DELETE FROM cart_item WHERE public_id = ?";
+    // Items of deleted carts or products select nothing and are skipped. The item state is a derived
+    // table so the update can refer to it by name (VALUES() is deprecated)
+    private static final String UPSERT_ITEM = """
+            INSERT INTO cart_item (id, public_id, cart_id, product_id, quantity, price_at_addition, created_at, updated_at)
+            SELECT * FROM (
+                SELECT ? AS id, ? AS public_id, c.id AS cart_id, p.id AS product_id, ? AS quantity,
+                       ? AS price_at_addition, ? AS created_at, ? AS updated_at
+                FROM cart c JOIN product p ON p.public_id = ? WHERE c.id = ?
+            ) AS item
+            ON DUPLICATE KEY UPDATE
+                quantity = item.quantity,
+                updated_at = item.updated_at""";
+
+    private final CartRepository cartRepository;
+    private final ProductRepository productRepository;
+    private final CartMapper cartMapper;
+    private final IdBlockAllocator idBlockAllocator;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxCarts;
+    private final Duration idleTimeout;
+    private final CartJournal journal;
+
+    // user public ID -> cart; only read or changed under the user's stripe lock
+    private final Map<String, CartState> carts = new ConcurrentHashMap<>();
+    private final Lock[] stripes = new Lock[STRIPES];
+    // Serializes database writes, so a cart flushed for checkout is never still in a running flush;
+    // taken before any stripe lock
+    private final Lock flushLock = new ReentrantLock();
+
+    public WriteBehindCartStore(CartRepository cartRepository,
+                                ProductRepository productRepository,
+                                CartMapper cartMapper,
+                                IdBlockAllocator idBlockAllocator,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.cart.write-behind.max-carts:10000}") int maxCarts,
+                                @Value("${app.cart.write-behind.idle-timeout:PT30M}") Duration idleTimeout,
+                                @Value("${app.cart.write-behind.journal-dir:data/cart-journal}") Path journalDir,
+                                @Value("${app.cart.write-behind.journal-sync:false}") boolean journalSync) {
+        this.cartRepository = cartRepository;
+        this.productRepository = productRepository;
+        this.cartMapper = cartMapper;
+        this.idBlockAllocator = idBlockAllocator;
+        this.jdbcTemplate = jdbcTemplate;
+        // Store writes commit on their own, independent of the request that triggers them
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxCarts = maxCarts;
+        this.idleTimeout = idleTimeout;
+        this.journal = new CartJournal(journalDir.toAbsolutePath().normalize(), journalSync);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * The view of a cart a change function decides on
+     */
+    public interface CartView {
+
+        /**
+         * Quantity of the product in the cart, 0 when it is not in the cart
+         */
+        int quantityOf(String productPublicId);
+
+        /**
+         * Public ID of the product of a cart item, if the item is in this cart
+         */
+        Optional<String> productOf(String itemPublicId);
+
+        Set<String> productPublicIds();
+    }
+
+    /**
+     * Write the journal left by a previous process to the database before serving any cart
+     */
+    @PostConstruct
+    public void replayJournal() {
+        long segment;
+        synchronized (journal) {
+            segment = journal.rotate();
+        }
+        List<ItemState> writes = journal.read(segment);
+        if (!writes.isEmpty()) {
+            write(writes);
+            log.info("Replayed {} cart item writes from the journal", writes.size());
+        }
+        synchronized (journal) {
+            journal.deleteBefore(segment);
+        }
+    }
+
+    /**
+     * The user's cart, loading it (or creating it) on first use
+     */
+    public CartResponse read(User user) {
+        CartSnapshot snapshot;
+        Lock stripe = stripe(user.getPublicId());
+        stripe.lock();
+        try {
+            snapshot = state(user).snapshot();
+        } finally {
+            stripe.unlock();
+        }
+        return toResponse(snapshot);
+    }
+
+    /**
+     * Change the user's cart under its lock.
+     *
+     * @param products every product the change may add to the cart, by public ID, for its price
+     * @param change   returns the new quantity of each product it changes, 0 to remove it; may throw
+     *                 to reject the change, in which case nothing is written
+     */
+    public CartResponse update(User user, Map<String, Product> products,
+                               Function<CartView, Map<String, Integer>> change) {
+        CartSnapshot snapshot;
+        Lock stripe = stripe(user.getPublicId());
+        stripe.lock();
+        try {
+            CartState state = state(user);
+            Map<String, Integer> quantities = change.apply(state);
+            Instant now = Instant.now();
+            List<ItemState> writes = new ArrayList<>();
+            quantities.forEach((productPublicId, quantity) -> {
+                ItemState item = state.items.get(productPublicId);
+                if (quantity == 0) {
+                    if (item != null) {
+                        writes.add(item.toRemoval());
+                    }
+                } else if (item == null) {
+                    Product product = products.get(productPublicId);
+                    if (product == null) {
+                        throw new IllegalStateException("Product " + productPublicId + " was not loaded for the cart change");
+                    }
+                    writes.add(new ItemState(state.cartId, UUID.randomUUID().toString(), productPublicId,
+                            quantity, product.getEffectivePrice(), now, now, false));
+                } else if (item.quantity() != quantity) {
+                    writes.add(item.withQuantity(quantity, now));
+                }
+            });
+            if (!writes.isEmpty()) {
+                // Journal first: a change is only applied once it would survive a crash
+                synchronized (journal) {
+                    journal.appendWrites(writes);
+                }
+                writes.forEach(state::apply);
+            }
+            snapshot = state.snapshot();
+        } finally {
+            stripe.unlock();
+        }
+        return toResponse(snapshot);
+    }
+
+    /**
+     * Write the user's pending changes now, e.g. before the cart is read from the database for checkout
+     */
+    public void flushUser(String userPublicId) {
+        flushLock.lock();
+        try {
+            Lock stripe = stripe(userPublicId);
+            stripe.lock();
+            try {
+                CartState state = carts.get(userPublicId);
+                if (state != null) {
+                    flushCart(state);
+                }
+            } finally {
+                stripe.unlock();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Drop the user's cart from memory once the current transaction commits, after the database cart
+     * was changed directly (checkout). Changes made in memory in the meantime are dropped with it.
+     */
+    public void discardAfterCommit(String userPublicId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            discard(userPublicId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                discard(userPublicId);
+            }
+        });
+    }
+
+    /**
+     * Internal IDs of the carts held in memory, which must not be purged while they are
+     */
+    public Set<Long> cartIds() {
+        Set<Long> cartIds = new HashSet<>();
+        carts.values().forEach(state -> cartIds.add(state.cartId));
+        return cartIds;
+    }
+
+    /**
+     * Write every cart's pending changes, then evict idle carts and carts over the capacity
+     */
+    @Scheduled(fixedDelayString = "${app.cart.write-behind.flush-interval:PT5S}",
+               initialDelayString = "${app.cart.write-behind.flush-interval:PT5S}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            long segment;
+            synchronized (journal) {
+                segment = journal.rotate();
+            }
+
+            Map<String, Map<String, ItemState>> taken = new LinkedHashMap<>();
+            for (String userPublicId : carts.keySet()) {
+                Lock stripe = stripe(userPublicId);
+                stripe.lock();
+                try {
+                    CartState state = carts.get(userPublicId);
+                    if (state != null && !state.pending.isEmpty()) {
+                        taken.put(userPublicId, state.takePending());
+                    }
+                } finally {
+                    stripe.unlock();
+                }
+            }
+
+            if (!taken.isEmpty()) {
+                List<ItemState> writes = new ArrayList<>();
+                taken.values().forEach(cartWrites -> writes.addAll(cartWrites.values()));
+                try {
+                    write(writes);
+                } catch (DataAccessException ex) {
+                    log.warn("Could not flush {} carts, retrying on the next run: {}", taken.size(), ex.getMessage());
+                    taken.forEach(this::restore);
+                    return;
+                }
+                log.debug("Flushed {} item writes of {} carts", writes.size(), taken.size());
+            }
+            // Everything journaled before the rotation is in the database now
+            synchronized (journal) {
+                journal.deleteBefore(segment);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+        evictIdle();
+        evictIfOverCapacity();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+        synchronized (journal) {
+            journal.close();
+        }
+    }
+
+    private CartState state(User user) {
+        CartState state = carts.get(user.getPublicId());
+        if (state == null) {
+            state = load(user);
+            carts.put(user.getPublicId(), state);
+        }
+        state.lastAccess = System.currentTimeMillis();
+        return state;
+    }
+
+    /**
+     * Load the user's cart, touching it first: the abandoned cart purge then keeps it, and a load that
+     * races with the purge deleting it waits for the deletion and creates a new cart
+     */
+    private CartState load(User user) {
+        List<CartLineView> lines = transactionTemplate.execute(status -> {
+            cartRepository.touchByUserId(user.getId(), Instant.now());
+            return cartRepository.findLinesByUserId(user.getId());
+        });
+        if (lines.isEmpty()) {
+            Cart cart = transactionTemplate.execute(status -> {
+                Cart created = new Cart();
+                created.setUser(user);
+                return cartRepository.saveAndFlush(created);
+            });
+            Instant createdAt = cart.getCreatedAt() != null ? cart.getCreatedAt() : Instant.now();
+            Instant updatedAt = cart.getUpdatedAt() != null ? cart.getUpdatedAt() : createdAt;
+            return new CartState(cart.getId(), cart.getPublicId(), user.getPublicId(), createdAt, updatedAt);
+        }
+
+        CartLineView cart = lines.get(0);
+        CartState state = new CartState(cart.cartId(), cart.cartPublicId(), cart.userPublicId(),
+                cart.cartCreatedAt(), cart.cartUpdatedAt());
+        for (CartLineView line : lines) {
+            if (line.itemPublicId() != null) {
+                state.items.put(line.productPublicId(), new ItemState(cart.cartId(), line.itemPublicId(),
+                        line.productPublicId(), line.quantity(), line.priceAtAddition(),
+                        line.itemCreatedAt(), line.itemUpdatedAt(), false));
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Write one cart's pending changes; the caller holds the flush lock and the cart's stripe lock
+     */
+    private void flushCart(CartState state) {
+        Map<String, ItemState> writes = state.takePending();
+        if (writes.isEmpty()) {
+            return;
+        }
+        try {
+            write(writes.values());
+        } catch (RuntimeException ex) {
+            state.restore(writes);
+            throw ex;
+        }
+        synchronized (journal) {
+            journal.appendFlushed(state.cartId);
+        }
+    }
+
+    private void restore(String userPublicId, Map<String, ItemState> writes) {
+        Lock stripe = stripe(userPublicId);
+        stripe.lock();
+        try {
+            CartState state = carts.get(userPublicId);
+            if (state != null) {
+                state.restore(writes);
+            }
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Apply item writes in one transaction: removals first, so an item removed and added again is no
+     * conflict on the (cart, product) key
+     */
+    private void write(Iterable<ItemState> writes) {
+        List<Object[]> deletes = new ArrayList<>();
+        List<Object[]> upserts = new ArrayList<>();
+        for (ItemState write : writes) {
+            if (write.removed()) {
+                deletes.add(new Object[]{write.publicId()});
+            } else {
+                upserts.add(new Object[]{idBlockAllocator.next(CART_ITEM_SEQUENCE), write.publicId(),
+                        write.quantity(), write.priceAtAddition(), Timestamp.from(write.createdAt()),
+                        Timestamp.from(write.updatedAt()), write.productPublicId(), write.cartId()});
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!deletes.isEmpty()) {
+                jdbcTemplate.batchUpdate(DELETE_ITEM, deletes);
+            }
+            if (!upserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPSERT_ITEM, upserts);
+            }
+        });
+    }
+
+    private void discard(String userPublicId) {
+        flushLock.lock();
+        try {
+            Lock stripe = stripe(userPublicId);
+            stripe.lock();
+            try {
+                CartState state = carts.remove(userPublicId);
+                if (state != null) {
+                    // Journaled writes of this cart must not be replayed over the checked-out cart
+                    synchronized (journal) {
+                        journal.appendFlushed(state.cartId);
+                    }
+                }
+            } finally {
+                stripe.unlock();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void evictIdle() {
+        long idleSince = System.currentTimeMillis() - idleTimeout.toMillis();
+        carts.forEach((userPublicId, state) -> {
+            if (state.lastAccess < idleSince) {
+                evict(userPublicId, idleSince);
+            }
+        });
+    }
+
+    /**
+     * Evict the least recently used carts down to 90% of the capacity, so a full store does not evict
+     * on every flush. Carts used since they were ranked are kept.
+     */
+    private void evictIfOverCapacity() {
+        if (carts.size() <= maxCarts) {
+            return;
+        }
+        // Ranked on a copy: lastAccess keeps changing, which a sort comparing live values cannot handle
+        List<Access> byLastAccess = new ArrayList<>(carts.size());
+        carts.forEach((userPublicId, state) -> byLastAccess.add(new Access(userPublicId, state.lastAccess)));
+        byLastAccess.sort(Comparator.comparingLong(Access::lastAccess));
+        int excess = byLastAccess.size() - maxCarts * 9 / 10;
+        for (int i = 0; i < excess; i++) {
+            Access access = byLastAccess.get(i);
+            evict(access.userPublicId(), access.lastAccess() + 1);
+        }
+    }
+
+    /**
+     * Flush and drop a cart unless it was used after the given time
+     */
+    private void evict(String userPublicId, long usedBefore) {
+        flushLock.lock();
+        try {
+            Lock stripe = stripe(userPublicId);
+            stripe.lock();
+            try {
+                CartState state = carts.get(userPublicId);
+                if (state == null || state.lastAccess >= usedBefore) {
+                    return;
+                }
+                flushCart(state);
+                carts.remove(userPublicId);
+            } catch (DataAccessException ex) {
+                log.warn("Could not flush the cart of user {} for eviction, keeping it: {}", userPublicId, ex.getMessage());
+            } finally {
+                stripe.unlock();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private CartResponse toResponse(CartSnapshot cart) {
+        Map<String, CartProductView> products = new HashMap<>();
+        if (!cart.items().isEmpty()) {
+            productRepository.findCartProductViewsByPublicIdIn(
+                            cart.items().stream().map(ItemState::productPublicId).toList())
+                    .forEach(product -> products.put(product.publicId(), product));
+        }
+
+        List<CartLineView> lines = new ArrayList<>(cart.items().size() + 1);
+        for (ItemState item : cart.items()) {
+            CartProductView product = products.get(item.productPublicId());
+            if (product == null) {
+                continue; // deleted since it was added; the flush skips it as well
+            }
+            lines.add(new CartLineView(cart.cartId(), cart.cartPublicId(), cart.userPublicId(),
+                    cart.createdAt(), cart.updatedAt(),
+                    item.publicId(), item.quantity(), item.priceAtAddition(), item.createdAt(), item.updatedAt(),
+                    product.publicId(), product.sku(), product.name(), product.slug(),
+                    product.price(), product.salePrice(), product.stockQuantity()));
+        }
+        if (lines.isEmpty()) {
+            lines.add(new CartLineView(cart.cartId(), cart.cartPublicId(), cart.userPublicId(),
+                    cart.createdAt(), cart.updatedAt(),
+                    null, null, null, null, null, null, null, null, null, null, null, null));
+        }
+        return cartMapper.linesToCartResponse(lines);
+    }
+
+    private Lock stripe(String userPublicId) {
+        return stripes[Math.floorMod(userPublicId.hashCode(), STRIPES)];
+    }
+
+    private record Access(String userPublicId, long lastAccess) {
+    }
+
+    private record CartSnapshot(long cartId, String cartPublicId, String userPublicId,
+                                Instant createdAt, Instant updatedAt, List<ItemState> items) {
+    }
+
+    /**
+     * A cart in memory. Guarded by its user's stripe lock, except lastAccess, which eviction reads without it.
+     */
+    private static final class CartState implements CartView {
+        private final long cartId;
+        private final String cartPublicId;
+        private final String userPublicId;
+        private final Instant createdAt;
+        private final Instant updatedAt;
+        // product public ID -> item, in the order the items were added
+        private final Map<String, ItemState> items = new LinkedHashMap<>();
+        // item public ID -> its last write not yet in the database
+        private Map<String, ItemState> pending = new LinkedHashMap<>();
+        private volatile long lastAccess;
+
+        CartState(long cartId, String cartPublicId, String userPublicId, Instant createdAt, Instant updatedAt) {
+            this.cartId = cartId;
+            this.cartPublicId = cartPublicId;
+            this.userPublicId = userPublicId;
+            this.createdAt = createdAt;
+            this.updatedAt = updatedAt;
+        }
+
+        @Override
+        public int quantityOf(String productPublicId) {
+            ItemState item = items.get(productPublicId);
+            return item != null ? item.quantity() : 0;
+        }
+
+        @Override
+        public Optional<String> productOf(String itemPublicId) {
+            return items.values().stream()
+                    .filter(item -> item.publicId().equals(itemPublicId))
+                    .map(ItemState::productPublicId)
+                    .findFirst();
+        }
+
+        @Override
+        public Set<String> productPublicIds() {
+            return Set.copyOf(items.keySet());
+        }
+
+        void apply(ItemState write) {
+            if (write.removed()) {
+                items.remove(write.productPublicId());
+            } else {
+                items.put(write.productPublicId(), write);
+            }
+            // Re-inserted, so pending writes stay in the order they were made
+            pending.remove(write.publicId());
+            pending.put(write.publicId(), write);
+        }
+
+        Map<String, ItemState> takePending() {
+            Map<String, ItemState> taken = pending;
+            pending = new LinkedHashMap<>();
+            return taken;
+        }
+
+        /**
+         * Put back writes whose flush failed, unless the item was written again since
+         */
+        void restore(Map<String, ItemState> writes) {
+            Map<String, ItemState> merged = new LinkedHashMap<>(writes);
+            pending.forEach((publicId, write) -> {
+                merged.remove(publicId);
+                merged.put(publicId, write);
+            });
+            pending = merged;
+        }
+
+        CartSnapshot snapshot() {
+            return new CartSnapshot(cartId, cartPublicId, userPublicId, createdAt, updatedAt,
+                    List.copyOf(items.values()));
+        }
+    }
+}
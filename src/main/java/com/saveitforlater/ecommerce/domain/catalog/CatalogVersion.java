@@ -0,0 +1,132 @@
+package com.saveitforlater.ecommerce.domain.catalog;
+
+import com.saveitforlater.ecommerce.domain.category.event.CategoryChangedEvent;
+import com.saveitforlater.ecommerce.domain.product.event.AttributeChangedEvent;
+import com.saveitforlater.ecommerce.domain.product.event.ProductChangedEvent;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * Change counters for HTTP validators of catalog responses.
+ * <p>
+ * The catalog version changes with every committed product, category or attribute change; it validates
+ * list responses. The popularity version changes with every flush of product popularity, which only
+ * reorders popularity-sorted lists, so it is combined with the catalog version for those alone. The
+ * taxonomy version only follows categories and attributes; it is combined with {@code Product.updatedAt}
+ * for single products, whose responses embed category and attribute names.
+ * Versions are in-memory, so tags carry a per-process ID to never repeat after a restart.
+ */
+@Component
+public class CatalogVersion {
+
+    /**
+     * Listener order for caches that feed catalog responses. They refresh on the same events before
+     * the versions are bumped, so a new tag is never served with data from before the change.
+     */
+    public static final int BEFORE_BUMP = Ordered.LOWEST_PRECEDENCE - 1;
+
+    private final String instanceId = UUID.randomUUID().toString().substring(0, 8);
+
+    private volatile Version catalog;
+    private volatile Version taxonomy;
+    private volatile Version popularity;
+
+    public CatalogVersion() {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        this.catalog = new Version(0, now);
+        this.taxonomy = new Version(0, now);
+        this.popularity = new Version(0, now);
+    }
+
+    public record Version(long number, Instant lastModified) {
+    }
+
+    /**
+     * Entity tag for list responses over products, categories and attributes
+     */
+    public String catalogTag() {
+        return "catalog-" + instanceId + "-" + catalog.number();
+    }
+
+    public Instant catalogLastModified() {
+        return catalog.lastModified();
+    }
+
+    /**
+     * Entity tag for list responses sorted by popularity
+     */
+    public String popularityTag() {
+        return catalogTag() + "-popularity-" + popularity.number();
+    }
+
+    public Instant popularityLastModified() {
+        Instant catalogModified = catalog.lastModified();
+        Instant popularityModified = popularity.lastModified();
+        return popularityModified.isAfter(catalogModified) ? popularityModified : catalogModified;
+    }
+
+    /**
+     * Entity tag for attribute responses
+     */
+    public String taxonomyTag() {
+        return "taxonomy-" + instanceId + "-" + taxonomy.number();
+    }
+
+    public Instant taxonomyLastModified() {
+        return taxonomy.lastModified();
+    }
+
+    /**
+     * Entity tag for a single product response
+     */
+    public String productTag(String publicId, Instant updatedAt) {
+        long micros = ChronoUnit.MICROS.between(Instant.EPOCH, updatedAt);
+        return "product-" + publicId + "-" + micros + "-" + taxonomyTag();
+    }
+
+    public Instant productLastModified(Instant updatedAt) {
+        Instant taxonomyModified = taxonomy.lastModified();
+        return updatedAt.isAfter(taxonomyModified) ? updatedAt : taxonomyModified;
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        bumpCatalog();
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        bumpTaxonomy();
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAttributeChanged(AttributeChangedEvent event) {
+        bumpTaxonomy();
+    }
+
+    /**
+     * Invalidate popularity-sorted list responses after product popularity was flushed
+     */
+    public synchronized void bumpPopularity() {
+        popularity = new Version(popularity.number() + 1, Instant.now());
+    }
+
+    private synchronized void bumpCatalog() {
+        catalog = new Version(catalog.number() + 1, Instant.now());
+    }
+
+    private synchronized void bumpTaxonomy() {
+        Instant now = Instant.now();
+        taxonomy = new Version(taxonomy.number() + 1, now);
+        catalog = new Version(catalog.number() + 1, now);
+    }
+}
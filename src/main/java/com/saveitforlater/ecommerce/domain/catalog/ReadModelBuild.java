@@ -0,0 +1,47 @@
+package com.saveitforlater.ecommerce.domain.catalog;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Build handshake of an in-memory read model that is loaded once the application is ready and then
+ * kept current from change events.
+ * <p>
+ * A change committed while the build is running may or may not be seen by the build's queries, so
+ * it is only recorded. Once the build has loaded everything, {@link #finish()} marks the read model
+ * ready and hands back the recorded IDs to re-read; from then on changes are applied directly.
+ */
+public final class ReadModelBuild {
+
+    private volatile boolean ready = false;
+    // IDs changed while the build is running, null once it has finished
+    private Set<Long> changedDuringBuild = new HashSet<>();
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Record the changed IDs while the build is running.
+     *
+     * @return true if the IDs were recorded for the build to re-read; false if the caller applies the change
+     */
+    public synchronized boolean deferIfBuilding(Collection<Long> ids) {
+        if (changedDuringBuild == null) {
+            return false;
+        }
+        changedDuringBuild.addAll(ids);
+        return true;
+    }
+
+    /**
+     * Mark the read model ready and return the IDs changed during the build
+     */
+    public synchronized Set<Long> finish() {
+        Set<Long> pending = changedDuringBuild;
+        changedDuringBuild = null;
+        ready = true;
+        return pending;
+    }
+}
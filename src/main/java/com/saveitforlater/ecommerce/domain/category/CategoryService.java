@@ -1,24 +1,37 @@
 package com.saveitforlater.ecommerce.domain.category;
 
 import com.saveitforlater.ecommerce.api.category.dto.CategoryResponse;
+import com.saveitforlater.ecommerce.api.category.dto.CategoryTreeResponse;
 import com.saveitforlater.ecommerce.api.category.dto.CreateCategoryRequest;
 import com.saveitforlater.ecommerce.api.category.dto.UpdateCategoryRequest;
 import com.saveitforlater.ecommerce.api.category.mapper.CategoryMapper;
+import com.saveitforlater.ecommerce.domain.category.count.CategoryProductCounts;
+import com.saveitforlater.ecommerce.domain.category.event.CategoryChangedEvent;
 import com.saveitforlater.ecommerce.domain.category.exception.CategoryHasChildrenException;
 import com.saveitforlater.ecommerce.domain.category.exception.CategoryNameAlreadyExistsException;
 import com.saveitforlater.ecommerce.domain.category.exception.CategoryNotFoundException;
 import com.saveitforlater.ecommerce.domain.category.exception.CategorySlugAlreadyExistsException;
+import com.saveitforlater.ecommerce.domain.category.tree.CategoryTree;
+import com.saveitforlater.ecommerce.domain.category.tree.CategoryTreeCache;
 import com.saveitforlater.ecommerce.domain.util.SlugGenerator;
+import com.saveitforlater.ecommerce.domain.util.UniqueSlugAllocator;
 import com.saveitforlater.ecommerce.persistence.entity.category.Category;
+import com.saveitforlater.ecommerce.persistence.repository.category.CategoryClosureRepository;
 import com.saveitforlater.ecommerce.persistence.repository.category.CategoryRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -29,16 +42,32 @@ public class CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UniqueSlugAllocator uniqueSlugAllocator;
+    private final CategoryTreeCache categoryTreeCache;
+    private final CategoryClosureRepository categoryClosureRepository;
+    private final CategoryProductCounts categoryProductCounts;
 
     /**
-     * Get all categories (accessible to everyone)
+     * Get all categories (accessible to everyone).
+     * Served from the in-memory category tree; no transaction is opened.
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<CategoryResponse> getAllCategories() {
         log.debug("Fetching all categories");
-        return categoryRepository.findAll()
-                .stream()
-                .map(categoryMapper::toCategoryResponse)
-                .collect(Collectors.toList());
+        List<CategoryResponse> categories = new ArrayList<>();
+        categoryTreeCache.current().nodes().forEach(node -> categories.add(toCategoryResponse(node)));
+        return categories;
+    }
+
+    /**
+     * Get the whole category hierarchy for navigation (accessible to everyone).
+     * Served from the in-memory category tree; no transaction is opened.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<CategoryTreeResponse> getCategoryTree() {
+        log.debug("Fetching category tree");
+        return categoryTreeCache.current().toResponse(categoryProductCounts::countsOf);
     }
 
     /**
@@ -47,7 +76,7 @@ public class CategoryService {
     public Page<CategoryResponse> getCategories(Pageable pageable) {
         log.debug("Fetching categories with pagination: {}", pageable);
         return categoryRepository.findAll(pageable)
-                .map(categoryMapper::toCategoryResponse);
+                .map(this::toCategoryResponse);
     }
 
     /**
@@ -58,24 +87,26 @@ public class CategoryService {
         Category category = categoryRepository.findByPublicId(publicId)
                 .orElseThrow(() -> CategoryNotFoundException.byPublicId(publicId));
 
-        return categoryMapper.toCategoryResponse(category);
+        return toCategoryResponse(category);
     }
 
     /**
-     * Get all top-level categories (no parent) (accessible to everyone)
+     * Get all top-level categories (no parent) (accessible to everyone), sorted by name
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<CategoryResponse> getTopLevelCategories() {
         log.debug("Fetching top-level categories");
-        return categoryRepository.findByParentIsNull()
+        return categoryTreeCache.current().roots()
                 .stream()
-                .map(categoryMapper::toCategoryResponse)
+                .map(this::toCategoryResponse)
                 .collect(Collectors.toList());
     }
 
     /**
-     * Create a new category (ADMIN ONLY)
+     * Create a new category (ADMIN ONLY).
+     * Runs in its own transaction so a slug taken by a concurrent create can be retried.
      */
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public CategoryResponse createCategory(CreateCategoryRequest request) {
         log.info("Creating new category with name: {}", request.name());
 
@@ -91,14 +122,12 @@ public class CategoryService {
             log.debug("Auto-generated slug: {} from name: {}", slug, request.name());
         }
 
-        // Ensure slug is unique, append counter if needed
-        String finalSlug = slug;
-        int counter = 1;
-        while (categoryRepository.findBySlug(finalSlug).isPresent()) {
-            finalSlug = SlugGenerator.generateUniqueSlug(slug, counter++);
-            log.debug("Slug conflict detected, trying: {}", finalSlug);
-        }
+        // Save category under the first free slug variant
+        return uniqueSlugAllocator.create(slug, categoryRepository::findSlugVariants,
+                finalSlug -> insertCategory(request, finalSlug));
+    }
 
+    private CategoryResponse insertCategory(CreateCategoryRequest request, String finalSlug) {
         // Map basic fields
         Category category = categoryMapper.toCategory(request);
         category.setSlug(finalSlug);
@@ -112,12 +141,17 @@ public class CategoryService {
             log.debug("Set parent category: {} for new category: {}", parent.getName(), request.name());
         }
 
-        // Save category
-        Category savedCategory = categoryRepository.save(category);
+        // Save category, flushing so unique constraint violations surface here rather than at commit
+        Category savedCategory = categoryRepository.saveAndFlush(category);
+        categoryClosureRepository.insertSelfLink(savedCategory.getId());
+        if (savedCategory.getParent() != null) {
+            categoryClosureRepository.insertSubtreeLinks(savedCategory.getId(), savedCategory.getParent().getId());
+        }
         log.info("Successfully created category with ID: {} and name: {}",
                 savedCategory.getPublicId(), savedCategory.getName());
+        eventPublisher.publishEvent(CategoryChangedEvent.created(savedCategory));
 
-        return categoryMapper.toCategoryResponse(savedCategory);
+        return toCategoryResponse(savedCategory);
     }
 
     /**
@@ -147,6 +181,8 @@ public class CategoryService {
                     });
         }
 
+        Long previousParentId = existingCategory.getParent() != null ? existingCategory.getParent().getId() : null;
+
         // Update basic fields
         categoryMapper.updateCategoryFromRequest(request, existingCategory);
 
@@ -160,8 +196,8 @@ public class CategoryService {
             Category newParent = categoryRepository.findByPublicId(request.parentId())
                     .orElseThrow(() -> CategoryNotFoundException.byPublicId(request.parentId()));
 
-            // Prevent circular references (simplified check - could be enhanced)
-            if (isDescendant(newParent, existingCategory)) {
+            // Prevent circular references
+            if (categoryClosureRepository.existsByAncestorIdAndDescendantId(existingCategory.getId(), newParent.getId())) {
                 throw new IllegalArgumentException("Cannot set a descendant category as parent");
             }
 
@@ -172,11 +208,17 @@ public class CategoryService {
             log.debug("Removed parent for category: {}", existingCategory.getName());
         }
 
+        Long newParentId = existingCategory.getParent() != null ? existingCategory.getParent().getId() : null;
+        if (!Objects.equals(previousParentId, newParentId)) {
+            moveSubtree(existingCategory.getId(), newParentId);
+        }
+
         // Save updated category
         Category updatedCategory = categoryRepository.save(existingCategory);
         log.info("Successfully updated category with ID: {}", updatedCategory.getPublicId());
+        eventPublisher.publishEvent(CategoryChangedEvent.updated(updatedCategory));
 
-        return categoryMapper.toCategoryResponse(updatedCategory);
+        return toCategoryResponse(updatedCategory);
     }
 
     /**
@@ -198,22 +240,43 @@ public class CategoryService {
         // This would require checking the Product entity relationships
         // For now, we'll rely on database constraints
 
+        categoryClosureRepository.deleteByCategoryId(category.getId());
         categoryRepository.delete(category);
         log.info("Successfully deleted category with ID: {}", publicId);
+        eventPublisher.publishEvent(CategoryChangedEvent.deleted(category));
+    }
+
+    private CategoryResponse toCategoryResponse(Category category) {
+        return categoryMapper.toCategoryResponse(category)
+                .withProductCounts(categoryProductCounts.countsOf(category.getId()));
     }
 
     /**
-     * Helper method to check if a category is a descendant of another
+     * Same shape as CategoryMapper#toCategoryResponse, built from a tree node instead of the lazy entity graph
      */
-    private boolean isDescendant(Category potentialDescendant, Category ancestor) {
-        Category current = potentialDescendant.getParent();
-        while (current != null) {
-            if (current.getPublicId().equals(ancestor.getPublicId())) {
-                return true;
-            }
-            current = current.getParent();
+    private CategoryResponse toCategoryResponse(CategoryTree.Node node) {
+        return new CategoryResponse(
+                UUID.fromString(node.publicId()),
+                node.name(),
+                node.slug(),
+                node.description(),
+                node.parent().map(CategoryTree.Node::toSummary).orElse(null),
+                node.children().stream()
+                        .map(CategoryTree.Node::toSummary)
+                        .collect(Collectors.toCollection(LinkedHashSet::new)),
+                categoryProductCounts.countsOf(node.id()));
+    }
+
+    /**
+     * Re-link a category and its descendants in the closure table under a new parent (or none)
+     */
+    private void moveSubtree(Long categoryId, Long newParentId) {
+        List<Long> subtreeIds = categoryClosureRepository.findSubtreeIds(categoryId);
+        categoryClosureRepository.deleteExternalLinks(subtreeIds);
+        if (newParentId != null) {
+            categoryClosureRepository.insertSubtreeLinks(categoryId, newParentId);
         }
-        return false;
+        log.debug("Moved {} categories under parent ID: {}", subtreeIds.size(), newParentId);
     }
 }
 
@@ -0,0 +1,282 @@
+package com.saveitforlater.ecommerce.domain.category.count;
+
+import com.saveitforlater.ecommerce.api.category.dto.CategoryResponse;
+import com.saveitforlater.ecommerce.domain.catalog.CatalogVersion;
+import com.saveitforlater.ecommerce.domain.catalog.ReadModelBuild;
+import com.saveitforlater.ecommerce.domain.category.event.CategoryChangedEvent;
+import com.saveitforlater.ecommerce.domain.category.tree.CategoryTree;
+import com.saveitforlater.ecommerce.domain.category.tree.CategoryTreeCache;
+import com.saveitforlater.ecommerce.domain.product.event.ProductChangedEvent;
+import com.saveitforlater.ecommerce.persistence.projection.ProductFacetRow;
+import com.saveitforlater.ecommerce.persistence.projection.ProductLink;
+import com.saveitforlater.ecommerce.persistence.repository.product.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory product counts per category: total and in stock, for the category itself and for the
+ * category together with its descendants.
+ * <p>
+ * The index remembers, per product, the categories it is counted in and whether it is in stock.
+ * A {@link ProductChangedEvent} re-reads the changed products and moves their contributions, so
+ * creates, updates, deletes and stock changes cost one small batch query after commit and reads cost none.
+ * Subtree counts count a product once even if it sits in several categories of the subtree; they
+ * are recomputed from the memberships whenever the {@link CategoryTree} snapshot changes.
+ * <p>
+ * Built once the application is ready; until then counts are not available.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CategoryProductCounts {
+
+    /**
+     * Listener order: ahead of the other read models, so those that weigh categories by these counts
+     * see the change they are handling
+     */
+    public static final int ORDER = CatalogVersion.BEFORE_BUMP - 1;
+
+    private final ProductRepository productRepository;
+    private final CategoryTreeCache categoryTreeCache;
+
+    @Value("${app.search.index.batch-size:1000}")
+    private int batchSize;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // product ID -> what the product is counted as
+    private final Map<Long, Membership> memberships = new HashMap<>();
+    // category ID -> products assigned to the category itself
+    private final Map<Long, Counts> direct = new HashMap<>();
+    // category ID -> distinct products in the category or any descendant
+    private final Map<Long, Counts> subtree = new HashMap<>();
+    // The tree the subtree counts were computed against
+    private CategoryTree subtreeOf;
+
+    private final ReadModelBuild buildState = new ReadModelBuild();
+
+    public boolean isReady() {
+        return buildState.isReady();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long start = System.currentTimeMillis();
+        long lastId = 0L;
+        List<ProductFacetRow> batch;
+        do {
+            batch = productRepository.findFacetRowsAfter(lastId, PageRequest.ofSize(batchSize));
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).id();
+                Map<Long, Membership> loaded = load(batch);
+                lock.writeLock().lock();
+                try {
+                    loaded.forEach(this::putLocked);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        } while (batch.size() == batchSize);
+
+        recount(buildState.finish());
+
+        log.info("Built category product counts: {} products in {} categories in {} ms",
+                memberships.size(), direct.size(), System.currentTimeMillis() - start);
+    }
+
+    @Order(ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (buildState.deferIfBuilding(event.productIds())) {
+            return;
+        }
+        if (event.isDeleted()) {
+            remove(event.productIds());
+        } else {
+            recount(event.productIds());
+        }
+    }
+
+    @Order(ORDER)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (!event.isDeleted()) {
+            // Moves only change subtree counts, recomputed against the new tree on the next read
+            return;
+        }
+        // product_category rows are removed by ON DELETE CASCADE
+        lock.writeLock().lock();
+        try {
+            direct.remove(event.categoryId());
+            memberships.values().forEach(membership -> membership.categoryIds().remove(event.categoryId()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The counts of a category, or null while the index is not ready
+     */
+    public CategoryResponse.ProductCounts countsOf(Long categoryId) {
+        if (!buildState.isReady()) {
+            return null;
+        }
+        CategoryTree tree = categoryTreeCache.current();
+        lock.readLock().lock();
+        try {
+            if (subtreeOf == tree) {
+                return toProductCounts(categoryId);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (subtreeOf != tree) {
+                recomputeSubtreeLocked(tree);
+            }
+            return toProductCounts(categoryId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The number of products assigned to each category itself, or null while the index is not ready
+     */
+    public Map<Long, Long> directTotals() {
+        if (!buildState.isReady()) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            Map<Long, Long> totals = new HashMap<>(direct.size() * 2);
+            direct.forEach((categoryId, counts) -> totals.put(categoryId, counts.total));
+            return totals;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Re-read the memberships of the products; those no longer found are removed. The read happens under
+     * the same monitor as the update, so a recount that read older rows can never overwrite a newer one.
+     */
+    private synchronized void recount(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        Map<Long, Membership> loaded = load(productRepository.findFacetRowsByIdIn(productIds));
+        lock.writeLock().lock();
+        try {
+            // Products no longer found get no membership, which removes them
+            productIds.forEach(productId -> putLocked(productId, loaded.get(productId)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private synchronized void remove(Collection<Long> productIds) {
+        lock.writeLock().lock();
+        try {
+            productIds.forEach(productId -> putLocked(productId, null));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Map<Long, Membership> load(List<ProductFacetRow> rows) {
+        Map<Long, Membership> loaded = new HashMap<>(rows.size() * 2);
+        if (rows.isEmpty()) {
+            return loaded;
+        }
+        rows.forEach(row -> loaded.put(row.id(), new Membership(new HashSet<>(), row.stockQuantity() > 0)));
+        List<ProductLink> links = productRepository.findCategoryLinksByProductIdIn(loaded.keySet());
+        links.forEach(link -> loaded.get(link.productId()).categoryIds().add(link.targetId()));
+        return loaded;
+    }
+
+    /**
+     * Replace the contribution of a product; a null membership removes it
+     */
+    private void putLocked(Long productId, Membership membership) {
+        Membership previous = membership == null ? memberships.remove(productId) : memberships.put(productId, membership);
+        if (previous != null) {
+            previous.categoryIds().forEach(id -> direct.computeIfAbsent(id, k -> new Counts()).add(previous, -1));
+        }
+        if (membership != null) {
+            membership.categoryIds().forEach(id -> direct.computeIfAbsent(id, k -> new Counts()).add(membership, 1));
+        }
+
+        if (subtreeOf != null) {
+            if (previous != null) {
+                subtreeIds(previous, subtreeOf).forEach(id -> subtree.computeIfAbsent(id, k -> new Counts()).add(previous, -1));
+            }
+            if (membership != null) {
+                subtreeIds(membership, subtreeOf).forEach(id -> subtree.computeIfAbsent(id, k -> new Counts()).add(membership, 1));
+            }
+        }
+    }
+
+    private void recomputeSubtreeLocked(CategoryTree tree) {
+        subtree.clear();
+        memberships.values().forEach(membership ->
+                subtreeIds(membership, tree).forEach(id -> subtree.computeIfAbsent(id, k -> new Counts()).add(membership, 1)));
+        subtreeOf = tree;
+    }
+
+    /**
+     * The categories of the product and all of their ancestors, each once
+     */
+    private static Set<Long> subtreeIds(Membership membership, CategoryTree tree) {
+        Set<Long> ids = new HashSet<>();
+        for (Long categoryId : membership.categoryIds()) {
+            tree.find(categoryId).ifPresent(node -> {
+                ids.add(node.id());
+                node.ancestors().forEach(ancestor -> ids.add(ancestor.id()));
+            });
+        }
+        return ids;
+    }
+
+    private CategoryResponse.ProductCounts toProductCounts(Long categoryId) {
+        Counts own = direct.getOrDefault(categoryId, Counts.NONE);
+        Counts withSubcategories = subtree.getOrDefault(categoryId, Counts.NONE);
+        return new CategoryResponse.ProductCounts(own.total, own.inStock,
+                withSubcategories.total, withSubcategories.inStock);
+    }
+
+    private record Membership(Set<Long> categoryIds, boolean inStock) {
+    }
+
+    private static final class Counts {
+        static final Counts NONE = new Counts();
+
+        private long total;
+        private long inStock;
+
+        void add(Membership membership, int sign) {
+            total += sign;
+            if (membership.inStock()) {
+                inStock += sign;
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.saveitforlater.ecommerce.domain.category.event;
+
+import com.saveitforlater.ecommerce.persistence.entity.category.Category;
+
+/**
+ * Published by CategoryService whenever a category is created, updated or deleted.
+ * In-memory read models listen for it after the transaction commits.
+ */
+public record CategoryChangedEvent(Long categoryId, String publicId, Type type) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public static CategoryChangedEvent created(Category category) {
+        return new CategoryChangedEvent(category.getId(), category.getPublicId(), Type.CREATED);
+    }
+
+    public static CategoryChangedEvent updated(Category category) {
+        return new CategoryChangedEvent(category.getId(), category.getPublicId(), Type.UPDATED);
+    }
+
+    public static CategoryChangedEvent deleted(Category category) {
+        return new CategoryChangedEvent(category.getId(), category.getPublicId(), Type.DELETED);
+    }
+
+    public boolean isDeleted() {
+        return type == Type.DELETED;
+    }
+}
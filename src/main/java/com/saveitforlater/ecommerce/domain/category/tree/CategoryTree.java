@@ -0,0 +1,226 @@
+package com.saveitforlater.ecommerce.domain.category.tree;
+
+import com.saveitforlater.ecommerce.api.category.dto.CategoryResponse;
+import com.saveitforlater.ecommerce.api.category.dto.CategoryTreeResponse;
+import com.saveitforlater.ecommerce.persistence.projection.CategoryTreeRow;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Immutable snapshot of the category hierarchy.
+ * <p>
+ * Nodes link to their parent and children and know their depth and ancestors. Children and roots
+ * are sorted by name. Categories that cannot be reached from a top-level category (a parent cycle in
+ * the data) are left out.
+ */
+@Slf4j
+public final class CategoryTree {
+
+    private static final Comparator<Node> BY_NAME = Comparator.comparing(Node::name, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(Node::id);
+
+    // Nodes in ID order
+    private final Map<String, Node> nodesByPublicId;
+    private final Map<Long, Node> nodesById;
+    private final List<Node> roots;
+
+    private CategoryTree(Map<String, Node> nodesByPublicId, Map<Long, Node> nodesById, List<Node> roots) {
+        this.nodesByPublicId = nodesByPublicId;
+        this.nodesById = nodesById;
+        this.roots = roots;
+    }
+
+    /**
+     * Assemble the tree from every category row, in any order
+     */
+    public static CategoryTree of(List<CategoryTreeRow> rows) {
+        Map<Long, List<CategoryTreeRow>> rowsByParent = new LinkedHashMap<>();
+        for (CategoryTreeRow row : rows) {
+            rowsByParent.computeIfAbsent(row.parentId(), parentId -> new ArrayList<>()).add(row);
+        }
+
+        Map<Long, Node> nodesById = new LinkedHashMap<>();
+        List<Node> roots = new ArrayList<>();
+        for (CategoryTreeRow row : rowsByParent.getOrDefault(null, List.of())) {
+            roots.add(attach(row, null, rowsByParent, nodesById));
+        }
+        roots.sort(BY_NAME);
+        if (nodesById.size() < rows.size()) {
+            log.warn("{} categories are not reachable from a top-level category and are left out of the tree",
+                    rows.size() - nodesById.size());
+        }
+
+        Map<String, Node> nodesByPublicId = new LinkedHashMap<>();
+        rows.stream()
+                .map(row -> nodesById.get(row.id()))
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparing(Node::id))
+                .forEach(node -> nodesByPublicId.put(node.publicId(), node));
+        return new CategoryTree(Collections.unmodifiableMap(nodesByPublicId),
+                Collections.unmodifiableMap(nodesById), List.copyOf(roots));
+    }
+
+    /**
+     * Create the node for a row and, depth-first, the nodes of its descendants
+     */
+    private static Node attach(CategoryTreeRow row, Node parent,
+                               Map<Long, List<CategoryTreeRow>> rowsByParent, Map<Long, Node> nodesById) {
+        Node node = new Node(row, parent);
+        nodesById.put(row.id(), node);
+        List<Node> children = new ArrayList<>();
+        for (CategoryTreeRow childRow : rowsByParent.getOrDefault(row.id(), List.of())) {
+            children.add(attach(childRow, node, rowsByParent, nodesById));
+        }
+        children.sort(BY_NAME);
+        node.children = List.copyOf(children);
+        return node;
+    }
+
+    public List<Node> roots() {
+        return roots;
+    }
+
+    /**
+     * Every node, in ID order
+     */
+    public Iterable<Node> nodes() {
+        return nodesByPublicId.values();
+    }
+
+    public int size() {
+        return nodesByPublicId.size();
+    }
+
+    public Optional<Node> find(String publicId) {
+        return Optional.ofNullable(nodesByPublicId.get(publicId));
+    }
+
+    public Optional<Node> find(Long id) {
+        return Optional.ofNullable(nodesById.get(id));
+    }
+
+    /**
+     * The given categories and all of their descendants; unknown public IDs are kept as they are
+     */
+    public Set<String> withDescendants(Collection<String> publicIds) {
+        Set<String> result = new HashSet<>(publicIds);
+        Deque<Node> pending = new ArrayDeque<>();
+        publicIds.forEach(publicId -> find(publicId).ifPresent(pending::add));
+        while (!pending.isEmpty()) {
+            for (Node child : pending.pop().children()) {
+                if (result.add(child.publicId())) {
+                    pending.add(child);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The whole tree, top-level categories first, with the product counts of each category by internal ID
+     */
+    public List<CategoryTreeResponse> toResponse(Function<Long, CategoryResponse.ProductCounts> productCounts) {
+        return roots.stream().map(root -> root.toTreeResponse(productCounts)).toList();
+    }
+
+    /**
+     * A category in the tree. Immutable once the tree is built; the tree is only published after that.
+     */
+    public static final class Node {
+        private final Long id;
+        private final String publicId;
+        private final String name;
+        private final String slug;
+        private final String description;
+        private final Node parent;
+        private final int depth;
+        private final List<Node> ancestors;
+        private List<Node> children = List.of();
+
+        private Node(CategoryTreeRow row, Node parent) {
+            this.id = row.id();
+            this.publicId = row.publicId();
+            this.name = row.name();
+            this.slug = row.slug();
+            this.description = row.description();
+            this.parent = parent;
+            this.depth = parent == null ? 0 : parent.depth + 1;
+            if (parent == null) {
+                this.ancestors = List.of();
+            } else {
+                List<Node> path = new ArrayList<>(parent.ancestors);
+                path.add(parent);
+                this.ancestors = List.copyOf(path);
+            }
+        }
+
+        public Long id() {
+            return id;
+        }
+
+        public String publicId() {
+            return publicId;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public String slug() {
+            return slug;
+        }
+
+        public String description() {
+            return description;
+        }
+
+        public Optional<Node> parent() {
+            return Optional.ofNullable(parent);
+        }
+
+        public int depth() {
+            return depth;
+        }
+
+        /**
+         * Ancestors from the top-level category down to the parent
+         */
+        public List<Node> ancestors() {
+            return ancestors;
+        }
+
+        public List<Node> children() {
+            return children;
+        }
+
+        public CategoryResponse.CategorySummary toSummary() {
+            return new CategoryResponse.CategorySummary(UUID.fromString(publicId), name, slug);
+        }
+
+        private CategoryTreeResponse toTreeResponse(Function<Long, CategoryResponse.ProductCounts> productCounts) {
+            return new CategoryTreeResponse(
+                    UUID.fromString(publicId),
+                    name,
+                    slug,
+                    depth,
+                    ancestors.stream().map(Node::toSummary).toList(),
+                    productCounts.apply(id),
+                    children.stream().map(child -> child.toTreeResponse(productCounts)).toList());
+        }
+    }
+}
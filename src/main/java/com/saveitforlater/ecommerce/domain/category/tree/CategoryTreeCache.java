@@ -0,0 +1,60 @@
+package com.saveitforlater.ecommerce.domain.category.tree;
+
+import com.saveitforlater.ecommerce.domain.catalog.CatalogVersion;
+import com.saveitforlater.ecommerce.domain.category.event.CategoryChangedEvent;
+import com.saveitforlater.ecommerce.persistence.repository.category.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Holds the current {@link CategoryTree}.
+ * <p>
+ * The tree is built from one query once the application is ready and rebuilt whenever a
+ * {@link CategoryChangedEvent} is committed; readers get the current snapshot without locking or
+ * querying, and a rebuild replaces it in one reference swap. Categories are few, so a full rebuild
+ * is cheaper to reason about than patching the tree.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CategoryTreeCache {
+
+    private final CategoryRepository categoryRepository;
+
+    private volatile CategoryTree tree;
+
+    /**
+     * The current tree; built on first use if the application is not ready yet
+     */
+    public CategoryTree current() {
+        CategoryTree current = tree;
+        return current != null ? current : rebuild();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long start = System.currentTimeMillis();
+        CategoryTree built = rebuild();
+        log.info("Built category tree: {} categories in {} ms", built.size(), System.currentTimeMillis() - start);
+    }
+
+    @Order(CatalogVersion.BEFORE_BUMP)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        rebuild();
+    }
+
+    /**
+     * Rebuilds are serialized, so the last one to finish has read the latest committed categories
+     */
+    private synchronized CategoryTree rebuild() {
+        CategoryTree built = CategoryTree.of(categoryRepository.findTreeRows());
+        tree = built;
+        return built;
+    }
+}
@@ -3,6 +3,7 @@ package com.saveitforlater.ecommerce.domain.file;
 import com.saveitforlater.ecommerce.domain.file.dto.ProductImageResponse;
 import com.saveitforlater.ecommerce.domain.file.dto.UpdateProductImageRequest;
 import com.saveitforlater.ecommerce.domain.file.exception.ProductImageNotFoundException;
+import com.saveitforlater.ecommerce.domain.product.event.ProductChangeMarker;
 import com.saveitforlater.ecommerce.domain.product.exception.ProductNotFoundException;
 import com.saveitforlater.ecommerce.persistence.entity.file.FileMetadata;
 import com.saveitforlater.ecommerce.persistence.entity.file.ProductImage;
@@ -16,7 +17,11 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -32,6 +37,7 @@ public class ProductImageService {
     private final ProductImageRepository productImageRepository;
     private final ProductRepository productRepository;
     private final FileStorageService fileStorageService;
+    private final ProductChangeMarker productChangeMarker;
 
     /**
      * Upload and attach an image to a product
@@ -81,6 +87,7 @@ public class ProductImageService {
 
         ProductImage savedImage = productImageRepository.save(productImage);
         log.info("Successfully uploaded image for product: {}", productPublicId);
+        productChangeMarker.markChanged(product);
         
         return toProductImageResponse(savedImage);
     }
@@ -99,6 +106,25 @@ public class ProductImageService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Get images for a batch of products in a single query, grouped by product public ID.
+     * Used by listing endpoints so a page of products does not issue one image query per product.
+     */
+    public Map<String, List<ProductImageResponse>> getProductImagesByProductIds(Collection<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        log.debug("Fetching images for {} products", productIds.size());
+
+        return productImageRepository.findByProductIdsOrderByDisplayOrderAsc(productIds)
+                .stream()
+                .map(this::toProductImageResponse)
+                .collect(Collectors.groupingBy(
+                        ProductImageResponse::productPublicId,
+                        LinkedHashMap::new,
+                        Collectors.toList()));
+    }
+
     /**
      * Get primary image for a product
      */
@@ -152,6 +178,7 @@ public class ProductImageService {
 
         ProductImage updatedImage = productImageRepository.save(productImage);
         log.info("Successfully updated product image: {}", imagePublicId);
+        productChangeMarker.markChanged(updatedImage.getProduct());
         
         return toProductImageResponse(updatedImage);
     }
@@ -172,6 +199,7 @@ public class ProductImageService {
 
         // Delete from database (cascade will handle file_metadata)
         productImageRepository.delete(productImage);
+        productChangeMarker.markChanged(productImage.getProduct());
         
         log.info("Successfully deleted product image: {}", imagePublicId);
     }
@@ -195,20 +223,28 @@ public class ProductImageService {
 
         // Delete from database
         productImageRepository.deleteByProductId(product.getId());
+        productChangeMarker.markChanged(product);
         
         log.info("Successfully deleted {} images for product: {}", images.size(), productPublicId);
     }
 
+    /**
+     * Build the public URL under which an image is served by FileController
+     */
+    public String buildImageUrl(String imagePublicId) {
+        return ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/files/images/")
+                .path(imagePublicId)
+                .toUriString();
+    }
+
     /**
      * Convert ProductImage entity to response DTO
      */
     private ProductImageResponse toProductImageResponse(ProductImage productImage) {
         // FileMetadata metadata = productImage.getFileMetadata();
         
-        String imageUrl = ServletUriComponentsBuilder.fromCurrentContextPath()
-                .path("/api/files/images/")
-                .path(productImage.getPublicId())
-                .toUriString();
+        String imageUrl = buildImageUrl(productImage.getPublicId());
         
         // String downloadUrl = ServletUriComponentsBuilder.fromCurrentContextPath()
         //         .path("/api/files/download/")
@@ -9,4 +9,8 @@ public record ProductImageResponse(
     String altText,
     String imageUrl
 ) {
+
+    public ProductImageResponse withImageUrl(String imageUrl) {
+        return new ProductImageResponse(publicId, productPublicId, fileMetadata, isPrimary, displayOrder, altText, imageUrl);
+    }
 }
@@ -4,9 +4,12 @@ import com.saveitforlater.ecommerce.api.order.dto.CreateOrderRequest;
 import com.saveitforlater.ecommerce.api.order.dto.OrderResponse;
 import com.saveitforlater.ecommerce.api.order.dto.PaymentDetailsRequest;
 import com.saveitforlater.ecommerce.api.order.mapper.OrderMapper;
+import com.saveitforlater.ecommerce.domain.cart.store.WriteBehindCartStore;
 import com.saveitforlater.ecommerce.domain.order.exception.EmptyCartException;
 import com.saveitforlater.ecommerce.domain.order.exception.InsufficientStockException;
 import com.saveitforlater.ecommerce.domain.order.exception.OrderNotFoundException;
+import com.saveitforlater.ecommerce.domain.product.event.ProductChangedEvent;
+import com.saveitforlater.ecommerce.domain.product.stats.ProductStatsCounters;
 import com.saveitforlater.ecommerce.persistence.entity.cart.Cart;
 import com.saveitforlater.ecommerce.persistence.entity.cart.CartItem;
 import com.saveitforlater.ecommerce.persistence.entity.order.Order;
@@ -21,6 +24,7 @@ import com.saveitforlater.ecommerce.persistence.repository.order.OrderRepository
 import com.saveitforlater.ecommerce.persistence.repository.product.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.Authentication;
@@ -30,7 +34,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -43,6 +49,9 @@ public class OrderService {
     private final CartRepository cartRepository;
     private final ProductRepository productRepository;
     private final OrderMapper orderMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductStatsCounters productStatsCounters;
+    private final Optional<WriteBehindCartStore> writeBehindCartStore;
 
     /**
      * Create order from current user's cart (Step 1: Order creation only, no payment)
@@ -52,7 +61,8 @@ public class OrderService {
         User currentUser = getCurrentUser();
         log.info("Creating order for user: {}", currentUser.getEmail());
 
-        // Get user's cart
+        // Get user's cart, with changes still held by the write-behind store written first
+        writeBehindCartStore.ifPresent(store -> store.flushUser(currentUser.getPublicId()));
         Cart cart = cartRepository.findByUser(currentUser)
                 .orElseThrow(() -> EmptyCartException.create());
 
@@ -115,6 +125,7 @@ public class OrderService {
         // Clear cart after order creation
         cart.getItems().clear();
         cartRepository.save(cart);
+        writeBehindCartStore.ifPresent(store -> store.discardAfterCommit(currentUser.getPublicId()));
 
         log.info("Order created successfully with PENDING status: {}", savedOrder.getOrderNumber());
         return orderMapper.toOrderResponse(savedOrder);
@@ -352,15 +363,20 @@ public class OrderService {
     }
 
     /**
-     * Reduce stock quantities for products in the order
+     * Reduce stock quantities for products in the order and count them as purchased
      */
     private void reduceStockForOrder(Order order) {
+        List<Product> changed = new ArrayList<>(order.getItems().size());
         for (OrderItem orderItem : order.getItems()) {
             Product product = orderItem.getProduct();
             int newStock = product.getStockQuantity() - orderItem.getQuantity();
             product.setStockQuantity(newStock);
             productRepository.save(product);
+            changed.add(product);
+            productStatsCounters.recordPurchase(product.getPublicId(), orderItem.getQuantity());
         }
+        // Stock is part of the product response and the in-stock facet
+        eventPublisher.publishEvent(ProductChangedEvent.updated(changed));
     }
 
     /**
@@ -1,9 +1,12 @@
 package com.saveitforlater.ecommerce.domain.product;
 
+import com.saveitforlater.ecommerce.domain.product.event.AttributeChangedEvent;
+import com.saveitforlater.ecommerce.domain.product.registry.AttributeRegistry;
 import com.saveitforlater.ecommerce.persistence.entity.product.Attribute;
 import com.saveitforlater.ecommerce.persistence.entity.product.AttributeOption;
 import com.saveitforlater.ecommerce.persistence.repository.product.AttributeOptionRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
@@ -17,6 +20,8 @@ import java.util.Optional;
 public class AttributeOptionService {
 
     private final AttributeOptionRepository attributeOptionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AttributeRegistry attributeRegistry;
 
     public List<AttributeOption> getActiveOptionsByAttribute(Attribute attribute) {
         return attributeOptionRepository.findByAttributeAndIsActiveTrue(attribute);
@@ -38,6 +43,10 @@ public class AttributeOptionService {
         return attributeOptionRepository.findByAttributeAndSlugIgnoreCase(attribute, slug);
     }
 
+    /**
+     * Find an option of the attribute by name or slug (case-insensitive), creating it if none exists.
+     * Existing options are resolved through the registry and returned as uninitialized references.
+     */
     public AttributeOption createOrGetOption(Attribute attribute, String name, String description) {
         if (!StringUtils.hasText(name)) {
             throw new IllegalArgumentException("Option name cannot be empty");
@@ -50,6 +59,11 @@ public class AttributeOptionService {
         String normalizedName = name.trim();
         String slug = generateSlug(normalizedName);
 
+        Optional<Long> registeredId = attributeRegistry.findOptionId(attribute.getId(), normalizedName, slug);
+        if (registeredId.isPresent()) {
+            return attributeOptionRepository.getReferenceById(registeredId.get());
+        }
+
         // Try to find existing option by name (case-insensitive)
         Optional<AttributeOption> existingOption = attributeOptionRepository
                 .findByAttributeAndNameIgnoreCase(attribute, normalizedName);
@@ -76,6 +90,7 @@ public class AttributeOptionService {
         
         // Add to attribute's options list
         attribute.addOption(savedOption);
+        eventPublisher.publishEvent(new AttributeChangedEvent(attribute.getPublicId()));
         
         return savedOption;
     }
@@ -103,7 +118,9 @@ public class AttributeOptionService {
 
         option.setActive(isActive);
 
-        return attributeOptionRepository.save(option);
+        AttributeOption updatedOption = attributeOptionRepository.save(option);
+        eventPublisher.publishEvent(new AttributeChangedEvent(updatedOption.getAttribute().getPublicId()));
+        return updatedOption;
     }
 
     public void deactivateOption(String publicId) {
@@ -112,6 +129,7 @@ public class AttributeOptionService {
         
         option.setActive(false);
         attributeOptionRepository.save(option);
+        eventPublisher.publishEvent(new AttributeChangedEvent(option.getAttribute().getPublicId()));
     }
 
     private String generateSlug(String name) {
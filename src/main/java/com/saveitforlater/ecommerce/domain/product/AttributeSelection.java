@@ -0,0 +1,19 @@
+package com.saveitforlater.ecommerce.domain.product;
+
+import com.saveitforlater.ecommerce.persistence.entity.product.Attribute;
+import com.saveitforlater.ecommerce.persistence.entity.product.AttributeOption;
+
+import java.util.List;
+
+/**
+ * One requested (attribute, option) pair of a product.
+ */
+public record AttributeSelection(Attribute attribute, AttributeOption option) {
+
+    /**
+     * Identity of the pair, matching the unique key of product_attribute_value within a product
+     */
+    List<Long> key() {
+        return List.of(attribute.getId(), option.getId());
+    }
+}
@@ -1,8 +1,11 @@
 package com.saveitforlater.ecommerce.domain.product;
 
+import com.saveitforlater.ecommerce.domain.product.event.AttributeChangedEvent;
+import com.saveitforlater.ecommerce.domain.product.registry.AttributeRegistry;
 import com.saveitforlater.ecommerce.persistence.entity.product.Attribute;
 import com.saveitforlater.ecommerce.persistence.repository.product.AttributeRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -18,6 +21,8 @@ import java.util.Optional;
 public class AttributeService {
 
     private final AttributeRepository attributeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AttributeRegistry attributeRegistry;
 
     public List<Attribute> getAllActiveAttributes() {
         return attributeRepository.findAllActiveOrderByName();
@@ -39,7 +44,18 @@ public class AttributeService {
         return attributeRepository.findBySlugIgnoreCase(slug);
     }
 
+    /**
+     * Find an attribute by name or slug (case-insensitive), creating it if none exists.
+     * Existing attributes are resolved through the registry and returned as uninitialized references.
+     */
     public Attribute createOrGetAttribute(String name, String description) {
+        return attributeRepository.getReferenceById(createOrGetAttributeId(name, description));
+    }
+
+    /**
+     * ID of the attribute with the given name or slug (case-insensitive), creating the attribute if none exists
+     */
+    public Long createOrGetAttributeId(String name, String description) {
         if (!StringUtils.hasText(name)) {
             throw new IllegalArgumentException("Attribute name cannot be empty");
         }
@@ -47,16 +63,21 @@ public class AttributeService {
         String normalizedName = name.trim();
         String slug = generateSlug(normalizedName);
 
+        Optional<Long> registeredId = attributeRegistry.findAttributeId(normalizedName, slug);
+        if (registeredId.isPresent()) {
+            return registeredId.get();
+        }
+
         // Try to find existing attribute by name (case-insensitive)
         Optional<Attribute> existingAttribute = attributeRepository.findByNameIgnoreCase(normalizedName);
         if (existingAttribute.isPresent()) {
-            return existingAttribute.get();
+            return existingAttribute.get().getId();
         }
 
         // Try to find existing attribute by slug (case-insensitive)
         Optional<Attribute> existingAttributeBySlug = attributeRepository.findBySlugIgnoreCase(slug);
         if (existingAttributeBySlug.isPresent()) {
-            return existingAttributeBySlug.get();
+            return existingAttributeBySlug.get().getId();
         }
 
         // Create new attribute
@@ -66,7 +87,16 @@ public class AttributeService {
         newAttribute.setDescription(description);
         newAttribute.setActive(true);
 
-        return attributeRepository.save(newAttribute);
+        Attribute savedAttribute = attributeRepository.save(newAttribute);
+        eventPublisher.publishEvent(new AttributeChangedEvent(savedAttribute.getPublicId()));
+        return savedAttribute.getId();
+    }
+
+    /**
+     * Reference to an attribute by ID without loading it
+     */
+    public Attribute getReference(Long id) {
+        return attributeRepository.getReferenceById(id);
     }
 
     public Attribute updateAttribute(String publicId, String name, String description, boolean isActive) {
@@ -91,7 +121,9 @@ public class AttributeService {
 
         attribute.setActive(isActive);
 
-        return attributeRepository.save(attribute);
+        Attribute updatedAttribute = attributeRepository.save(attribute);
+        eventPublisher.publishEvent(new AttributeChangedEvent(updatedAttribute.getPublicId()));
+        return updatedAttribute;
     }
 
     public void deactivateAttribute(String publicId) {
@@ -100,6 +132,7 @@ public class AttributeService {
         
         attribute.setActive(false);
         attributeRepository.save(attribute);
+        eventPublisher.publishEvent(new AttributeChangedEvent(attribute.getPublicId()));
     }
 
     private String generateSlug(String name) {
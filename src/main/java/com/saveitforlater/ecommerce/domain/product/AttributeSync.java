@@ -0,0 +1,14 @@
+package com.saveitforlater.ecommerce.domain.product;
+
+import com.saveitforlater.ecommerce.persistence.entity.product.ProductAttributeValue;
+
+import java.util.List;
+
+/**
+ * Outcome of syncing a product's attribute values to a requested set.
+ *
+ * @param values  the product's active attribute values, in request order
+ * @param changed whether any attribute value row was inserted, reactivated or deleted
+ */
+public record AttributeSync(List<ProductAttributeValue> values, boolean changed) {
+}
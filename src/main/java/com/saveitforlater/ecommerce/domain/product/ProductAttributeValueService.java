@@ -1,13 +1,21 @@
 package com.saveitforlater.ecommerce.domain.product;
 
+import com.saveitforlater.ecommerce.domain.product.event.ProductChangeMarker;
 import com.saveitforlater.ecommerce.persistence.entity.product.*;
 import com.saveitforlater.ecommerce.persistence.repository.product.ProductAttributeValueRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -15,6 +23,7 @@ import java.util.Optional;
 public class ProductAttributeValueService {
 
     private final ProductAttributeValueRepository productAttributeValueRepository;
+    private final ProductChangeMarker productChangeMarker;
 
     public List<ProductAttributeValue> getActiveAttributeValuesByProduct(Product product) {
         return productAttributeValueRepository.findByProductAndIsActiveTrue(product);
@@ -41,6 +50,9 @@ public class ProductAttributeValueService {
         Optional<ProductAttributeValue> existingValue = productAttributeValueRepository
                 .findByProductAndAttributeAndOption(product, attribute, option);
 
+        // Assignments feed the search read models; let them re-read the product after commit
+        productChangeMarker.markChanged(product);
+
         if (existingValue.isPresent()) {
             ProductAttributeValue value = existingValue.get();
             value.setActive(true); // Reactivate if it was soft deleted
@@ -69,11 +81,13 @@ public class ProductAttributeValueService {
 
         if (value.isPresent()) {
             productAttributeValueRepository.delete(value.get());
+            productChangeMarker.markChanged(product);
         }
     }
 
     public void removeAllAttributeValuesFromProduct(Product product, Attribute attribute) {
         productAttributeValueRepository.deleteByProductAndAttribute(product, attribute);
+        productChangeMarker.markChanged(product);
     }
 
     public void softDeleteAttributeValue(Product product, Attribute attribute, AttributeOption option) {
@@ -84,11 +98,75 @@ public class ProductAttributeValueService {
             ProductAttributeValue attributeValue = value.get();
             attributeValue.setActive(false);
             productAttributeValueRepository.save(attributeValue);
+            productChangeMarker.markChanged(product);
         }
     }
 
     public void clearAllAttributeValuesForProduct(Product product) {
         List<ProductAttributeValue> values = productAttributeValueRepository.findByProduct(product);
         productAttributeValueRepository.deleteAll(values);
+        productChangeMarker.markChanged(product);
+    }
+
+    /**
+     * Make the product's active attribute values exactly the given pairs with the fewest row changes.
+     * Pairs the product already has are kept, soft-deleted ones are reactivated, missing ones are
+     * inserted and active values that were not requested are deleted; an unchanged set writes nothing.
+     * The product itself is not marked as changed; the caller does so when {@link AttributeSync#changed()}.
+     */
+    public AttributeSync syncAttributeValues(Product product, Collection<AttributeSelection> selections) {
+        Map<List<Long>, ProductAttributeValue> current = new HashMap<>();
+        for (ProductAttributeValue value : product.getAttributeValues()) {
+            current.put(key(value), value);
+        }
+
+        List<ProductAttributeValue> result = new ArrayList<>(selections.size());
+        Set<List<Long>> requested = new HashSet<>();
+        boolean changed = false;
+        for (AttributeSelection selection : selections) {
+            List<Long> key = selection.key();
+            if (!requested.add(key)) {
+                continue;
+            }
+            ProductAttributeValue value = current.get(key);
+            if (value == null) {
+                value = new ProductAttributeValue(product, selection.attribute(), selection.option());
+                product.addAttributeValue(value);
+                changed = true;
+            } else if (!value.isActive()) {
+                value.setActive(true);
+                changed = true;
+            }
+            result.add(value);
+        }
+
+        // Orphan removal deletes the rows dropped from the collection
+        Iterator<ProductAttributeValue> values = product.getAttributeValues().iterator();
+        while (values.hasNext()) {
+            ProductAttributeValue value = values.next();
+            if (value.isActive() && !requested.contains(key(value))) {
+                values.remove();
+                changed = true;
+            }
+        }
+
+        return new AttributeSync(result, changed);
+    }
+
+    /**
+     * Sync the product's attribute values when only they change, and mark the product as changed if they did
+     *
+     * @return the product's active attribute values, in request order
+     */
+    public List<ProductAttributeValue> replaceAttributeValues(Product product, Collection<AttributeSelection> selections) {
+        AttributeSync sync = syncAttributeValues(product, selections);
+        if (sync.changed()) {
+            productChangeMarker.markChanged(product);
+        }
+        return sync.values();
+    }
+
+    private static List<Long> key(ProductAttributeValue value) {
+        return List.of(value.getAttribute().getId(), value.getAttributeOption().getId());
     }
-}
\ No newline at end of file
+}
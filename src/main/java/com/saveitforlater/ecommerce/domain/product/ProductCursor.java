@@ -0,0 +1,58 @@
+package com.saveitforlater.ecommerce.domain.product;
+
+import com.saveitforlater.ecommerce.domain.product.exception.InvalidProductCursorException;
+import com.saveitforlater.ecommerce.persistence.entity.product.Product;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last product returned by a cursor page: its sort key and ID.
+ * Clients receive it as an opaque URL-safe Base64 string.
+ */
+public record ProductCursor(ProductSort sort, String key, Long id) {
+
+    private static final String SEPARATOR = "\n";
+
+    public static ProductCursor after(ProductSort sort, Product product) {
+        return new ProductCursor(sort, sort.extractKey(product), product.getId());
+    }
+
+    /**
+     * Decode a cursor and check that it was issued for the requested sort
+     */
+    public static ProductCursor decode(String cursor, ProductSort expectedSort) {
+        ProductCursor decoded;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            // The key is last so that it may contain the separator itself
+            String[] parts = raw.split(SEPARATOR, 3);
+            if (parts.length != 3) {
+                throw InvalidProductCursorException.malformed(cursor);
+            }
+            ProductSort sort = ProductSort.valueOf(parts[0]);
+            Long id = Long.valueOf(parts[1]);
+            // Validate the key eagerly so a tampered cursor fails here rather than in the query
+            sort.parseKey(parts[2]);
+            decoded = new ProductCursor(sort, parts[2], id);
+        } catch (InvalidProductCursorException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw InvalidProductCursorException.malformed(cursor);
+        }
+
+        if (decoded.sort() != expectedSort) {
+            throw InvalidProductCursorException.sortMismatch(decoded.sort().name(), expectedSort.name());
+        }
+        return decoded;
+    }
+
+    public String encode() {
+        String raw = sort.name() + SEPARATOR + id + SEPARATOR + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Comparable<?> parsedKey() {
+        return sort.parseKey(key);
+    }
+}
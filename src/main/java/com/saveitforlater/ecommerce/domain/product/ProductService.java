@@ -1,35 +1,65 @@
 package com.saveitforlater.ecommerce.domain.product;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.saveitforlater.ecommerce.api.product.dto.CreateProductRequest;
+import com.saveitforlater.ecommerce.api.product.dto.CursorPageResponse;
+import com.saveitforlater.ecommerce.api.product.dto.FacetedSearchResponse;
+import com.saveitforlater.ecommerce.api.product.dto.ProductCardResponse;
 import com.saveitforlater.ecommerce.api.product.dto.ProductAttributeDto;
+import com.saveitforlater.ecommerce.api.product.dto.ProductFacets;
 import com.saveitforlater.ecommerce.api.product.dto.ProductFilterRequest;
 import com.saveitforlater.ecommerce.api.product.dto.ProductResponse;
 import com.saveitforlater.ecommerce.api.product.dto.UpdateProductRequest;
 import com.saveitforlater.ecommerce.api.product.mapper.ProductMapper;
 import com.saveitforlater.ecommerce.domain.category.exception.CategoryNotFoundException;
 import com.saveitforlater.ecommerce.domain.file.ProductImageService;
+import com.saveitforlater.ecommerce.domain.file.dto.ProductImageResponse;
+import com.saveitforlater.ecommerce.domain.product.cache.ProductResponseCache;
+import com.saveitforlater.ecommerce.domain.product.event.ProductChangedEvent;
 import com.saveitforlater.ecommerce.domain.product.exception.ProductNotFoundException;
+import com.saveitforlater.ecommerce.domain.product.facet.ProductFacetIndex;
+import com.saveitforlater.ecommerce.domain.product.facet.ProductFacetResult;
 import com.saveitforlater.ecommerce.domain.product.exception.ProductSkuAlreadyExistsException;
 import com.saveitforlater.ecommerce.domain.product.exception.ProductSlugAlreadyExistsException;
+import com.saveitforlater.ecommerce.domain.product.search.ProductSearchIndex;
 import com.saveitforlater.ecommerce.domain.util.SlugGenerator;
+import com.saveitforlater.ecommerce.domain.util.UniqueSlugAllocator;
 import com.saveitforlater.ecommerce.persistence.entity.category.Category;
 import com.saveitforlater.ecommerce.persistence.entity.product.*;
+import com.saveitforlater.ecommerce.persistence.projection.ProductCardView;
 import com.saveitforlater.ecommerce.persistence.repository.category.CategoryRepository;
 import com.saveitforlater.ecommerce.persistence.repository.product.ProductRepository;
 import com.saveitforlater.ecommerce.persistence.specification.ProductSpecification;
 import com.saveitforlater.ecommerce.util.HtmlSanitizer;
+import jakarta.persistence.EntityManagerFactory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -38,6 +68,11 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class ProductService {
 
+    /**
+     * Pseudo sort property ordering search results by search index relevance
+     */
+    public static final String RELEVANCE_SORT = "relevance";
+
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final ProductMapper productMapper;
@@ -46,16 +81,76 @@ public class ProductService {
     private final ProductAttributeValueService productAttributeValueService;
     private final ProductImageService productImageService;
     private final HtmlSanitizer htmlSanitizer;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductResponseCache productResponseCache;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectMapper objectMapper;
+    private final UniqueSlugAllocator uniqueSlugAllocator;
+
+    // Above this many matches a search is narrowed with the SQL filter instead of an ID list, which
+    // costs one bind parameter per ID
+    @Value("${app.search.max-id-restriction:5000}")
+    private int maxIdRestriction;
+
+    @Value("${app.export.batch-size:500}")
+    private int exportBatchSize;
 
     /**
-     * Get all products (accessible to everyone)
+     * Get all products (accessible to everyone).
+     * Products are read in keyset batches like the export, each on its own entity manager, so the
+     * category, attribute and image queries take a bounded ID list each and no persistence context
+     * outgrows one batch.
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<ProductResponse> getAllProducts() {
         log.debug("Fetching all products");
-        return productRepository.findAll()
-                .stream()
-                .map(this::toProductResponseWithImages)
-                .collect(Collectors.toList());
+        List<ProductResponse> products = new ArrayList<>();
+        Object requestEntityManager = suspendRequestEntityManager();
+        try {
+            long lastId = 0L;
+            CatalogBatch batch;
+            do {
+                batch = readCatalogBatch(lastId);
+                products.addAll(batch.products());
+                lastId = batch.lastId();
+            } while (batch.products().size() == exportBatchSize);
+        } finally {
+            resumeRequestEntityManager(requestEntityManager);
+        }
+        return products;
+    }
+
+    /**
+     * Write every product as one line of NDJSON (admin only).
+     * Products are read in keyset batches, each in its own short transaction and entity manager, and
+     * written after it commits: every batch is detached once mapped, so memory use stays flat regardless
+     * of catalog size, and a slow client never holds a pooled connection while the response drains.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void exportProducts(OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        int exported = 0;
+        Object requestEntityManager = suspendRequestEntityManager();
+        try {
+            long lastId = 0L;
+            CatalogBatch batch;
+            do {
+                batch = readCatalogBatch(lastId);
+                for (ProductResponse response : batch.products()) {
+                    out.write(objectMapper.writeValueAsBytes(response));
+                    out.write('\n');
+                }
+                out.flush();
+                exported += batch.products().size();
+                lastId = batch.lastId();
+            } while (batch.products().size() == exportBatchSize);
+        } finally {
+            resumeRequestEntityManager(requestEntityManager);
+        }
+        log.info("Exported {} products in {} ms", exported, System.currentTimeMillis() - start);
     }
 
     /**
@@ -63,46 +158,149 @@ public class ProductService {
      */
     public Page<ProductResponse> getProducts(Pageable pageable) {
         log.debug("Fetching products with pagination: {}", pageable);
-        return productRepository.findAll(pageable)
-                .map(this::toProductResponseWithImages);
+        return toProductResponsePageWithImages(productRepository.findAll(pageable));
     }
 
     /**
-     * Get paginated products with filters (accessible to everyone)
+     * Get paginated products with filters (accessible to everyone).
+     * The search term is resolved through the search index; sort=relevance orders by match quality.
      */
     public Page<ProductResponse> getProductsWithFilters(ProductFilterRequest filter, Pageable pageable) {
         log.debug("Fetching products with filters and pagination: filter={}, pageable={}", filter, pageable);
-        Specification<Product> spec = ProductSpecification.withFilters(filter);
-        return productRepository.findAll(spec, pageable)
-                .map(this::toProductResponseWithImages);
+        List<Long> searchIds = searchIds(filter);
+
+        if (isSortedByRelevance(pageable)) {
+            if (searchIds != null) {
+                Page<Long> idPage = findRankedIdPage(filter, searchIds, pageable);
+                List<Product> products = inIdOrder(idPage.getContent(),
+                        productRepository.findAllById(idPage.getContent()), Product::getId);
+                return toProductResponsePageWithImages(
+                        new PageImpl<>(products, pageable, idPage.getTotalElements()));
+            }
+            pageable = withoutRelevanceSort(pageable);
+        }
+        return toProductResponsePageWithImages(
+                productRepository.findAll(toSpecification(filter, searchIds), pageable));
     }
 
     /**
-     * Get product by public ID (accessible to everyone)
+     * Get paginated product cards with filters (accessible to everyone).
+     * Reads only the columns a product grid needs plus the primary image.
      */
+    public Page<ProductCardResponse> getProductCards(ProductFilterRequest filter, Pageable pageable) {
+        log.debug("Fetching product cards with filters and pagination: filter={}, pageable={}", filter, pageable);
+        List<Long> searchIds = searchIds(filter);
+
+        if (isSortedByRelevance(pageable)) {
+            if (searchIds != null) {
+                return findCardsInIdOrder(findRankedIdPage(filter, searchIds, pageable));
+            }
+            pageable = withoutRelevanceSort(pageable);
+        }
+        return productRepository.findCards(toSpecification(filter, searchIds), pageable)
+                .map(this::toProductCardResponse);
+    }
+
+    /**
+     * Faceted product search (accessible to everyone).
+     * Filters and facet counts are answered by the in-memory facet index; only the
+     * requested page of product cards is read from the database.
+     */
+    public FacetedSearchResponse searchProductsFaceted(ProductFilterRequest filter, Pageable pageable) {
+        log.debug("Faceted product search: filter={}, pageable={}", filter, pageable);
+        List<Long> searchIds = searchIds(filter);
+        if (!productFacetIndex.isReady() || (StringUtils.hasText(filter.searchTerm()) && searchIds == null)) {
+            // Indexes still building: answer from SQL without facets
+            return new FacetedSearchResponse(getProductCards(filter, pageable), ProductFacets.empty());
+        }
+
+        ProductFacetResult result = productFacetIndex.search(filter, searchIds);
+        Page<ProductCardResponse> cards;
+        if (isSortedByRelevance(pageable) && searchIds != null) {
+            Set<Long> matchingIds = new HashSet<>(result.productIds());
+            cards = findCardsInIdOrder(pageOfIds(
+                    searchIds.stream().filter(matchingIds::contains).toList(), pageable));
+        } else {
+            Specification<Product> spec = result.productIds().size() <= maxIdRestriction
+                    ? ProductSpecification.withIds(result.productIds())
+                    : toSpecification(filter, searchIds);
+            Pageable sortedPageable = isSortedByRelevance(pageable) ? withoutRelevanceSort(pageable) : pageable;
+            cards = productRepository.findCards(spec, sortedPageable).map(this::toProductCardResponse);
+        }
+        return new FacetedSearchResponse(cards, result.facets());
+    }
+
+    /**
+     * Get products with filters using cursor (keyset) pagination (accessible to everyone).
+     * Seeks past the cursor position instead of skipping rows, so every page costs the same;
+     * the total count is only computed when requested.
+     */
+    public CursorPageResponse<ProductResponse> getProductsByCursor(ProductFilterRequest filter, ProductSort sort,
+                                                                   String cursor, int size, boolean includeTotal) {
+        log.debug("Fetching products by cursor: filter={}, sort={}, size={}", filter, sort, size);
+        Specification<Product> filterSpec = toSpecification(filter, searchIds(filter));
+        Specification<Product> spec = filterSpec;
+        if (StringUtils.hasText(cursor)) {
+            ProductCursor position = ProductCursor.decode(cursor, sort);
+            spec = spec.and(ProductSpecification.seekAfter(
+                    sort.getProperty(), position.parsedKey(), position.id(), sort.isDescending()));
+        }
+
+        // Fetch one extra row to learn whether another page exists without counting
+        List<Product> products = productRepository.findBy(spec,
+                query -> query.sortBy(sort.toSort()).limit(size + 1).all());
+        boolean hasNext = products.size() > size;
+        if (hasNext) {
+            products = products.subList(0, size);
+        }
+
+        String nextCursor = hasNext
+                ? ProductCursor.after(sort, products.get(products.size() - 1)).encode()
+                : null;
+        Long total = includeTotal ? productRepository.count(filterSpec) : null;
+
+        return new CursorPageResponse<>(toProductResponsesWithImages(products), size, hasNext, nextCursor, total);
+    }
+
+    /**
+     * Get product by public ID (accessible to everyone).
+     * Served from the product response cache; no transaction is opened on a cache hit.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public ProductResponse getProductById(String publicId) {
         log.debug("Fetching product by ID: {}", publicId);
-        Product product = productRepository.findByPublicId(publicId)
-                .orElseThrow(() -> ProductNotFoundException.byPublicId(publicId));
-
-        return toProductResponseWithImages(product);
+        return withImageUrls(productResponseCache.getByPublicId(publicId, () -> loadProductResponse(() ->
+                productRepository.findByPublicId(publicId)
+                        .orElseThrow(() -> ProductNotFoundException.byPublicId(publicId)))));
     }
 
     /**
      * Get product by SKU (accessible to everyone)
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public ProductResponse getProductBySku(String sku) {
         log.debug("Fetching product by SKU: {}", sku);
-        Product product = productRepository.findBySku(sku)
-                .orElseThrow(() -> ProductNotFoundException.bySku(sku));
+        return withImageUrls(productResponseCache.getBySku(sku, () -> loadProductResponse(() ->
+                productRepository.findBySku(sku)
+                        .orElseThrow(() -> ProductNotFoundException.bySku(sku)))));
+    }
 
-        return toProductResponseWithImages(product);
+    /**
+     * Get product by slug (accessible to everyone)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ProductResponse getProductBySlug(String slug) {
+        log.debug("Fetching product by slug: {}", slug);
+        return withImageUrls(productResponseCache.getBySlug(slug, () -> loadProductResponse(() ->
+                productRepository.findBySlug(slug)
+                        .orElseThrow(() -> ProductNotFoundException.bySlug(slug)))));
     }
 
     /**
-     * Create a new product (ADMIN ONLY)
+     * Create a new product (ADMIN ONLY).
+     * Runs in its own transaction so a slug taken by a concurrent create can be retried.
      */
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ProductResponse createProduct(CreateProductRequest request) {
         log.info("Creating new product with SKU: {}", request.sku());
 
@@ -118,14 +316,21 @@ public class ProductService {
             log.debug("Auto-generated slug: {} from name: {}", slug, request.name());
         }
 
-        // Ensure slug is unique, append counter if needed
-        String finalSlug = slug;
-        int counter = 1;
-        while (productRepository.findBySlug(finalSlug).isPresent()) {
-            finalSlug = SlugGenerator.generateUniqueSlug(slug, counter++);
-            log.debug("Slug conflict detected, trying: {}", finalSlug);
+        // Save product under the first free slug variant, with duplicate SKU handling
+        try {
+            return uniqueSlugAllocator.create(slug, productRepository::findSlugVariants,
+                    finalSlug -> insertProduct(request, finalSlug));
+        } catch (org.springframework.dao.DataIntegrityViolationException ex) {
+            // Handle race condition where SKU was checked but inserted by another transaction
+            if (productRepository.findBySku(request.sku()).isPresent()) {
+                log.warn("Race condition detected: SKU {} was inserted by another transaction", request.sku());
+                throw ProductSkuAlreadyExistsException.withSku(request.sku());
+            }
+            throw ex; // Re-throw other integrity violations
         }
+    }
 
+    private ProductResponse insertProduct(CreateProductRequest request, String finalSlug) {
         // Map basic fields
         Product product = productMapper.toProduct(request);
         product.setSlug(finalSlug);
@@ -153,26 +358,19 @@ public class ProductService {
 
         // Set attributes if provided
         if (request.attributes() != null && !request.attributes().isEmpty()) {
-            for (ProductAttributeDto attrDto : request.attributes()) {
-                processProductAttribute(product, attrDto);
+            // Add the attribute values to the product directly (don't save yet - let cascade handle it)
+            for (AttributeSelection selection : resolveAttributeSelections(request.attributes())) {
+                product.addAttributeValue(selection.attribute(), selection.option());
             }
             log.debug("Set {} attributes for new product: {}", request.attributes().size(), request.name());
         }
 
-        // Save product with duplicate SKU handling
-        try {
-            Product savedProduct = productRepository.save(product);
-            log.info("Successfully created product with ID: {} and SKU: {}",
-                    savedProduct.getPublicId(), savedProduct.getSku());
-            return productMapper.toProductResponse(savedProduct);
-        } catch (org.springframework.dao.DataIntegrityViolationException ex) {
-            // Handle race condition where SKU was checked but inserted by another transaction
-            if (ex.getMessage() != null && ex.getMessage().contains("sku")) {
-                log.warn("Race condition detected: SKU {} was inserted by another transaction", request.sku());
-                throw ProductSkuAlreadyExistsException.withSku(request.sku());
-            }
-            throw ex; // Re-throw other integrity violations
-        }
+        // Flush so unique constraint violations surface here rather than at commit
+        Product savedProduct = productRepository.saveAndFlush(product);
+        log.info("Successfully created product with ID: {} and SKU: {}",
+                savedProduct.getPublicId(), savedProduct.getSku());
+        eventPublisher.publishEvent(ProductChangedEvent.created(savedProduct));
+        return productMapper.toProductResponse(savedProduct);
     }
 
     /**
@@ -258,21 +456,20 @@ public class ProductService {
 
         // Update attributes if provided
         if (request.attributes() != null) {
-            // Clear existing attribute values
-            productAttributeValueService.clearAllAttributeValuesForProduct(existingProduct);
-
-            // Add new attributes
-            if (!request.attributes().isEmpty()) {
-                for (ProductAttributeDto attrDto : request.attributes()) {
-                    processProductAttribute(existingProduct, attrDto);
-                }
+            // Apply only the difference to the current attribute values
+            AttributeSync attributes = productAttributeValueService.syncAttributeValues(
+                    existingProduct, resolveAttributeSelections(request.attributes()));
+            if (attributes.changed()) {
+                // Attribute values live in their own table; dirty the product so its update time moves too
+                existingProduct.setUpdatedAt(Instant.now());
             }
             log.debug("Updated attributes for product: {}", existingProduct.getName());
         }
 
-        // Save updated product
-        Product updatedProduct = productRepository.save(existingProduct);
+        // Save updated product; flushed so the response carries the update time that was written
+        Product updatedProduct = productRepository.saveAndFlush(existingProduct);
         log.info("Successfully updated product with ID: {}", updatedProduct.getPublicId());
+        eventPublisher.publishEvent(ProductChangedEvent.updated(updatedProduct));
 
         return toProductResponseWithImages(updatedProduct);
     }
@@ -293,12 +490,120 @@ public class ProductService {
 
         productRepository.delete(product);
         log.info("Successfully deleted product with ID: {}", publicId);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(product));
+    }
+
+    /**
+     * Load and assemble a product response in its own read transaction (used on cache misses).
+     * Image URLs are left out since they depend on the request; see {@link #withImageUrls}.
+     */
+    private ProductResponse loadProductResponse(Supplier<Product> productLoader) {
+        return transactionTemplate.execute(status -> {
+            ProductResponse response = toProductResponseWithImages(productLoader.get());
+            return withImages(response, response.images().stream()
+                    .map(image -> image.withImageUrl(null))
+                    .toList());
+        });
+    }
+
+    /**
+     * Add image URLs to a cached response for the current request, so one client's Host header
+     * never ends up in the responses served to others
+     */
+    private ProductResponse withImageUrls(ProductResponse response) {
+        return withImages(response, response.images().stream()
+                .map(image -> image.withImageUrl(productImageService.buildImageUrl(image.publicId())))
+                .toList());
+    }
+
+    /**
+     * Resolve the filter's search term through the search index.
+     * Returns the matching product IDs best match first, or null when the term should be
+     * matched in SQL instead (no search term, or the index is still being built).
+     */
+    private List<Long> searchIds(ProductFilterRequest filter) {
+        if (!StringUtils.hasText(filter.searchTerm())
+                || !productSearchIndex.isReady()
+                || !productSearchIndex.isSearchable(filter.searchTerm())) {
+            return null;
+        }
+        return productSearchIndex.search(filter.searchTerm());
+    }
+
+    /**
+     * The SQL filter for a request: the search term as resolved by the index, or matched in SQL when
+     * the index did not resolve it or matched too many products to list
+     */
+    private Specification<Product> toSpecification(ProductFilterRequest filter, List<Long> searchIds) {
+        if (searchIds == null || searchIds.size() > maxIdRestriction) {
+            return ProductSpecification.withFilters(filter);
+        }
+        return ProductSpecification.withFilters(filter.withoutSearchTerm())
+                .and(ProductSpecification.withIds(searchIds));
     }
 
     /**
-     * Helper method to process product attributes using the new reusable system
+     * Page through the ranked search IDs that also satisfy the remaining filters. Too many IDs to list
+     * are intersected with the filtered IDs in memory instead.
      */
-    private void processProductAttribute(Product product, ProductAttributeDto attrDto) {
+    private Page<Long> findRankedIdPage(ProductFilterRequest filter, List<Long> rankedIds, Pageable pageable) {
+        Specification<Product> spec = ProductSpecification.withFilters(filter.withoutSearchTerm());
+        if (rankedIds.size() <= maxIdRestriction) {
+            spec = spec.and(ProductSpecification.withIds(rankedIds));
+        }
+        Set<Long> matchingIds = new HashSet<>(productRepository.findIds(spec));
+        return pageOfIds(rankedIds.stream().filter(matchingIds::contains).toList(), pageable);
+    }
+
+    private static Page<Long> pageOfIds(List<Long> orderedIds, Pageable pageable) {
+        int from = (int) Math.min(pageable.getOffset(), orderedIds.size());
+        int to = Math.min(from + pageable.getPageSize(), orderedIds.size());
+        return new PageImpl<>(orderedIds.subList(from, to), pageable, orderedIds.size());
+    }
+
+    /**
+     * Read the cards of a page of product IDs, keeping the order of the IDs
+     */
+    private Page<ProductCardResponse> findCardsInIdOrder(Page<Long> idPage) {
+        List<ProductCardView> cards = inIdOrder(idPage.getContent(), productRepository
+                .findCards(ProductSpecification.withIds(idPage.getContent()), Pageable.unpaged())
+                .getContent(), ProductCardView::id);
+        return new PageImpl<>(cards, idPage.getPageable(), idPage.getTotalElements())
+                .map(this::toProductCardResponse);
+    }
+
+    private static <T> List<T> inIdOrder(List<Long> ids, List<T> items, Function<T, Long> idOf) {
+        Map<Long, T> itemsById = items.stream().collect(Collectors.toMap(idOf, Function.identity()));
+        return ids.stream().map(itemsById::get).filter(Objects::nonNull).toList();
+    }
+
+    private static boolean isSortedByRelevance(Pageable pageable) {
+        return pageable.getSort().getOrderFor(RELEVANCE_SORT) != null;
+    }
+
+    /**
+     * Drop the relevance pseudo property when there is nothing to rank, falling back to name order
+     */
+    private static Pageable withoutRelevanceSort(Pageable pageable) {
+        Sort sort = Sort.by(pageable.getSort().stream()
+                .filter(order -> !RELEVANCE_SORT.equals(order.getProperty()))
+                .toList());
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                sort.isSorted() ? sort : Sort.by("name"));
+    }
+
+    /**
+     * Resolve the requested attributes and options using the new reusable system, creating them by name if needed
+     */
+    private List<AttributeSelection> resolveAttributeSelections(List<ProductAttributeDto> attributes) {
+        List<AttributeSelection> selections = new ArrayList<>();
+        for (ProductAttributeDto attrDto : attributes) {
+            resolveAttributeSelections(attrDto, selections);
+        }
+        return selections;
+    }
+
+    private void resolveAttributeSelections(ProductAttributeDto attrDto, List<AttributeSelection> selections) {
         Attribute attribute;
         
         // Get or create attribute
@@ -328,7 +633,7 @@ public class ProductService {
                                     "Attribute option not found with ID: " + optionDto.optionId()));
                     
                     // Verify the option belongs to the correct attribute
-                    if (!option.getAttribute().equals(attribute)) {
+                    if (!option.getAttribute().getId().equals(attribute.getId())) {
                         throw new IllegalArgumentException(
                                 "Option " + optionDto.optionId() + " does not belong to attribute " 
                                 + attribute.getPublicId());
@@ -342,9 +647,7 @@ public class ProductService {
                             "Either optionId or optionName must be provided");
                 }
 
-                // Add the attribute value to the product directly (don't save yet - let cascade handle it)
-                ProductAttributeValue attributeValue = new ProductAttributeValue(product, attribute, option);
-                product.addAttributeValue(attributeValue);
+                selections.add(new AttributeSelection(attribute, option));
             }
         }
     }
@@ -354,9 +657,95 @@ public class ProductService {
      * Fetches images from database via ProductImageService.
      */
     private ProductResponse toProductResponseWithImages(Product product) {
-        ProductResponse response = productMapper.toProductResponse(product);
         // Fetch actual images for this product
         var images = productImageService.getProductImages(product.getPublicId());
+        return toProductResponseWithImages(product, images);
+    }
+
+    /**
+     * Convert a page of Product entities to responses, loading the images of the
+     * whole page with one query instead of one query per product.
+     */
+    private Page<ProductResponse> toProductResponsePageWithImages(Page<Product> products) {
+        List<Long> productIds = products.map(Product::getId).getContent();
+        fetchListingAssociations(productIds);
+        Map<String, List<ProductImageResponse>> imagesByProduct = productImageService
+                .getProductImagesByProductIds(productIds);
+        return products.map(product -> toProductResponseWithImages(
+                product, imagesByProduct.getOrDefault(product.getPublicId(), List.of())));
+    }
+
+    /**
+     * Convert a list of Product entities to responses, loading all images with one query.
+     */
+    private List<ProductResponse> toProductResponsesWithImages(List<Product> products) {
+        List<Long> productIds = products.stream().map(Product::getId).toList();
+        fetchListingAssociations(productIds);
+        Map<String, List<ProductImageResponse>> imagesByProduct = productImageService
+                .getProductImagesByProductIds(productIds);
+        return products.stream()
+                .map(product -> toProductResponseWithImages(
+                        product, imagesByProduct.getOrDefault(product.getPublicId(), List.of())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Unbind the entity manager that open-in-view bound to the request (or to the async thread of a
+     * streaming response), so each catalog batch runs on its own entity manager, closed with its
+     * transaction. Joining the request's one would keep every batch managed and its connection held
+     * until the response ends.
+     */
+    private Object suspendRequestEntityManager() {
+        return TransactionSynchronizationManager.unbindResourceIfPossible(entityManagerFactory);
+    }
+
+    private void resumeRequestEntityManager(Object requestEntityManager) {
+        if (requestEntityManager != null) {
+            TransactionSynchronizationManager.bindResource(entityManagerFactory, requestEntityManager);
+        }
+    }
+
+    private CatalogBatch readCatalogBatch(long afterId) {
+        return transactionTemplate.execute(status -> {
+            List<Product> products = productRepository.findAllAfter(afterId, PageRequest.ofSize(exportBatchSize));
+            long lastId = products.isEmpty() ? afterId : products.get(products.size() - 1).getId();
+            return new CatalogBatch(lastId, toProductResponsesWithImages(products));
+        });
+    }
+
+    private ProductCardResponse toProductCardResponse(ProductCardView card) {
+        String primaryImageUrl = card.primaryImagePublicId() != null
+                ? productImageService.buildImageUrl(card.primaryImagePublicId())
+                : null;
+        return new ProductCardResponse(
+            card.publicId(),
+            card.name(),
+            card.slug(),
+            card.price(),
+            card.salePrice(),
+            card.stockQuantity() > 0,
+            primaryImageUrl
+        );
+    }
+
+    /**
+     * Initialize categories (with parents) and attribute values (with attribute and option)
+     * for already-loaded products, so mapping a page costs a fixed number of queries
+     * instead of several lazy selects per product.
+     */
+    private void fetchListingAssociations(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        productRepository.findWithCategoriesByIdIn(productIds);
+        productRepository.findWithAttributeValuesByIdIn(productIds);
+    }
+
+    private ProductResponse toProductResponseWithImages(Product product, List<ProductImageResponse> images) {
+        return withImages(productMapper.toProductResponse(product), images);
+    }
+
+    private ProductResponse withImages(ProductResponse response, List<ProductImageResponse> images) {
         return new ProductResponse(
             response.id(),
             response.sku(),
@@ -369,8 +758,15 @@ public class ProductService {
             response.stockQuantity(),
             response.categories(),
             response.attributes(),
-            images  // Actual images from database
+            images,  // Actual images from database
+            response.updatedAt()
         );
     }
+
+    /**
+     * One keyset batch of the catalog and the last product ID it covers, where the next batch starts
+     */
+    private record CatalogBatch(long lastId, List<ProductResponse> products) {
+    }
 }
 
@@ -0,0 +1,66 @@
+package com.saveitforlater.ecommerce.domain.product;
+
+import com.saveitforlater.ecommerce.persistence.entity.product.Product;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.function.Function;
+
+/**
+ * Sort orders supported by cursor (keyset) pagination.
+ * Every order is made unique by using the product ID as tie-breaker in the same direction.
+ */
+public enum ProductSort {
+
+    NAME("name", Sort.Direction.ASC, Product::getName, Function.identity()),
+    // Price sorts order by the price the customer pays (sale price when set)
+    PRICE_ASC("effectivePrice", Sort.Direction.ASC, p -> p.getEffectivePrice().toPlainString(), BigDecimal::new),
+    PRICE_DESC("effectivePrice", Sort.Direction.DESC, p -> p.getEffectivePrice().toPlainString(), BigDecimal::new),
+    NEWEST("createdAt", Sort.Direction.DESC, p -> p.getCreatedAt().toString(), Instant::parse),
+    // Most viewed, added to carts and purchased first
+    POPULARITY("popularity", Sort.Direction.DESC, p -> Long.toString(p.getPopularity()), Long::valueOf);
+
+    private final String property;
+    private final Sort.Direction direction;
+    private final Function<Product, String> keyExtractor;
+    private final Function<String, ? extends Comparable<?>> keyParser;
+
+    ProductSort(String property, Sort.Direction direction,
+                Function<Product, String> keyExtractor,
+                Function<String, ? extends Comparable<?>> keyParser) {
+        this.property = property;
+        this.direction = direction;
+        this.keyExtractor = keyExtractor;
+        this.keyParser = keyParser;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public boolean isDescending() {
+        return direction.isDescending();
+    }
+
+    /**
+     * Sort for the query: the sort key followed by the ID tie-breaker
+     */
+    public Sort toSort() {
+        return Sort.by(new Sort.Order(direction, property), new Sort.Order(direction, "id"));
+    }
+
+    /**
+     * String form of the sort key stored in a cursor
+     */
+    public String extractKey(Product product) {
+        return keyExtractor.apply(product);
+    }
+
+    /**
+     * Parse a sort key read back from a cursor into the attribute's Java type
+     */
+    public Comparable<?> parseKey(String key) {
+        return keyParser.apply(key);
+    }
+}
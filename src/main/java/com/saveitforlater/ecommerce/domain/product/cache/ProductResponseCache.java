@@ -0,0 +1,204 @@
+package com.saveitforlater.ecommerce.domain.product.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.saveitforlater.ecommerce.api.product.dto.ProductResponse;
+import com.saveitforlater.ecommerce.domain.catalog.CatalogVersion;
+import com.saveitforlater.ecommerce.domain.category.event.CategoryChangedEvent;
+import com.saveitforlater.ecommerce.domain.product.event.AttributeChangedEvent;
+import com.saveitforlater.ecommerce.domain.product.event.ProductChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Bounded read-through cache of assembled {@link ProductResponse}s.
+ * <p>
+ * One entry per product, reachable by public ID, SKU and slug. The cache is bounded by the total
+ * serialized size of its entries and evicts least recently used entries first. Entries are
+ * invalidated when a {@link ProductChangedEvent} is committed, and all entries are dropped when a
+ * category or attribute changes since responses embed their names; a load that raced with an
+ * invalidation is returned to its caller but not cached. Entries must not depend on the request:
+ * image URLs are left out and added by the caller per request.
+ */
+@Slf4j
+@Component
+public class ProductResponseCache {
+
+    private static final String METRIC_PREFIX = "product.response.cache";
+
+    private final ObjectMapper objectMapper;
+    private final long maxSizeBytes;
+
+    // publicId -> entry, in access order for LRU eviction
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    // sku / slug -> publicId
+    private final Map<String, String> skuIndex = new HashMap<>();
+    private final Map<String, String> slugIndex = new HashMap<>();
+    private long sizeBytes = 0;
+    // Incremented on every invalidation; a load only caches its result if no invalidation happened meanwhile
+    private long invalidations = 0;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public ProductResponseCache(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                @Value("${app.cache.product.max-size-bytes:33554432}") long maxSizeBytes) {
+        this.objectMapper = objectMapper;
+        this.maxSizeBytes = maxSizeBytes;
+        this.hits = Counter.builder(METRIC_PREFIX + ".requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder(METRIC_PREFIX + ".requests").tag("result", "miss").register(meterRegistry);
+        this.evictions = Counter.builder(METRIC_PREFIX + ".evictions").register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".entries", this, ProductResponseCache::entryCount).register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".size", this, ProductResponseCache::sizeBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public ProductResponse getByPublicId(String publicId, Supplier<ProductResponse> loader) {
+        return get(publicId, loader);
+    }
+
+    public ProductResponse getBySku(String sku, Supplier<ProductResponse> loader) {
+        String publicId;
+        synchronized (this) {
+            publicId = skuIndex.get(sku);
+        }
+        return get(publicId, loader);
+    }
+
+    public ProductResponse getBySlug(String slug, Supplier<ProductResponse> loader) {
+        String publicId;
+        synchronized (this) {
+            publicId = slugIndex.get(slug);
+        }
+        return get(publicId, loader);
+    }
+
+    @Order(CatalogVersion.BEFORE_BUMP)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        invalidate(event.publicIds());
+    }
+
+    @Order(CatalogVersion.BEFORE_BUMP)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        invalidateAll();
+    }
+
+    @Order(CatalogVersion.BEFORE_BUMP)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAttributeChanged(AttributeChangedEvent event) {
+        invalidateAll();
+    }
+
+    /**
+     * Drop the entries of the products under all of their keys
+     */
+    public synchronized void invalidate(Collection<String> publicIds) {
+        invalidations++;
+        publicIds.forEach(this::removeEntry);
+    }
+
+    /**
+     * Drop every entry
+     */
+    public synchronized void invalidateAll() {
+        invalidations++;
+        entries.clear();
+        skuIndex.clear();
+        slugIndex.clear();
+        sizeBytes = 0;
+    }
+
+    private ProductResponse get(String publicId, Supplier<ProductResponse> loader) {
+        long invalidationsAtStart;
+        synchronized (this) {
+            Entry entry = publicId != null ? entries.get(publicId) : null;
+            if (entry != null) {
+                hits.increment();
+                return entry.response();
+            }
+            invalidationsAtStart = invalidations;
+        }
+
+        misses.increment();
+        // Loaded outside the lock; a concurrent miss for the same product may load it twice
+        ProductResponse response = loader.get();
+        long size = estimateSize(response);
+
+        synchronized (this) {
+            if (invalidations == invalidationsAtStart && size <= maxSizeBytes) {
+                put(response, size);
+            }
+        }
+        return response;
+    }
+
+    private void put(ProductResponse response, long size) {
+        removeEntry(response.id());
+        entries.put(response.id(), new Entry(response, size));
+        skuIndex.put(response.sku(), response.id());
+        slugIndex.put(response.slug(), response.id());
+        sizeBytes += size;
+
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (sizeBytes > maxSizeBytes && eldest.hasNext()) {
+            Entry evicted = eldest.next().getValue();
+            eldest.remove();
+            removeAliases(evicted.response());
+            sizeBytes -= evicted.size();
+            evictions.increment();
+        }
+    }
+
+    private void removeEntry(String publicId) {
+        Entry removed = entries.remove(publicId);
+        if (removed != null) {
+            removeAliases(removed.response());
+            sizeBytes -= removed.size();
+        }
+    }
+
+    private void removeAliases(ProductResponse response) {
+        skuIndex.remove(response.sku(), response.id());
+        slugIndex.remove(response.slug(), response.id());
+    }
+
+    /**
+     * Serialized JSON size, a stable proxy for the memory an entry holds
+     */
+    private long estimateSize(ProductResponse response) {
+        try {
+            return objectMapper.writeValueAsBytes(response).length;
+        } catch (JsonProcessingException e) {
+            log.warn("Could not size product response {} for caching: {}", response.id(), e.getMessage());
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private synchronized int entryCount() {
+        return entries.size();
+    }
+
+    private synchronized long sizeBytes() {
+        return sizeBytes;
+    }
+
+    private record Entry(ProductResponse response, long size) {
+    }
+}
@@ -0,0 +1,8 @@
+package com.saveitforlater.ecommerce.domain.product.event;
+
+/**
+ * Published when an attribute or one of its options is created, renamed or (de)activated.
+ * Carries the public ID of the attribute the change belongs to.
+ */
+public record AttributeChangedEvent(String attributePublicId) {
+}
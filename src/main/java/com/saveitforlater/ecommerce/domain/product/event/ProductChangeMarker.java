@@ -0,0 +1,29 @@
+package com.saveitforlater.ecommerce.domain.product.event;
+
+import com.saveitforlater.ecommerce.persistence.entity.product.Product;
+import com.saveitforlater.ecommerce.persistence.repository.product.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Records changes made to a product only through its child tables (images, attribute values).
+ * <p>
+ * The product row is not written by such changes, so its update time, which validates its cached
+ * HTTP responses, is bumped with a bulk update and the read models are notified. Callers that also
+ * save the product entity bump its update time on the entity instead and publish the event themselves.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductChangeMarker {
+
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public void markChanged(Product product) {
+        productRepository.touch(product.getId(), Instant.now());
+        eventPublisher.publishEvent(ProductChangedEvent.updated(product));
+    }
+}
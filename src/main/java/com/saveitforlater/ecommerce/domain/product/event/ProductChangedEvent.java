@@ -0,0 +1,60 @@
+package com.saveitforlater.ecommerce.domain.product.event;
+
+import com.saveitforlater.ecommerce.persistence.entity.product.Product;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Published by the product services whenever products or data derived from them change.
+ * In-memory read models (search index etc.) listen for it after the transaction commits.
+ * <p>
+ * One event covers every product changed the same way by one operation, so read models can
+ * re-read them in one batch.
+ *
+ * @param products internal ID -> public ID of the changed products
+ */
+public record ProductChangedEvent(Map<Long, String> products, Type type) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public ProductChangedEvent {
+        products = Map.copyOf(products);
+    }
+
+    public static ProductChangedEvent created(Product product) {
+        return new ProductChangedEvent(Map.of(product.getId(), product.getPublicId()), Type.CREATED);
+    }
+
+    public static ProductChangedEvent updated(Product product) {
+        return new ProductChangedEvent(Map.of(product.getId(), product.getPublicId()), Type.UPDATED);
+    }
+
+    public static ProductChangedEvent updated(Collection<Product> products) {
+        return new ProductChangedEvent(products.stream()
+                .collect(Collectors.toMap(Product::getId, Product::getPublicId, (first, second) -> first)),
+                Type.UPDATED);
+    }
+
+    public static ProductChangedEvent deleted(Product product) {
+        return new ProductChangedEvent(Map.of(product.getId(), product.getPublicId()), Type.DELETED);
+    }
+
+    public Set<Long> productIds() {
+        return products.keySet();
+    }
+
+    public Collection<String> publicIds() {
+        return products.values();
+    }
+
+    public boolean isDeleted() {
+        return type == Type.DELETED;
+    }
+}
@@ -0,0 +1,18 @@
+package com.saveitforlater.ecommerce.domain.product.event;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published by ProductStatsCounters once a flush has added to {@code product.popularity}.
+ * Popularity is not part of a product's content, so it is not a {@link ProductChangedEvent};
+ * read models ranked by popularity re-read it for the flushed products.
+ *
+ * @param publicIds public IDs of the products whose popularity changed
+ */
+public record ProductPopularityChangedEvent(Collection<String> publicIds) {
+
+    public ProductPopularityChangedEvent {
+        publicIds = List.copyOf(publicIds);
+    }
+}
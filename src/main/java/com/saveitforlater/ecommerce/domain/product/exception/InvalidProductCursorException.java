@@ -0,0 +1,16 @@
+package com.saveitforlater.ecommerce.domain.product.exception;
+
+public class InvalidProductCursorException extends RuntimeException {
+    public InvalidProductCursorException(String message) {
+        super(message);
+    }
+
+    public static InvalidProductCursorException malformed(String cursor) {
+        return new InvalidProductCursorException("Malformed product cursor: " + cursor);
+    }
+
+    public static InvalidProductCursorException sortMismatch(String cursorSort, String requestedSort) {
+        return new InvalidProductCursorException(
+                "Cursor was issued for sort " + cursorSort + " but sort " + requestedSort + " was requested");
+    }
+}
@@ -0,0 +1,597 @@
+package com.saveitforlater.ecommerce.domain.product.facet;
+
+import com.saveitforlater.ecommerce.api.product.dto.ProductFacets;
+import com.saveitforlater.ecommerce.api.product.dto.ProductFilterRequest;
+import com.saveitforlater.ecommerce.domain.catalog.CatalogVersion;
+import com.saveitforlater.ecommerce.domain.catalog.ReadModelBuild;
+import com.saveitforlater.ecommerce.domain.category.event.CategoryChangedEvent;
+import com.saveitforlater.ecommerce.domain.category.tree.CategoryTreeCache;
+import com.saveitforlater.ecommerce.domain.product.event.AttributeChangedEvent;
+import com.saveitforlater.ecommerce.domain.product.event.ProductChangedEvent;
+import com.saveitforlater.ecommerce.persistence.entity.category.Category;
+import com.saveitforlater.ecommerce.persistence.entity.product.Attribute;
+import com.saveitforlater.ecommerce.persistence.entity.product.AttributeOption;
+import com.saveitforlater.ecommerce.persistence.entity.product.Product;
+import com.saveitforlater.ecommerce.persistence.projection.ProductFacetRow;
+import com.saveitforlater.ecommerce.persistence.projection.ProductLink;
+import com.saveitforlater.ecommerce.persistence.repository.category.CategoryRepository;
+import com.saveitforlater.ecommerce.persistence.repository.product.AttributeOptionRepository;
+import com.saveitforlater.ecommerce.persistence.repository.product.AttributeRepository;
+import com.saveitforlater.ecommerce.persistence.repository.product.ProductAttributeValueRepository;
+import com.saveitforlater.ecommerce.persistence.repository.product.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory bitmap index answering product filters and facet counts.
+ * <p>
+ * Products are addressed by their database ID as bit position. The index keeps one bitmap per
+ * attribute option, per category, per price range and one for in-stock products; a filter
+ * combination is answered with bitmap AND/OR and each facet count is a single intersection
+ * cardinality. Matching follows {@code ProductSpecification.withFilters}: values within an
+ * attribute or within the category list (expanded to subcategories on request) are OR-ed,
+ * everything else is AND-ed.
+ * <p>
+ * Built from the database once the application is ready and kept current from product,
+ * attribute and category change events after commit.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductFacetIndex {
+
+    private final ProductRepository productRepository;
+    private final ProductAttributeValueRepository productAttributeValueRepository;
+    private final AttributeRepository attributeRepository;
+    private final AttributeOptionRepository attributeOptionRepository;
+    private final CategoryRepository categoryRepository;
+    private final CategoryTreeCache categoryTreeCache;
+
+    @Value("${app.search.index.batch-size:1000}")
+    private int batchSize;
+
+    // Boundaries between price ranges; the first range starts at zero and the last is open-ended
+    @Value("${app.search.facets.price-ranges:25,50,100,250,500,1000}")
+    private BigDecimal[] priceRangeBounds;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, FacetDocument> documents = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private final BitSet inStock = new BitSet();
+    private final Map<Long, BitSet> byOption = new HashMap<>();
+    private final Map<Long, BitSet> byCategory = new HashMap<>();
+    // Allocated by the build; like the other bitmaps only read and written under the lock
+    private BitSet[] byPriceRange;
+
+    // Metadata for resolving filter names and rendering facets, replaced wholesale on change
+    private volatile Map<Long, AttributeInfo> attributes = Map.of();
+    private volatile Map<Long, OptionInfo> options = Map.of();
+    private volatile Map<Long, CategoryInfo> categories = Map.of();
+
+    private final ReadModelBuild buildState = new ReadModelBuild();
+
+    public boolean isReady() {
+        return buildState.isReady();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long start = System.currentTimeMillis();
+        loadAttributeMetadata();
+        loadCategoryMetadata();
+
+        lock.writeLock().lock();
+        try {
+            byPriceRange = new BitSet[priceRangeBounds.length + 1];
+            for (int i = 0; i < byPriceRange.length; i++) {
+                byPriceRange[i] = new BitSet();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long lastId = 0L;
+        int indexed = 0;
+        List<ProductFacetRow> batch;
+        do {
+            batch = productRepository.findFacetRowsAfter(lastId, PageRequest.ofSize(batchSize));
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).id();
+                index(loadDocuments(batch));
+            }
+            indexed += batch.size();
+        } while (batch.size() == batchSize);
+
+        reindex(buildState.finish());
+
+        log.info("Built product facet index: {} products, {} options, {} categories in {} ms",
+                indexed, byOption.size(), byCategory.size(), System.currentTimeMillis() - start);
+    }
+
+    @Order(CatalogVersion.BEFORE_BUMP)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (buildState.deferIfBuilding(event.productIds())) {
+            return;
+        }
+        if (event.isDeleted()) {
+            remove(event.productIds());
+        } else {
+            reindex(event.productIds());
+        }
+    }
+
+    @Order(CatalogVersion.BEFORE_BUMP)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAttributeChanged(AttributeChangedEvent event) {
+        loadAttributeMetadata();
+    }
+
+    @Order(CatalogVersion.BEFORE_BUMP)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        loadCategoryMetadata();
+        if (event.isDeleted()) {
+            // product_category rows are removed by ON DELETE CASCADE
+            lock.writeLock().lock();
+            try {
+                byCategory.remove(event.categoryId());
+                documents.values().forEach(document -> document.categoryIds().remove(event.categoryId()));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Evaluate the filter (attributes, categories, price range, stock) and count facets.
+     *
+     * @param filter    the filter; its search term is ignored
+     * @param searchIds products matching the search term, or null when there is no search term
+     */
+    public ProductFacetResult search(ProductFilterRequest filter, Collection<Long> searchIds) {
+        lock.readLock().lock();
+        try {
+            BitSet base = (BitSet) live.clone();
+            if (searchIds != null) {
+                base.and(toBitSet(searchIds));
+            }
+
+            BitSet categoryFilter = categoryFilter(filter);
+            BitSet stockFilter = filter.inStock() == null ? null : stockFilter(filter.inStock());
+            BitSet priceFilter = priceFilter(base, filter.minPrice(), filter.maxPrice());
+            Map<String, BitSet> attributeFilters = attributeFilters(filter.attributes());
+
+            List<BitSet> allFilters = new ArrayList<>(attributeFilters.values());
+            allFilters.add(categoryFilter);
+            allFilters.add(stockFilter);
+            allFilters.add(priceFilter);
+            BitSet result = intersect(base, allFilters);
+
+            ProductFacets facets = new ProductFacets(
+                    attributeFacets(base, result, categoryFilter, stockFilter, priceFilter, attributeFilters, filter),
+                    categoryFacets(intersect(base, without(allFilters, categoryFilter)), filter),
+                    priceRangeFacets(intersect(base, without(allFilters, priceFilter))),
+                    stockFacet(intersect(base, without(allFilters, stockFilter))));
+
+            return new ProductFacetResult(result.stream().mapToObj(Long::valueOf).toList(), facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- Facet counting ---
+
+    private List<ProductFacets.AttributeFacet> attributeFacets(BitSet base, BitSet result, BitSet categoryFilter,
+                                                               BitSet stockFilter, BitSet priceFilter,
+                                                               Map<String, BitSet> attributeFilters,
+                                                               ProductFilterRequest filter) {
+        Map<Long, List<OptionInfo>> optionsByAttribute = options.values().stream()
+                .filter(OptionInfo::active)
+                .collect(Collectors.groupingBy(OptionInfo::attributeId));
+
+        List<ProductFacets.AttributeFacet> facets = new ArrayList<>();
+        attributes.values().stream()
+                .filter(AttributeInfo::active)
+                .sorted(Comparator.comparing(AttributeInfo::name, String.CASE_INSENSITIVE_ORDER))
+                .forEach(attribute -> {
+                    String key = attribute.name().toLowerCase();
+                    BitSet scope = result;
+                    if (attributeFilters.containsKey(key)) {
+                        // Count this attribute against every filter except its own
+                        List<BitSet> otherFilters = new ArrayList<>();
+                        attributeFilters.forEach((name, bits) -> {
+                            if (!name.equals(key)) {
+                                otherFilters.add(bits);
+                            }
+                        });
+                        otherFilters.add(categoryFilter);
+                        otherFilters.add(stockFilter);
+                        otherFilters.add(priceFilter);
+                        scope = intersect(base, otherFilters);
+                    }
+                    Set<String> selected = selectedOptions(filter.attributes(), key);
+
+                    List<ProductFacets.OptionCount> counts = new ArrayList<>();
+                    for (OptionInfo option : optionsByAttribute.getOrDefault(attribute.id(), List.of())) {
+                        long count = intersectionCount(scope, byOption.get(option.id()));
+                        boolean isSelected = selected.contains(option.name().toLowerCase());
+                        if (count > 0 || isSelected) {
+                            counts.add(new ProductFacets.OptionCount(
+                                    option.publicId(), option.name(), count, isSelected));
+                        }
+                    }
+                    if (!counts.isEmpty()) {
+                        counts.sort(Comparator.comparing(ProductFacets.OptionCount::optionName,
+                                String.CASE_INSENSITIVE_ORDER));
+                        facets.add(new ProductFacets.AttributeFacet(attribute.publicId(), attribute.name(), counts));
+                    }
+                });
+        return facets;
+    }
+
+    private List<ProductFacets.CategoryFacet> categoryFacets(BitSet scope, ProductFilterRequest filter) {
+        Set<String> selected = filter.categoryIds() == null ? Set.of() : new HashSet<>(filter.categoryIds());
+        List<ProductFacets.CategoryFacet> facets = new ArrayList<>();
+        for (CategoryInfo category : categories.values()) {
+            long count = intersectionCount(scope, byCategory.get(category.id()));
+            boolean isSelected = selected.contains(category.publicId());
+            if (count > 0 || isSelected) {
+                facets.add(new ProductFacets.CategoryFacet(category.publicId(), category.name(), count, isSelected));
+            }
+        }
+        facets.sort(Comparator.comparing(ProductFacets.CategoryFacet::categoryName, String.CASE_INSENSITIVE_ORDER));
+        return facets;
+    }
+
+    private List<ProductFacets.PriceRangeFacet> priceRangeFacets(BitSet scope) {
+        List<ProductFacets.PriceRangeFacet> facets = new ArrayList<>();
+        for (int i = 0; i < byPriceRange.length; i++) {
+            facets.add(new ProductFacets.PriceRangeFacet(rangeFrom(i), rangeTo(i),
+                    intersectionCount(scope, byPriceRange[i])));
+        }
+        return facets;
+    }
+
+    private ProductFacets.StockFacet stockFacet(BitSet scope) {
+        long inStockCount = intersectionCount(scope, inStock);
+        return new ProductFacets.StockFacet(inStockCount, scope.cardinality() - inStockCount);
+    }
+
+    // --- Filter evaluation ---
+
+    private BitSet categoryFilter(ProductFilterRequest filter) {
+        if (filter.categoryIds() == null || filter.categoryIds().isEmpty()) {
+            return null;
+        }
+        Set<String> wanted = filter.includesSubcategories()
+                ? categoryTreeCache.current().withDescendants(filter.categoryIds())
+                : new HashSet<>(filter.categoryIds());
+        BitSet bits = new BitSet();
+        for (CategoryInfo category : categories.values()) {
+            BitSet categoryBits = byCategory.get(category.id());
+            if (wanted.contains(category.publicId()) && categoryBits != null) {
+                bits.or(categoryBits);
+            }
+        }
+        return bits;
+    }
+
+    private BitSet stockFilter(boolean wantInStock) {
+        if (wantInStock) {
+            return inStock;
+        }
+        BitSet outOfStock = (BitSet) live.clone();
+        outOfStock.andNot(inStock);
+        return outOfStock;
+    }
+
+    /**
+     * Same rule as the SQL filter: the effective price, the sale price when set and otherwise the list
+     * price, must be in range. Price ranges that lie entirely within the filter are taken whole; only
+     * the candidates in the ranges the filter bounds cut through are checked one by one.
+     */
+    private BitSet priceFilter(BitSet candidates, BigDecimal minPrice, BigDecimal maxPrice) {
+        if (minPrice == null && maxPrice == null) {
+            return null;
+        }
+        BitSet bits = new BitSet();
+        for (int i = 0; i < byPriceRange.length; i++) {
+            BigDecimal from = rangeFrom(i);
+            BigDecimal to = rangeTo(i);
+            boolean below = minPrice != null && to != null && to.compareTo(minPrice) <= 0;
+            boolean above = maxPrice != null && from.compareTo(maxPrice) > 0;
+            if (below || above) {
+                continue;
+            }
+            boolean startsInside = minPrice == null || from.compareTo(minPrice) >= 0;
+            boolean endsInside = maxPrice == null || (to != null && to.compareTo(maxPrice) <= 0);
+            if (startsInside && endsInside) {
+                bits.or(byPriceRange[i]);
+                continue;
+            }
+            BitSet edge = (BitSet) byPriceRange[i].clone();
+            edge.and(candidates);
+            edge.stream().forEach(bit -> {
+                if (matchesPrice(documents.get((long) bit), minPrice, maxPrice)) {
+                    bits.set(bit);
+                }
+            });
+        }
+        return bits;
+    }
+
+    private static boolean matchesPrice(FacetDocument document, BigDecimal minPrice, BigDecimal maxPrice) {
+        BigDecimal effectivePrice = Product.effectivePriceOf(document.price(), document.salePrice());
+        return (minPrice == null || effectivePrice.compareTo(minPrice) >= 0)
+                && (maxPrice == null || effectivePrice.compareTo(maxPrice) <= 0);
+    }
+
+    /**
+     * One OR-ed bitmap per filtered attribute, keyed by lower-cased attribute name.
+     * An attribute or option name that does not exist yields an empty bitmap.
+     */
+    private Map<String, BitSet> attributeFilters(List<ProductFilterRequest.AttributeFilter> attributeFilters) {
+        Map<String, BitSet> filters = new LinkedHashMap<>();
+        if (attributeFilters == null) {
+            return filters;
+        }
+        for (ProductFilterRequest.AttributeFilter attributeFilter : attributeFilters) {
+            if (!StringUtils.hasText(attributeFilter.attributeName())
+                    || attributeFilter.optionNames() == null
+                    || attributeFilter.optionNames().isEmpty()) {
+                continue;
+            }
+            String key = attributeFilter.attributeName().toLowerCase();
+            Set<String> optionNames = attributeFilter.optionNames().stream()
+                    .map(String::toLowerCase)
+                    .collect(Collectors.toSet());
+
+            BitSet bits = new BitSet();
+            for (OptionInfo option : options.values()) {
+                AttributeInfo attribute = attributes.get(option.attributeId());
+                BitSet optionBits = byOption.get(option.id());
+                if (attribute != null && optionBits != null
+                        && attribute.name().toLowerCase().equals(key)
+                        && optionNames.contains(option.name().toLowerCase())) {
+                    bits.or(optionBits);
+                }
+            }
+            // The same attribute filtered twice must satisfy both filters
+            filters.merge(key, bits, (existing, added) -> {
+                existing.and(added);
+                return existing;
+            });
+        }
+        return filters;
+    }
+
+    private static Set<String> selectedOptions(List<ProductFilterRequest.AttributeFilter> attributeFilters,
+                                               String attributeKey) {
+        if (attributeFilters == null) {
+            return Set.of();
+        }
+        return attributeFilters.stream()
+                .filter(f -> f.attributeName() != null && f.attributeName().toLowerCase().equals(attributeKey))
+                .filter(f -> f.optionNames() != null)
+                .flatMap(f -> f.optionNames().stream())
+                .map(String::toLowerCase)
+                .collect(Collectors.toSet());
+    }
+
+    private static BitSet intersect(BitSet base, List<BitSet> filters) {
+        BitSet result = (BitSet) base.clone();
+        for (BitSet filter : filters) {
+            if (filter != null) {
+                result.and(filter);
+            }
+        }
+        return result;
+    }
+
+    private static List<BitSet> without(List<BitSet> filters, BitSet excluded) {
+        List<BitSet> remaining = new ArrayList<>(filters);
+        remaining.removeIf(filter -> filter == excluded);
+        return remaining;
+    }
+
+    private static long intersectionCount(BitSet scope, BitSet bits) {
+        if (bits == null) {
+            return 0;
+        }
+        BitSet intersection = (BitSet) bits.clone();
+        intersection.and(scope);
+        return intersection.cardinality();
+    }
+
+    private static BitSet toBitSet(Collection<Long> ids) {
+        BitSet bits = new BitSet();
+        ids.forEach(id -> bits.set(Math.toIntExact(id)));
+        return bits;
+    }
+
+    // --- Maintenance ---
+
+    /**
+     * Re-read the products in one batch; those no longer found are removed. The read happens under
+     * the same monitor as the update, so a reindex that read older rows can never overwrite a newer one.
+     */
+    private synchronized void reindex(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        List<FacetDocument> loaded = loadDocuments(productRepository.findFacetRowsByIdIn(productIds));
+        Set<Long> missing = new HashSet<>(productIds);
+        lock.writeLock().lock();
+        try {
+            for (FacetDocument document : loaded) {
+                indexLocked(document);
+                missing.remove(document.id());
+            }
+            missing.forEach(this::removeLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<FacetDocument> loadDocuments(List<ProductFacetRow> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = rows.stream().map(ProductFacetRow::id).toList();
+        Map<Long, Set<Long>> categoryIds = groupLinks(productRepository.findCategoryLinksByProductIdIn(ids));
+        Map<Long, Set<Long>> optionIds = groupLinks(productAttributeValueRepository.findActiveOptionLinksByProductIdIn(ids));
+
+        return rows.stream()
+                .map(row -> new FacetDocument(row.id(), row.price(), row.salePrice(), row.stockQuantity(),
+                        categoryIds.getOrDefault(row.id(), new HashSet<>()),
+                        optionIds.getOrDefault(row.id(), new HashSet<>())))
+                .toList();
+    }
+
+    private static Map<Long, Set<Long>> groupLinks(List<ProductLink> links) {
+        return links.stream().collect(Collectors.groupingBy(ProductLink::productId,
+                Collectors.mapping(ProductLink::targetId, Collectors.toCollection(HashSet::new))));
+    }
+
+    private void index(List<FacetDocument> loaded) {
+        lock.writeLock().lock();
+        try {
+            loaded.forEach(this::indexLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void indexLocked(FacetDocument document) {
+        int bit = Math.toIntExact(document.id());
+        removeLocked(document.id());
+        documents.put(document.id(), document);
+        live.set(bit);
+        if (document.stockQuantity() > 0) {
+            inStock.set(bit);
+        }
+        byPriceRange[priceRange(document)].set(bit);
+        document.categoryIds().forEach(id -> byCategory.computeIfAbsent(id, k -> new BitSet()).set(bit));
+        document.optionIds().forEach(id -> byOption.computeIfAbsent(id, k -> new BitSet()).set(bit));
+    }
+
+    private synchronized void remove(Collection<Long> productIds) {
+        lock.writeLock().lock();
+        try {
+            productIds.forEach(this::removeLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(Long productId) {
+        FacetDocument existing = documents.remove(productId);
+        if (existing == null) {
+            return;
+        }
+        int bit = Math.toIntExact(productId);
+        live.clear(bit);
+        inStock.clear(bit);
+        byPriceRange[priceRange(existing)].clear(bit);
+        existing.categoryIds().forEach(id -> clearBit(byCategory, id, bit));
+        existing.optionIds().forEach(id -> clearBit(byOption, id, bit));
+    }
+
+    private static void clearBit(Map<Long, BitSet> bitmaps, Long key, int bit) {
+        BitSet bits = bitmaps.get(key);
+        if (bits != null) {
+            bits.clear(bit);
+            if (bits.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Lower bound of a price range, inclusive
+     */
+    private BigDecimal rangeFrom(int range) {
+        return range == 0 ? BigDecimal.ZERO : priceRangeBounds[range - 1];
+    }
+
+    /**
+     * Upper bound of a price range, exclusive; null for the last, open-ended range
+     */
+    private BigDecimal rangeTo(int range) {
+        return range < priceRangeBounds.length ? priceRangeBounds[range] : null;
+    }
+
+    /**
+     * Price range of the price a shopper pays: the sale price when set, otherwise the list price
+     */
+    private int priceRange(FacetDocument document) {
+        BigDecimal effectivePrice = Product.effectivePriceOf(document.price(), document.salePrice());
+        int range = 0;
+        while (range < priceRangeBounds.length && effectivePrice.compareTo(priceRangeBounds[range]) >= 0) {
+            range++;
+        }
+        return range;
+    }
+
+    private void loadAttributeMetadata() {
+        attributes = attributeRepository.findAll().stream()
+                .collect(Collectors.toUnmodifiableMap(Attribute::getId, AttributeInfo::of));
+        options = attributeOptionRepository.findAll().stream()
+                .collect(Collectors.toUnmodifiableMap(AttributeOption::getId, OptionInfo::of));
+    }
+
+    private void loadCategoryMetadata() {
+        categories = categoryRepository.findAll().stream()
+                .collect(Collectors.toUnmodifiableMap(Category::getId, CategoryInfo::of));
+    }
+
+    private record FacetDocument(Long id, BigDecimal price, BigDecimal salePrice, int stockQuantity,
+                                 Set<Long> categoryIds, Set<Long> optionIds) {
+    }
+
+    private record AttributeInfo(Long id, String publicId, String name, boolean active) {
+        static AttributeInfo of(Attribute attribute) {
+            return new AttributeInfo(attribute.getId(), attribute.getPublicId(), attribute.getName(),
+                    attribute.isActive());
+        }
+    }
+
+    private record OptionInfo(Long id, Long attributeId, String publicId, String name, boolean active) {
+        static OptionInfo of(AttributeOption option) {
+            return new OptionInfo(option.getId(), Objects.requireNonNull(option.getAttribute()).getId(),
+                    option.getPublicId(), option.getName(), option.isActive());
+        }
+    }
+
+    private record CategoryInfo(Long id, String publicId, String name) {
+        static CategoryInfo of(Category category) {
+            return new CategoryInfo(category.getId(), category.getPublicId(), category.getName());
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.saveitforlater.ecommerce.domain.product.facet;
+
+import com.saveitforlater.ecommerce.api.product.dto.ProductFacets;
+
+import java.util.List;
+
+/**
+ * IDs of the products matching a faceted query (ascending) and the facet counts for them.
+ */
+public record ProductFacetResult(List<Long> productIds, ProductFacets facets) {
+}
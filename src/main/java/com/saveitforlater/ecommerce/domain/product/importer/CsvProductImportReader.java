@@ -0,0 +1,226 @@
+package com.saveitforlater.ecommerce.domain.product.importer;
+
+import com.saveitforlater.ecommerce.api.product.dto.CreateProductRequest;
+import com.saveitforlater.ecommerce.api.product.dto.ProductAttributeDto;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads RFC 4180 CSV with a header row. Columns are matched by name (case-insensitive):
+ * sku, name, slug, shortDescription, description, price, salePrice, stockQuantity, categoryIds, attributes.
+ * <p>
+ * categoryIds holds category public IDs separated by {@code |}; attributes holds
+ * {@code Attribute:Option} pairs separated by {@code |}, e.g. {@code Color:Red|Color:Blue|Size:M}.
+ */
+class CsvProductImportReader implements ProductImportReader {
+
+    private static final String LIST_SEPARATOR = "\\|";
+    private static final List<String> REQUIRED_COLUMNS = List.of("sku", "name", "price", "stockquantity");
+
+    private final Reader reader;
+    private Map<String, Integer> columns;
+    private int row = 0;
+    private int lookahead = -2; // -2: nothing buffered
+    private boolean exhausted = false;
+
+    CsvProductImportReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public ImportRow next() throws IOException {
+        if (columns == null) {
+            readHeader();
+        }
+        if (exhausted) {
+            return null;
+        }
+        List<String> record;
+        do {
+            try {
+                record = readRecord();
+            } catch (IllegalArgumentException e) {
+                // Malformed tail of the file: report it as a row and stop reading
+                exhausted = true;
+                return ImportRow.failed(row + 1, e.getMessage());
+            }
+            if (record == null) {
+                return null;
+            }
+        } while (record.size() == 1 && record.get(0).isBlank());
+
+        row++;
+        try {
+            return ImportRow.of(row, toRequest(record));
+        } catch (IllegalArgumentException e) {
+            return ImportRow.failed(row, e.getMessage());
+        }
+    }
+
+    private void readHeader() throws IOException {
+        List<String> header = readRecord();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV import is empty, a header row is required");
+        }
+        columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String column : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new IllegalArgumentException("CSV header is missing required column: " + column);
+            }
+        }
+    }
+
+    private CreateProductRequest toRequest(List<String> record) {
+        return new CreateProductRequest(
+                value(record, "sku"),
+                value(record, "name"),
+                value(record, "slug"),
+                value(record, "shortdescription"),
+                value(record, "description"),
+                decimal(record, "price"),
+                decimal(record, "saleprice"),
+                integer(record, "stockquantity"),
+                categoryIds(value(record, "categoryids")),
+                attributes(value(record, "attributes"))
+        );
+    }
+
+    private String value(List<String> record, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private BigDecimal decimal(List<String> record, String column) {
+        String value = value(record, column);
+        try {
+            return value != null ? new BigDecimal(value) : null;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in column " + column + ": " + value);
+        }
+    }
+
+    private Integer integer(List<String> record, String column) {
+        String value = value(record, column);
+        try {
+            return value != null ? Integer.valueOf(value) : null;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid integer in column " + column + ": " + value);
+        }
+    }
+
+    private static Set<String> categoryIds(String value) {
+        Set<String> ids = new LinkedHashSet<>();
+        if (value != null) {
+            Arrays.stream(value.split(LIST_SEPARATOR))
+                    .map(String::trim)
+                    .filter(StringUtils::hasText)
+                    .forEach(ids::add);
+        }
+        return ids;
+    }
+
+    private static List<ProductAttributeDto> attributes(String value) {
+        if (value == null) {
+            return List.of();
+        }
+        // Attribute name -> option names, in file order
+        Map<String, List<ProductAttributeDto.ProductAttributeOptionDto>> options = new LinkedHashMap<>();
+        for (String pair : value.split(LIST_SEPARATOR)) {
+            if (!StringUtils.hasText(pair)) {
+                continue;
+            }
+            int separator = pair.indexOf(':');
+            if (separator <= 0 || separator == pair.length() - 1) {
+                throw new IllegalArgumentException("Invalid attribute, expected Attribute:Option but got: " + pair.trim());
+            }
+            String attributeName = pair.substring(0, separator).trim();
+            String optionName = pair.substring(separator + 1).trim();
+            options.computeIfAbsent(attributeName, name -> new ArrayList<>())
+                    .add(new ProductAttributeDto.ProductAttributeOptionDto(null, optionName, null, null));
+        }
+        List<ProductAttributeDto> attributes = new ArrayList<>();
+        options.forEach((name, attributeOptions) ->
+                attributes.add(new ProductAttributeDto(null, name, null, null, attributeOptions)));
+        return attributes;
+    }
+
+    /**
+     * Read one record; quoted fields may contain separators, doubled quotes and line breaks
+     */
+    private List<String> readRecord() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IllegalArgumentException("CSV import ends inside a quoted field");
+                }
+                if (c == '"') {
+                    int nextChar = read();
+                    if (nextChar == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        unread(nextChar);
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    int nextChar = read();
+                    if (nextChar != '\n') {
+                        unread(nextChar);
+                    }
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (lookahead != -2) {
+            int c = lookahead;
+            lookahead = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private void unread(int c) {
+        lookahead = c;
+    }
+}
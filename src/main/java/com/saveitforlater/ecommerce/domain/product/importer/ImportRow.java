@@ -0,0 +1,21 @@
+package com.saveitforlater.ecommerce.domain.product.importer;
+
+import com.saveitforlater.ecommerce.api.product.dto.CreateProductRequest;
+
+/**
+ * One parsed row of an import file. Either the request or the parse error is set.
+ */
+record ImportRow(int row, CreateProductRequest request, String error) {
+
+    static ImportRow of(int row, CreateProductRequest request) {
+        return new ImportRow(row, request, null);
+    }
+
+    static ImportRow failed(int row, String error) {
+        return new ImportRow(row, null, error);
+    }
+
+    String sku() {
+        return request != null ? request.sku() : null;
+    }
+}
@@ -0,0 +1,45 @@
+package com.saveitforlater.ecommerce.domain.product.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.saveitforlater.ecommerce.api.product.dto.CreateProductRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Reads one {@link CreateProductRequest} JSON object per line; blank lines are skipped.
+ */
+class NdjsonProductImportReader implements ProductImportReader {
+
+    private final BufferedReader reader;
+    private final ObjectReader objectReader;
+    private int row = 0;
+
+    NdjsonProductImportReader(BufferedReader reader, ObjectReader objectReader) {
+        this.reader = reader;
+        this.objectReader = objectReader.forType(CreateProductRequest.class);
+    }
+
+    @Override
+    public ImportRow next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        row++;
+        try {
+            CreateProductRequest request = objectReader.readValue(line);
+            if (request == null) {
+                return ImportRow.failed(row, "Expected a JSON object but found null");
+            }
+            return ImportRow.of(row, request);
+        } catch (JsonProcessingException e) {
+            return ImportRow.failed(row, "Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.saveitforlater.ecommerce.domain.product.importer;
+
+import java.io.IOException;
+
+/**
+ * Reads import rows one at a time, so an import file is never held in memory as a whole.
+ */
+interface ProductImportReader {
+
+    /**
+     * Read the next row, or return null at the end of the input
+     */
+    ImportRow next() throws IOException;
+}
@@ -0,0 +1,412 @@
+package com.saveitforlater.ecommerce.domain.product.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.saveitforlater.ecommerce.api.product.dto.CreateProductRequest;
+import com.saveitforlater.ecommerce.api.product.dto.ProductAttributeDto;
+import com.saveitforlater.ecommerce.api.product.dto.ProductImportResponse;
+import com.saveitforlater.ecommerce.domain.product.AttributeOptionService;
+import com.saveitforlater.ecommerce.domain.product.AttributeService;
+import com.saveitforlater.ecommerce.domain.product.event.ProductChangedEvent;
+import com.saveitforlater.ecommerce.domain.util.SlugGenerator;
+import com.saveitforlater.ecommerce.persistence.entity.category.Category;
+import com.saveitforlater.ecommerce.persistence.entity.product.Attribute;
+import com.saveitforlater.ecommerce.persistence.entity.product.AttributeOption;
+import com.saveitforlater.ecommerce.persistence.entity.product.Product;
+import com.saveitforlater.ecommerce.persistence.id.IdBlockAllocator;
+import com.saveitforlater.ecommerce.persistence.repository.category.CategoryRepository;
+import com.saveitforlater.ecommerce.persistence.repository.product.ProductRepository;
+import com.saveitforlater.ecommerce.util.HtmlSanitizer;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk product import from NDJSON ({@link CreateProductRequest} per line) or CSV.
+ * <p>
+ * The input is read in chunks. For each chunk, SKU and slug conflicts are checked with one set query
+ * each, categories are resolved with one query and attributes/options once per distinct name for the
+ * whole import. Valid rows are then written with JDBC batch inserts in one transaction per chunk.
+ * Rows that fail are skipped and reported by row number instead of failing the import.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final String PRODUCT_SEQUENCE = "product_seq";
+    private static final String PRODUCT_ATTRIBUTE_VALUE_SEQUENCE = "product_attribute_value_seq";
+
+    private static final String INSERT_PRODUCT = "INSERT INTO product (id, public_id, sku, name, slug, short_description, " +
+            "description, price, sale_price, effective_price, stock_quantity, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_PRODUCT_CATEGORY =
+            "INSERT INTO product_category (product_id, category_id) VALUES (?, ?)";
+    private static final String INSERT_PRODUCT_ATTRIBUTE_VALUE = "INSERT INTO product_attribute_value " +
+            "(id, product_id, attribute_id, attribute_option_id, is_active, created_at) VALUES (?, ?, ?, ?, TRUE, ?)";
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final AttributeService attributeService;
+    private final AttributeOptionService attributeOptionService;
+    private final HtmlSanitizer htmlSanitizer;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final IdBlockAllocator idBlockAllocator;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.import.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Import products from newline-delimited JSON (ADMIN ONLY)
+     */
+    public ProductImportResponse importNdjson(InputStream input) throws IOException {
+        return importRows(new NdjsonProductImportReader(utf8(input), objectMapper.reader()));
+    }
+
+    /**
+     * Import products from CSV with a header row (ADMIN ONLY)
+     */
+    public ProductImportResponse importCsv(InputStream input) throws IOException {
+        return importRows(new CsvProductImportReader(utf8(input)));
+    }
+
+    private ProductImportResponse importRows(ProductImportReader reader) throws IOException {
+        long start = System.currentTimeMillis();
+        ImportRun run = new ImportRun();
+        List<ImportRow> chunk = new ArrayList<>(batchSize);
+        ImportRow row;
+        while ((row = reader.next()) != null) {
+            chunk.add(row);
+            if (chunk.size() == batchSize) {
+                importChunk(chunk, run);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, run);
+        }
+
+        log.info("Imported {} of {} products ({} failed) in {} ms",
+                run.imported, run.received, run.failed, System.currentTimeMillis() - start);
+        run.errors.sort(Comparator.comparingInt(ProductImportResponse.RowError::row));
+        return new ProductImportResponse(run.received, run.imported, run.failed, run.errors);
+    }
+
+    private void importChunk(List<ImportRow> rows, ImportRun run) {
+        run.received += rows.size();
+
+        List<ImportRow> valid = new ArrayList<>();
+        for (ImportRow row : rows) {
+            String error = row.error() != null ? row.error() : validate(row.request());
+            if (error != null) {
+                run.reject(row, error);
+            } else {
+                valid.add(row);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        // Set queries for the whole chunk instead of one lookup per row
+        Set<String> existingSkus = new HashSet<>(productRepository.findExistingSkus(
+                valid.stream().map(ImportRow::sku).toList()));
+        resolveCategories(valid, run);
+
+        // A SKU is taken by the import once a row with it is accepted, so a rejected row does not
+        // block a later row that carries the same SKU
+        List<PendingProduct> pending = new ArrayList<>();
+        for (ImportRow row : valid) {
+            if (existingSkus.contains(row.sku())) {
+                run.reject(row, "Product with SKU already exists: " + row.sku());
+                continue;
+            }
+            if (run.skus.contains(row.sku())) {
+                run.reject(row, "Duplicate SKU in import: " + row.sku());
+                continue;
+            }
+            try {
+                pending.add(toPendingProduct(row, run));
+                run.skus.add(row.sku());
+            } catch (IllegalArgumentException e) {
+                run.reject(row, e.getMessage());
+            }
+        }
+        allocateSlugs(pending, run);
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(pending));
+            run.imported += pending.size();
+        } catch (DataAccessException e) {
+            // Something in the batch conflicts (e.g. a SKU inserted concurrently): retry row by row to isolate it
+            log.warn("Batch insert of {} products failed, retrying individually: {}",
+                    pending.size(), NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            for (PendingProduct product : pending) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(List.of(product)));
+                    run.imported++;
+                } catch (DataAccessException rowException) {
+                    run.skus.remove(product.getRow().sku());
+                    run.reject(product.getRow(), "Could not be saved: "
+                            + NestedExceptionUtils.getMostSpecificCause(rowException).getMessage());
+                }
+            }
+        }
+    }
+
+    private String validate(CreateProductRequest request) {
+        Set<ConstraintViolation<CreateProductRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    /**
+     * Load the chunk's not yet known categories with one query
+     */
+    private void resolveCategories(List<ImportRow> rows, ImportRun run) {
+        Set<String> unknown = rows.stream()
+                .flatMap(row -> row.request().categoryIds().stream())
+                .filter(publicId -> !run.categoryIds.containsKey(publicId))
+                .collect(Collectors.toSet());
+        if (!unknown.isEmpty()) {
+            for (Category category : categoryRepository.findByPublicIdIn(unknown)) {
+                run.categoryIds.put(category.getPublicId(), category.getId());
+            }
+        }
+    }
+
+    private PendingProduct toPendingProduct(ImportRow row, ImportRun run) {
+        CreateProductRequest request = row.request();
+
+        Set<Long> categoryIds = new LinkedHashSet<>();
+        for (String publicId : request.categoryIds()) {
+            Long categoryId = run.categoryIds.get(publicId);
+            if (categoryId == null) {
+                throw new IllegalArgumentException("Category not found with ID: " + publicId);
+            }
+            categoryIds.add(categoryId);
+        }
+
+        // (attribute ID, option ID) pairs; a set because the table holds each combination once
+        Set<List<Long>> attributeValues = new LinkedHashSet<>();
+        if (request.attributes() != null) {
+            for (ProductAttributeDto attributeDto : request.attributes()) {
+                Long attributeId = resolveAttribute(attributeDto, run);
+                if (attributeDto.options() == null) {
+                    continue;
+                }
+                for (ProductAttributeDto.ProductAttributeOptionDto optionDto : attributeDto.options()) {
+                    OptionRef option = resolveOption(attributeId, attributeDto, optionDto, run);
+                    attributeValues.add(List.of(attributeId, option.id()));
+                }
+            }
+        }
+
+        String baseSlug = SlugGenerator.generateSlug(
+                StringUtils.hasText(request.slug()) ? request.slug() : request.name());
+        String description = request.description() != null
+                ? htmlSanitizer.sanitizeRichText(request.description())
+                : null;
+        return new PendingProduct(row, UUID.randomUUID().toString(), baseSlug, description, categoryIds, attributeValues);
+    }
+
+    /**
+     * Attributes and options are looked up (or created) once per distinct reference per import;
+     * lookups by name are answered by the attribute registry
+     */
+    private Long resolveAttribute(ProductAttributeDto attributeDto, ImportRun run) {
+        if (attributeDto.attributeId() != null) {
+            return run.attributeIds.computeIfAbsent("id:" + attributeDto.attributeId(), key ->
+                    attributeService.findByPublicId(attributeDto.attributeId())
+                            .map(Attribute::getId)
+                            .orElseThrow(() -> new IllegalArgumentException(
+                                    "Attribute not found with ID: " + attributeDto.attributeId())));
+        }
+        if (!StringUtils.hasText(attributeDto.attributeName())) {
+            throw new IllegalArgumentException("Either attributeId or attributeName must be provided");
+        }
+        String name = attributeDto.attributeName().trim();
+        return run.attributeIds.computeIfAbsent("name:" + name.toLowerCase(Locale.ROOT), key ->
+                attributeService.createOrGetAttributeId(name, attributeDto.attributeDescription()));
+    }
+
+    private OptionRef resolveOption(Long attributeId, ProductAttributeDto attributeDto,
+                                    ProductAttributeDto.ProductAttributeOptionDto optionDto, ImportRun run) {
+        if (optionDto.optionId() != null) {
+            OptionRef option = run.options.computeIfAbsent("id:" + optionDto.optionId(), key ->
+                    attributeOptionService.findByPublicId(optionDto.optionId())
+                            .map(found -> new OptionRef(found.getId(), found.getAttribute().getId()))
+                            .orElseThrow(() -> new IllegalArgumentException(
+                                    "Attribute option not found with ID: " + optionDto.optionId())));
+            if (!option.attributeId().equals(attributeId)) {
+                throw new IllegalArgumentException("Option " + optionDto.optionId() + " does not belong to attribute "
+                        + (attributeDto.attributeId() != null ? attributeDto.attributeId() : attributeDto.attributeName()));
+            }
+            return option;
+        }
+        if (!StringUtils.hasText(optionDto.optionName())) {
+            throw new IllegalArgumentException("Either optionId or optionName must be provided");
+        }
+        String name = optionDto.optionName().trim();
+        return run.options.computeIfAbsent(attributeId + ":" + name.toLowerCase(Locale.ROOT), key ->
+                transactionTemplate.execute(status -> {
+                    // Creating an option adds it to the attribute's option collection, which needs a managed attribute
+                    AttributeOption option = attributeOptionService.createOrGetOption(
+                            attributeService.getReference(attributeId), name, optionDto.optionDescription());
+                    return new OptionRef(option.getId(), attributeId);
+                }));
+    }
+
+    /**
+     * Give every product a unique slug, appending a counter on conflicts like single creates do.
+     * All base slugs of the chunk are checked with one query; for each base slug that is taken, or
+     * shared by several rows, its existing counter variants are read with one prefix query and the
+     * rows get the free counters in order.
+     */
+    private void allocateSlugs(List<PendingProduct> products, ImportRun run) {
+        Map<String, List<PendingProduct>> byBaseSlug = products.stream()
+                .collect(Collectors.groupingBy(PendingProduct::getBaseSlug, LinkedHashMap::new, Collectors.toList()));
+        Set<String> takenBaseSlugs = new HashSet<>(productRepository.findExistingSlugs(byBaseSlug.keySet()));
+
+        byBaseSlug.forEach((baseSlug, group) -> {
+            if (group.size() == 1 && !takenBaseSlugs.contains(baseSlug) && !run.slugs.contains(baseSlug)) {
+                group.get(0).setSlug(baseSlug);
+                run.slugs.add(baseSlug);
+                return;
+            }
+            Set<String> taken = new HashSet<>(productRepository.findSlugVariants(
+                    baseSlug, SlugGenerator.variantPattern(baseSlug)));
+            int counter = 0;
+            for (PendingProduct product : group) {
+                String candidate;
+                do {
+                    candidate = counter == 0 ? baseSlug : SlugGenerator.generateUniqueSlug(baseSlug, counter);
+                    counter++;
+                } while (taken.contains(candidate) || run.slugs.contains(candidate));
+                product.setSlug(candidate);
+                run.slugs.add(candidate);
+            }
+        });
+    }
+
+    private void insert(List<PendingProduct> products) {
+        Timestamp now = Timestamp.from(Instant.now());
+        // IDs come from the same sequence tables the entities use, so rows can be linked without reading them back
+        long productId = idBlockAllocator.allocate(PRODUCT_SEQUENCE, products.size());
+        int attributeValueCount = products.stream().mapToInt(product -> product.getAttributeValues().size()).sum();
+        long attributeValueId = attributeValueCount > 0
+                ? idBlockAllocator.allocate(PRODUCT_ATTRIBUTE_VALUE_SEQUENCE, attributeValueCount)
+                : 0;
+
+        List<Object[]> productRows = new ArrayList<>();
+        List<Object[]> categoryLinks = new ArrayList<>();
+        List<Object[]> attributeValues = new ArrayList<>();
+        Map<Long, String> inserted = new HashMap<>(products.size() * 2);
+        for (PendingProduct product : products) {
+            long id = productId++;
+            CreateProductRequest request = product.getRow().request();
+            BigDecimal salePrice = request.salePrice() != null ? request.salePrice() : BigDecimal.ZERO;
+            productRows.add(new Object[]{
+                    id, product.getPublicId(), request.sku(), request.name(), product.getSlug(),
+                    request.shortDescription(), product.getDescription(), request.price(), salePrice,
+                    Product.effectivePriceOf(request.price(), salePrice), request.stockQuantity(), now, now});
+            product.getCategoryIds().forEach(categoryId -> categoryLinks.add(new Object[]{id, categoryId}));
+            for (List<Long> value : product.getAttributeValues()) {
+                attributeValues.add(new Object[]{attributeValueId++, id, value.get(0), value.get(1), now});
+            }
+            inserted.put(id, product.getPublicId());
+        }
+        jdbcTemplate.batchUpdate(INSERT_PRODUCT, productRows);
+        jdbcTemplate.batchUpdate(INSERT_PRODUCT_CATEGORY, categoryLinks);
+        jdbcTemplate.batchUpdate(INSERT_PRODUCT_ATTRIBUTE_VALUE, attributeValues);
+        // Read models re-read the whole chunk in one batch once it commits
+        eventPublisher.publishEvent(new ProductChangedEvent(inserted, ProductChangedEvent.Type.CREATED));
+    }
+
+    private static BufferedReader utf8(InputStream input) {
+        return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * A validated row waiting to be written; the slug is assigned once the chunk's slugs are allocated
+     */
+    @Getter
+    @RequiredArgsConstructor
+    private static final class PendingProduct {
+        private final ImportRow row;
+        private final String publicId;
+        private final String baseSlug;
+        private final String description;
+        private final Set<Long> categoryIds;
+        private final Set<List<Long>> attributeValues;
+        @Setter
+        private String slug;
+    }
+
+    private record OptionRef(Long id, Long attributeId) {
+    }
+
+    /**
+     * State carried across the chunks of one import
+     */
+    private static final class ImportRun {
+        private final Set<String> skus = new HashSet<>();
+        private final Set<String> slugs = new HashSet<>();
+        private final Map<String, Long> categoryIds = new HashMap<>();
+        private final Map<String, Long> attributeIds = new HashMap<>();
+        private final Map<String, OptionRef> options = new HashMap<>();
+        private final List<ProductImportResponse.RowError> errors = new ArrayList<>();
+        private int received = 0;
+        private int imported = 0;
+        private int failed = 0;
+
+        private void reject(ImportRow row, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ProductImportResponse.RowError(row.row(), row.sku(), message));
+            }
+        }
+    }
+}
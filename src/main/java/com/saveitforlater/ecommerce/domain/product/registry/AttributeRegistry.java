@@ -0,0 +1,127 @@
+package com.saveitforlater.ecommerce.domain.product.registry;
+
+import com.saveitforlater.ecommerce.domain.product.event.AttributeChangedEvent;
+import com.saveitforlater.ecommerce.persistence.projection.AttributeNames;
+import com.saveitforlater.ecommerce.persistence.projection.AttributeOptionNames;
+import com.saveitforlater.ecommerce.persistence.repository.product.AttributeOptionRepository;
+import com.saveitforlater.ecommerce.persistence.repository.product.AttributeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory lookup of attribute and attribute option IDs by case-insensitive name or slug.
+ * <p>
+ * Product writes resolve attributes and options by name; the registry answers those lookups without
+ * a query. It is loaded once the application is ready and an attribute and its options are reloaded
+ * whenever an {@link AttributeChangedEvent} for it is committed, so creates, renames and
+ * (de)activations are picked up. A miss is not authoritative: callers fall back to the database,
+ * which also covers entries committed but not yet reloaded.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AttributeRegistry {
+
+    private final AttributeRepository attributeRepository;
+    private final AttributeOptionRepository attributeOptionRepository;
+
+    // lower-cased name / slug -> attribute ID
+    private final Map<String, Long> attributeIdsByName = new ConcurrentHashMap<>();
+    private final Map<String, Long> attributeIdsBySlug = new ConcurrentHashMap<>();
+    // attribute ID -> the keys registered for it, needed to drop them on rename
+    private final Map<Long, AttributeNames> attributeKeys = new ConcurrentHashMap<>();
+    // attribute ID -> its options, replaced as a whole on reload
+    private final Map<Long, OptionIndex> optionsByAttribute = new ConcurrentHashMap<>();
+
+    /**
+     * Load every attribute and option
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void build() {
+        long start = System.currentTimeMillis();
+        attributeRepository.findAllNames().forEach(this::putAttribute);
+        Map<Long, List<AttributeOptionNames>> options = attributeOptionRepository.findAllNames().stream()
+                .collect(Collectors.groupingBy(AttributeOptionNames::attributeId));
+        options.forEach((attributeId, names) -> optionsByAttribute.put(attributeId, OptionIndex.of(names)));
+
+        log.info("Built attribute registry: {} attributes, {} options in {} ms", attributeKeys.size(),
+                options.values().stream().mapToInt(List::size).sum(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onAttributeChanged(AttributeChangedEvent event) {
+        attributeRepository.findNamesByPublicId(event.attributePublicId()).ifPresent(names -> {
+            putAttribute(names);
+            optionsByAttribute.put(names.id(),
+                    OptionIndex.of(attributeOptionRepository.findNamesByAttributeId(names.id())));
+        });
+    }
+
+    /**
+     * Find the attribute with the given name, or failing that the given slug (both case-insensitive)
+     */
+    public Optional<Long> findAttributeId(String name, String slug) {
+        Long id = attributeIdsByName.get(key(name));
+        if (id == null && slug != null) {
+            id = attributeIdsBySlug.get(key(slug));
+        }
+        return Optional.ofNullable(id);
+    }
+
+    /**
+     * Find the option of an attribute with the given name, or failing that the given slug (both case-insensitive)
+     */
+    public Optional<Long> findOptionId(Long attributeId, String name, String slug) {
+        OptionIndex options = optionsByAttribute.get(attributeId);
+        if (options == null) {
+            return Optional.empty();
+        }
+        Long id = options.idsByName().get(key(name));
+        if (id == null && slug != null) {
+            id = options.idsBySlug().get(key(slug));
+        }
+        return Optional.ofNullable(id);
+    }
+
+    private void putAttribute(AttributeNames names) {
+        AttributeNames previous = attributeKeys.put(names.id(), names);
+        if (previous != null) {
+            attributeIdsByName.remove(key(previous.name()), previous.id());
+            attributeIdsBySlug.remove(key(previous.slug()), previous.id());
+        }
+        attributeIdsByName.put(key(names.name()), names.id());
+        attributeIdsBySlug.put(key(names.slug()), names.id());
+    }
+
+    private static String key(String nameOrSlug) {
+        return nameOrSlug.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Immutable name and slug lookups over the options of one attribute
+     */
+    private record OptionIndex(Map<String, Long> idsByName, Map<String, Long> idsBySlug) {
+
+        static OptionIndex of(List<AttributeOptionNames> options) {
+            Map<String, Long> byName = new HashMap<>();
+            Map<String, Long> bySlug = new HashMap<>();
+            for (AttributeOptionNames option : options) {
+                byName.put(key(option.name()), option.id());
+                bySlug.put(key(option.slug()), option.id());
+            }
+            return new OptionIndex(Map.copyOf(byName), Map.copyOf(bySlug));
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.saveitforlater.ecommerce.domain.product.search;
+
+import com.saveitforlater.ecommerce.domain.catalog.CatalogVersion;
+import com.saveitforlater.ecommerce.domain.catalog.ReadModelBuild;
+import com.saveitforlater.ecommerce.domain.product.event.ProductChangedEvent;
+import com.saveitforlater.ecommerce.persistence.projection.ProductSearchDocument;
+import com.saveitforlater.ecommerce.persistence.repository.product.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+
+/**
+ * In-memory inverted index over product name, short description and SKU.
+ * <p>
+ * Every query token must match (AND); a query token matches any indexed token it is a prefix of,
+ * with exact matches ranked above prefix matches. Scores are field weight times inverse document
+ * frequency, so rare terms and name/SKU hits rank first.
+ * <p>
+ * The index is built from the database once the application is ready and then kept current from
+ * {@link ProductChangedEvent}s after each transaction commits. Until it is ready callers fall back
+ * to SQL LIKE matching.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndex {
+
+    private static final float SKU_WEIGHT = 4.0f;
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float SHORT_DESCRIPTION_WEIGHT = 1.0f;
+    private static final double PREFIX_MATCH_FACTOR = 0.6;
+
+    private final ProductRepository productRepository;
+
+    @Value("${app.search.index.batch-size:1000}")
+    private int batchSize;
+
+    // token -> (product ID -> summed field weight)
+    private final ConcurrentSkipListMap<String, Map<Long, Float>> postings = new ConcurrentSkipListMap<>();
+    // product ID -> tokens indexed for it, needed to remove a document
+    private final Map<Long, Set<String>> documentTokens = new ConcurrentHashMap<>();
+
+    private final ReadModelBuild buildState = new ReadModelBuild();
+
+    public boolean isReady() {
+        return buildState.isReady();
+    }
+
+    /**
+     * Load every product into the index in ID-ordered batches
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long start = System.currentTimeMillis();
+        long lastId = 0L;
+        int indexed = 0;
+        List<ProductSearchDocument> batch;
+        do {
+            batch = productRepository.findSearchDocumentsAfter(lastId, PageRequest.ofSize(batchSize));
+            for (ProductSearchDocument document : batch) {
+                index(document);
+                lastId = document.id();
+            }
+            indexed += batch.size();
+        } while (batch.size() == batchSize);
+
+        reindex(buildState.finish());
+
+        log.info("Built product search index: {} products, {} terms in {} ms",
+                indexed, postings.size(), System.currentTimeMillis() - start);
+    }
+
+    @Order(CatalogVersion.BEFORE_BUMP)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (buildState.deferIfBuilding(event.productIds())) {
+            return;
+        }
+        if (event.isDeleted()) {
+            event.productIds().forEach(this::remove);
+        } else {
+            reindex(event.productIds());
+        }
+    }
+
+    /**
+     * Find the IDs of products matching every token of the query, best match first.
+     * Returns an empty list when the query contains no indexable tokens.
+     */
+    public List<Long> search(String query) {
+        List<String> queryTokens = tokenize(query).stream().distinct().toList();
+        if (queryTokens.isEmpty()) {
+            return List.of();
+        }
+
+        int documentCount = Math.max(documentTokens.size(), 1);
+        Map<Long, Double> scores = null;
+        for (String queryToken : queryTokens) {
+            Map<Long, Double> tokenScores = scoreToken(queryToken, documentCount);
+            if (scores == null) {
+                scores = tokenScores;
+            } else {
+                // AND semantics: keep documents matching every query token
+                Map<Long, Double> finalTokenScores = tokenScores;
+                scores.keySet().retainAll(tokenScores.keySet());
+                scores.replaceAll((id, score) -> score + finalTokenScores.get(id));
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+        return ranked.stream().map(Map.Entry::getKey).toList();
+    }
+
+    /**
+     * Whether the query contains at least one token the index can match on
+     */
+    public boolean isSearchable(String query) {
+        return !tokenize(query).isEmpty();
+    }
+
+    private Map<Long, Double> scoreToken(String queryToken, int documentCount) {
+        Map<Long, Double> scores = new HashMap<>();
+        ConcurrentNavigableMap<String, Map<Long, Float>> matches =
+                postings.subMap(queryToken, true, queryToken + Character.MAX_VALUE, true);
+        for (Map.Entry<String, Map<Long, Float>> match : matches.entrySet()) {
+            Map<Long, Float> documents = match.getValue();
+            double idf = Math.log(1.0 + (double) documentCount / Math.max(documents.size(), 1));
+            double matchFactor = match.getKey().equals(queryToken) ? 1.0 : PREFIX_MATCH_FACTOR;
+            documents.forEach((productId, weight) ->
+                    // A document scores its best matching term for this query token
+                    scores.merge(productId, weight * idf * matchFactor, Math::max));
+        }
+        return scores;
+    }
+
+    /**
+     * Re-read the products in one query; those no longer found are removed. The read happens under
+     * the same monitor as the update, so a reindex that read older rows can never overwrite a newer one.
+     */
+    private synchronized void reindex(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        Set<Long> missing = new HashSet<>(productIds);
+        for (ProductSearchDocument document : productRepository.findSearchDocumentsByIdIn(productIds)) {
+            index(document);
+            missing.remove(document.id());
+        }
+        missing.forEach(this::remove);
+    }
+
+    private synchronized void index(ProductSearchDocument document) {
+        remove(document.id());
+
+        Map<String, Float> weights = new HashMap<>();
+        addField(weights, document.sku(), SKU_WEIGHT);
+        addField(weights, document.name(), NAME_WEIGHT);
+        addField(weights, document.shortDescription(), SHORT_DESCRIPTION_WEIGHT);
+
+        weights.forEach((token, weight) -> postings
+                .computeIfAbsent(token, t -> new ConcurrentHashMap<>())
+                .put(document.id(), weight));
+        documentTokens.put(document.id(), weights.keySet());
+    }
+
+    private synchronized void remove(Long productId) {
+        Set<String> tokens = documentTokens.remove(productId);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            postings.computeIfPresent(token, (t, documents) -> {
+                documents.remove(productId);
+                return documents.isEmpty() ? null : documents;
+            });
+        }
+    }
+
+    private static void addField(Map<String, Float> weights, String text, float fieldWeight) {
+        for (String token : tokenize(text)) {
+            weights.merge(token, fieldWeight, Float::sum);
+        }
+    }
+
+    /**
+     * Lower-case the text and split it on anything that is not a letter or digit
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                current.append(Character.toLowerCase(c));
+            } else if (!current.isEmpty()) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (!current.isEmpty()) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+}
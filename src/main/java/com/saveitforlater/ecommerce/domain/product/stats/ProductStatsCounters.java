@@ -0,0 +1,221 @@
+package com.saveitforlater.ecommerce.domain.product.stats;
+
+import com.saveitforlater.ecommerce.domain.catalog.CatalogVersion;
+import com.saveitforlater.ecommerce.domain.product.event.ProductChangedEvent;
+import com.saveitforlater.ecommerce.domain.product.event.ProductPopularityChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory product view, add-to-cart and purchase counters, flushed to {@code product_stats} on a schedule.
+ * <p>
+ * Recording is lock-free: each product has its own {@link LongAdder}s, so concurrent requests for
+ * the same product neither block each other nor touch its row. The flush adds everything recorded
+ * since the previous flush to the stats rows in one batched upsert and to {@code product.popularity}
+ * in one batched update, in a single transaction. It then publishes a {@link ProductPopularityChangedEvent}
+ * for read models ranked by popularity and bumps the popularity version of the {@link CatalogVersion}
+ * so only popularity-sorted lists revalidate; a failed flush is retried with the same counts on the
+ * next run. Remaining counts are flushed on shutdown; those recorded since the last flush are lost on
+ * a crash, which is acceptable for a ranking signal.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductStatsCounters {
+
+    // Popularity weights: a purchased unit counts as much as 20 views, an add-to-cart as 5
+    static final long VIEW_WEIGHT = 1;
+    static final long ADD_TO_CART_WEIGHT = 5;
+    static final long PURCHASE_WEIGHT = 20;
+
+    // Rows of deleted products select nothing and are skipped. The deltas are a derived table so the
+    // update can refer to them by name (VALUES() is deprecated)
+    private static final String UPSERT_STATS = """
+            INSERT INTO product_stats (product_id, view_count, add_to_cart_count, purchase_count, updated_at)
+            SELECT * FROM (
+                SELECT p.id, ? AS views, ? AS adds, ? AS purchases, ? AS flushed_at FROM product p WHERE p.public_id = ?
+            ) AS delta
+            ON DUPLICATE KEY UPDATE
+                view_count = view_count + delta.views,
+                add_to_cart_count = add_to_cart_count + delta.adds,
+                purchase_count = purchase_count + delta.purchases,
+                updated_at = delta.flushed_at""";
+
+    // Keep updated_at: popularity is not part of the product's content, and bumping it would change
+    // the product's ETag and Last-Modified on every sale
+    private static final String ADD_POPULARITY =
+            "UPDATE product SET popularity = popularity + ?, updated_at = updated_at WHERE public_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CatalogVersion catalogVersion;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // product public ID -> counters
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    public void recordView(String productPublicId) {
+        counters(productPublicId).views.increment();
+    }
+
+    /**
+     * Count an add-to-cart once the current transaction commits
+     */
+    public void recordAddToCart(String productPublicId) {
+        afterCommit(() -> counters(productPublicId).addToCarts.increment());
+    }
+
+    /**
+     * Count purchased units once the current transaction commits
+     */
+    public void recordPurchase(String productPublicId, int quantity) {
+        afterCommit(() -> counters(productPublicId).purchases.add(quantity));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            event.publicIds().forEach(counters::remove);
+        }
+    }
+
+    /**
+     * Write the counts recorded since the last flush
+     */
+    @Scheduled(fixedDelayString = "${app.stats.flush-interval:PT30S}",
+               initialDelayString = "${app.stats.flush-interval:PT30S}")
+    public void flush() {
+        List<String> flushed = write();
+        if (flushed.isEmpty()) {
+            return;
+        }
+        eventPublisher.publishEvent(new ProductPopularityChangedEvent(flushed));
+        // Popularity-sorted lists may have changed order; other lists are unaffected
+        catalogVersion.bumpPopularity();
+    }
+
+    /**
+     * Write the remaining counts; the read models are not refreshed while the application shuts down
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        write();
+    }
+
+    /**
+     * Add the pending counts to the database
+     *
+     * @return public IDs of the products written, empty if there was nothing to write or the write failed
+     */
+    private synchronized List<String> write() {
+        List<Delta> deltas = new ArrayList<>();
+        counters.forEach((publicId, productCounters) -> {
+            Delta delta = productCounters.pending(publicId);
+            if (!delta.isEmpty()) {
+                deltas.add(delta);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return List.of();
+        }
+
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> statsRows = new ArrayList<>(deltas.size());
+        List<Object[]> popularityRows = new ArrayList<>(deltas.size());
+        for (Delta delta : deltas) {
+            statsRows.add(new Object[]{delta.views(), delta.addToCarts(), delta.purchases(), now, delta.publicId()});
+            popularityRows.add(new Object[]{delta.popularity(), delta.publicId()});
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(UPSERT_STATS, statsRows);
+                jdbcTemplate.batchUpdate(ADD_POPULARITY, popularityRows);
+            });
+        } catch (DataAccessException ex) {
+            log.warn("Could not flush stats of {} products, retrying on the next run: {}", deltas.size(), ex.getMessage());
+            return List.of();
+        }
+
+        for (Delta delta : deltas) {
+            Counters flushed = counters.get(delta.publicId());
+            if (flushed != null) {
+                flushed.markFlushed(delta);
+            }
+        }
+        log.debug("Flushed stats of {} products", deltas.size());
+        return deltas.stream().map(Delta::publicId).toList();
+    }
+
+    private Counters counters(String productPublicId) {
+        return counters.computeIfAbsent(productPublicId, id -> new Counters());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Cumulative counts of one product. The adders are never reset, which could lose increments
+     * racing with the reset; the flush instead tracks how much of each it has written.
+     */
+    private static final class Counters {
+        private final LongAdder views = new LongAdder();
+        private final LongAdder addToCarts = new LongAdder();
+        private final LongAdder purchases = new LongAdder();
+        // Only read and written by the (synchronized) write
+        private long flushedViews;
+        private long flushedAddToCarts;
+        private long flushedPurchases;
+
+        Delta pending(String publicId) {
+            return new Delta(publicId,
+                    views.sum() - flushedViews,
+                    addToCarts.sum() - flushedAddToCarts,
+                    purchases.sum() - flushedPurchases);
+        }
+
+        void markFlushed(Delta delta) {
+            flushedViews += delta.views();
+            flushedAddToCarts += delta.addToCarts();
+            flushedPurchases += delta.purchases();
+        }
+    }
+
+    private record Delta(String publicId, long views, long addToCarts, long purchases) {
+
+        boolean isEmpty() {
+            return views == 0 && addToCarts == 0 && purchases == 0;
+        }
+
+        long popularity() {
+            return views * VIEW_WEIGHT + addToCarts * ADD_TO_CART_WEIGHT + purchases * PURCHASE_WEIGHT;
+        }
+    }
+}
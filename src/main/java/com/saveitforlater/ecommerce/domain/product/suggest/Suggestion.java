@@ -0,0 +1,7 @@
+package com.saveitforlater.ecommerce.domain.product.suggest;
+
+/**
+ * An entry of a {@link TopKTrie}, identified by its public ID and ranked by weight
+ */
+record Suggestion(String id, String name, String slug, long weight) {
+}
@@ -0,0 +1,387 @@
+package com.saveitforlater.ecommerce.domain.product.suggest;
+
+import com.saveitforlater.ecommerce.api.product.dto.SuggestionResponse;
+import com.saveitforlater.ecommerce.domain.catalog.CatalogVersion;
+import com.saveitforlater.ecommerce.domain.catalog.ReadModelBuild;
+import com.saveitforlater.ecommerce.domain.category.count.CategoryProductCounts;
+import com.saveitforlater.ecommerce.domain.category.event.CategoryChangedEvent;
+import com.saveitforlater.ecommerce.domain.product.event.ProductChangedEvent;
+import com.saveitforlater.ecommerce.domain.product.event.ProductPopularityChangedEvent;
+import com.saveitforlater.ecommerce.persistence.projection.CategorySuggestionDocument;
+import com.saveitforlater.ecommerce.persistence.projection.IdCount;
+import com.saveitforlater.ecommerce.persistence.projection.ProductSuggestionDocument;
+import com.saveitforlater.ecommerce.persistence.repository.category.CategoryRepository;
+import com.saveitforlater.ecommerce.persistence.repository.product.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory typeahead index over product names and SKUs and category names.
+ * <p>
+ * Each name is stored under every suffix that starts at a word, so "gal" finds "Samsung Galaxy",
+ * and a SKU under its full value. Products are ranked by {@code product.popularity} and categories by
+ * their number of products; every trie node caches its top entries, so a lookup never touches the database.
+ * <p>
+ * The index is built once the application is ready and then kept current from
+ * {@link ProductChangedEvent}s and {@link CategoryChangedEvent}s after each transaction commits.
+ * Product popularity is re-read on each {@link ProductPopularityChangedEvent} of the stats flush, and
+ * category weights follow the in-memory {@link CategoryProductCounts} as products are assigned and removed.
+ * Until it is ready lookups return no suggestions.
+ */
+@Slf4j
+@Component
+public class SuggestionIndex {
+
+    // Keys and queries are cut to this length; longer prefixes add little and cost a node per character
+    static final int MAX_KEY_LENGTH = 32;
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final CategoryProductCounts categoryProductCounts;
+    private final int maxResults;
+    private final int batchSize;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private TopKTrie products;
+    private TopKTrie categories;
+    // internal ID -> public ID, to remove an entry on delete once the row is gone
+    private final Map<Long, String> productPublicIds = new HashMap<>();
+    // internal ID -> indexed entry, to remove it on delete and re-weigh it when its product count changes
+    private final Map<Long, Suggestion> categoryEntries = new HashMap<>();
+
+    private final ReadModelBuild productBuild = new ReadModelBuild();
+    private final ReadModelBuild categoryBuild = new ReadModelBuild();
+
+    public SuggestionIndex(ProductRepository productRepository,
+                           CategoryRepository categoryRepository,
+                           CategoryProductCounts categoryProductCounts,
+                           @Value("${app.search.suggest.max-results:10}") int maxResults,
+                           @Value("${app.search.index.batch-size:1000}") int batchSize) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.categoryProductCounts = categoryProductCounts;
+        this.maxResults = maxResults;
+        this.batchSize = batchSize;
+        this.products = new TopKTrie(maxResults);
+        this.categories = new TopKTrie(maxResults);
+    }
+
+    public boolean isReady() {
+        return productBuild.isReady() && categoryBuild.isReady();
+    }
+
+    /**
+     * Largest number of suggestions a lookup returns per kind
+     */
+    public int maxResults() {
+        return maxResults;
+    }
+
+    /**
+     * Load every product and category, then rank all prefixes in one pass
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long start = System.currentTimeMillis();
+        Map<Long, Long> productCounts = counts(categoryRepository.countProductsByCategory());
+
+        TopKTrie productTrie = new TopKTrie(maxResults);
+        Map<Long, String> productIds = new HashMap<>();
+        long lastId = 0L;
+        List<ProductSuggestionDocument> batch;
+        do {
+            batch = productRepository.findSuggestionDocumentsAfter(lastId, PageRequest.ofSize(batchSize));
+            for (ProductSuggestionDocument document : batch) {
+                productTrie.load(toSuggestion(document), productKeys(document));
+                productIds.put(document.id(), document.publicId());
+                lastId = document.id();
+            }
+        } while (batch.size() == batchSize);
+        productTrie.rankAll();
+
+        TopKTrie categoryTrie = new TopKTrie(maxResults);
+        Map<Long, Suggestion> categoryIds = new HashMap<>();
+        for (CategorySuggestionDocument document : categoryRepository.findAllSuggestionDocuments()) {
+            Suggestion suggestion = toSuggestion(document, productCounts.getOrDefault(document.id(), 0L));
+            categoryTrie.load(suggestion, nameKeys(document.name()));
+            categoryIds.put(document.id(), suggestion);
+        }
+        categoryTrie.rankAll();
+
+        lock.writeLock().lock();
+        try {
+            products = productTrie;
+            categories = categoryTrie;
+            productPublicIds.putAll(productIds);
+            categoryEntries.putAll(categoryIds);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        reindexProducts(productBuild.finish());
+        categoryBuild.finish().forEach(this::reindexCategory);
+        // Products assigned or removed while the counts above were read
+        reweighCategories();
+
+        log.info("Built suggestion index: {} products, {} categories in {} ms",
+                productTrie.size(), categoryTrie.size(), System.currentTimeMillis() - start);
+    }
+
+    @Order(CatalogVersion.BEFORE_BUMP)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (productBuild.deferIfBuilding(event.productIds())) {
+            return;
+        }
+        if (event.isDeleted()) {
+            removeProducts(event.productIds());
+        } else {
+            reindexProducts(event.productIds());
+        }
+        // CategoryProductCounts has already applied the change (its listener runs first)
+        reweighCategories();
+    }
+
+    @EventListener
+    public void onProductPopularityChanged(ProductPopularityChangedEvent event) {
+        List<String> publicIds = List.copyOf(event.publicIds());
+        for (int from = 0; from < publicIds.size(); from += batchSize) {
+            reweighProducts(publicIds.subList(from, Math.min(from + batchSize, publicIds.size())));
+        }
+    }
+
+    @Order(CatalogVersion.BEFORE_BUMP)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (categoryBuild.deferIfBuilding(List.of(event.categoryId()))) {
+            return;
+        }
+        if (event.isDeleted()) {
+            removeCategory(event.categoryId());
+        } else {
+            reindexCategory(event.categoryId());
+        }
+    }
+
+    /**
+     * The most popular products and categories with a name (or, for products, SKU) word starting with the query
+     */
+    public SuggestionResponse suggest(String query, int limit) {
+        String prefix = truncate(normalize(query));
+        if (prefix.isEmpty() || limit < 1) {
+            return new SuggestionResponse(List.of(), List.of());
+        }
+
+        lock.readLock().lock();
+        try {
+            return new SuggestionResponse(
+                    toItems(products.top(prefix, limit)),
+                    toItems(categories.top(prefix, limit)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Re-read the products in one query; those no longer found are removed. The read happens under
+     * the same monitor as the update, so a reindex that read older rows can never overwrite a newer one.
+     */
+    private synchronized void reindexProducts(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        List<ProductSuggestionDocument> documents = productRepository.findSuggestionDocumentsByIdIn(productIds);
+        Set<Long> missing = new HashSet<>(productIds);
+        lock.writeLock().lock();
+        try {
+            for (ProductSuggestionDocument document : documents) {
+                String previousPublicId = productPublicIds.put(document.id(), document.publicId());
+                if (previousPublicId != null && !previousPublicId.equals(document.publicId())) {
+                    products.remove(previousPublicId);
+                }
+                products.put(toSuggestion(document), productKeys(document));
+                missing.remove(document.id());
+            }
+            missing.forEach(this::removeProductLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Re-read the popularity of the products and re-rank those already indexed; others are indexed
+     * with their current popularity by their own change event
+     */
+    private synchronized void reweighProducts(Collection<String> publicIds) {
+        List<ProductSuggestionDocument> documents = productRepository.findSuggestionDocumentsByPublicIdIn(publicIds);
+        if (productBuild.deferIfBuilding(documents.stream().map(ProductSuggestionDocument::id).toList())) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (ProductSuggestionDocument document : documents) {
+                if (document.publicId().equals(productPublicIds.get(document.id()))) {
+                    products.put(toSuggestion(document), productKeys(document));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private synchronized void removeProducts(Collection<Long> productIds) {
+        lock.writeLock().lock();
+        try {
+            productIds.forEach(this::removeProductLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeProductLocked(Long productId) {
+        String publicId = productPublicIds.remove(productId);
+        if (publicId != null) {
+            products.remove(publicId);
+        }
+    }
+
+    /**
+     * Re-read the category and its product count under the same monitor as the update
+     */
+    private synchronized void reindexCategory(Long categoryId) {
+        categoryRepository.findSuggestionDocumentById(categoryId).ifPresentOrElse(document -> {
+            Suggestion suggestion = toSuggestion(document, categoryRepository.countProductsByCategoryId(categoryId));
+            List<String> keys = nameKeys(document.name());
+            lock.writeLock().lock();
+            try {
+                categoryEntries.put(categoryId, suggestion);
+                categories.put(suggestion, keys);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }, () -> removeCategory(categoryId));
+    }
+
+    private synchronized void removeCategory(Long categoryId) {
+        lock.writeLock().lock();
+        try {
+            Suggestion entry = categoryEntries.remove(categoryId);
+            if (entry != null) {
+                categories.remove(entry.id());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Take category weights from the in-memory product counts, re-ranking only the categories whose count changed
+     */
+    private synchronized void reweighCategories() {
+        Map<Long, Long> productCounts = categoryProductCounts.directTotals();
+        if (productCounts == null || !categoryBuild.isReady()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<Long, Suggestion> entry : categoryEntries.entrySet()) {
+                Suggestion current = entry.getValue();
+                long productCount = productCounts.getOrDefault(entry.getKey(), 0L);
+                if (current.weight() != productCount) {
+                    Suggestion reweighed = new Suggestion(current.id(), current.name(), current.slug(), productCount);
+                    entry.setValue(reweighed);
+                    categories.put(reweighed, nameKeys(reweighed.name()));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Suggestion toSuggestion(ProductSuggestionDocument document) {
+        return new Suggestion(document.publicId(), document.name(), document.slug(), document.popularity());
+    }
+
+    private static Suggestion toSuggestion(CategorySuggestionDocument document, long productCount) {
+        return new Suggestion(document.publicId(), document.name(), document.slug(), productCount);
+    }
+
+    private static List<SuggestionResponse.Item> toItems(List<Suggestion> suggestions) {
+        return suggestions.stream()
+                .map(suggestion -> new SuggestionResponse.Item(suggestion.id(), suggestion.name(), suggestion.slug()))
+                .toList();
+    }
+
+    private static Map<Long, Long> counts(List<IdCount> rows) {
+        Map<Long, Long> counts = new HashMap<>(rows.size() * 2);
+        rows.forEach(row -> counts.put(row.id(), row.count()));
+        return counts;
+    }
+
+    private static List<String> productKeys(ProductSuggestionDocument document) {
+        List<String> keys = nameKeys(document.name());
+        String sku = truncate(normalize(document.sku()));
+        if (!sku.isEmpty()) {
+            keys.add(sku);
+        }
+        return keys;
+    }
+
+    /**
+     * Every suffix of the normalized name that starts at a word
+     */
+    static List<String> nameKeys(String name) {
+        String normalized = normalize(name);
+        List<String> keys = new ArrayList<>();
+        for (int start = 0; start < normalized.length(); start++) {
+            if (start == 0 || normalized.charAt(start - 1) == ' ') {
+                keys.add(truncate(normalized.substring(start)));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Lower-case the text and collapse every run of characters that are not letters or digits into one space
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && !normalized.isEmpty()) {
+                    normalized.append(' ');
+                }
+                normalized.append(Character.toLowerCase(c));
+                pendingSpace = false;
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static String truncate(String key) {
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH).stripTrailing() : key;
+    }
+}
@@ -0,0 +1,243 @@
+package com.saveitforlater.ecommerce.domain.product.suggest;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prefix trie that answers "the best k entries under this prefix" by a walk down the prefix.
+ * <p>
+ * Every node caches the top k entries of its subtree, so a lookup costs the prefix length and never
+ * scans the subtree. An entry may be stored under several keys; the caches hold it once. Writes
+ * recompute the caches on the path of each changed key. A bulk load adds keys without ranking and
+ * then computes all caches in one bottom-up pass.
+ * <p>
+ * Not thread-safe; {@link SuggestionIndex} guards it.
+ */
+final class TopKTrie {
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final char[] NO_LABELS = new char[0];
+    private static final Suggestion[] NO_SUGGESTIONS = new Suggestion[0];
+
+    /**
+     * Best first: higher weight, then shorter and alphabetically smaller name, then ID for a total order
+     */
+    static final Comparator<Suggestion> RANKING = Comparator.comparingLong(Suggestion::weight).reversed()
+            .thenComparingInt(suggestion -> suggestion.name().length())
+            .thenComparing(Suggestion::name)
+            .thenComparing(Suggestion::id);
+
+    private final int k;
+    private final Node root = new Node();
+    // entry ID -> keys it is stored under
+    private final Map<String, List<String>> keysById = new HashMap<>();
+
+    TopKTrie(int k) {
+        this.k = k;
+    }
+
+    /**
+     * The best entries whose keys start with the prefix, at most {@code limit} (capped at k)
+     */
+    List<Suggestion> top(String prefix, int limit) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        Suggestion[] top = node.top;
+        return List.of(Arrays.copyOf(top, Math.min(limit, top.length)));
+    }
+
+    int size() {
+        return keysById.size();
+    }
+
+    /**
+     * Store an entry under its keys, replacing any previous version of it, and re-rank the affected paths
+     */
+    void put(Suggestion entry, List<String> keys) {
+        remove(entry.id());
+        add(entry, keys, true);
+    }
+
+    /**
+     * Store an entry without ranking; call {@link #rankAll()} once all entries are loaded
+     */
+    void load(Suggestion entry, List<String> keys) {
+        add(entry, keys, false);
+    }
+
+    void remove(String id) {
+        List<String> keys = keysById.remove(id);
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            Deque<Node> path = path(key);
+            if (path == null) {
+                continue;
+            }
+            path.peekLast().terminals.remove(id);
+            rerank(path);
+        }
+    }
+
+    /**
+     * Compute the cache of every node bottom-up
+     */
+    void rankAll() {
+        rankSubtree(root);
+    }
+
+    private void add(Suggestion entry, List<String> keys, boolean rank) {
+        List<String> distinctKeys = keys.stream().filter(key -> !key.isEmpty()).distinct().toList();
+        if (distinctKeys.isEmpty()) {
+            return;
+        }
+        keysById.put(entry.id(), distinctKeys);
+        for (String key : distinctKeys) {
+            Deque<Node> path = new ArrayDeque<>(key.length() + 1);
+            Node node = root;
+            path.add(node);
+            for (int i = 0; i < key.length(); i++) {
+                node = node.childOrCreate(key.charAt(i));
+                path.add(node);
+            }
+            if (node.terminals.isEmpty()) {
+                node.terminals = new LinkedHashMap<>(2);
+            }
+            node.terminals.put(entry.id(), entry);
+            if (rank) {
+                rerank(path);
+            }
+        }
+    }
+
+    private Deque<Node> path(String key) {
+        Deque<Node> path = new ArrayDeque<>(key.length() + 1);
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < key.length(); i++) {
+            node = node.child(key.charAt(i));
+            if (node == null) {
+                return null;
+            }
+            path.add(node);
+        }
+        return path;
+    }
+
+    /**
+     * Recompute the caches from the end of the path up to the root, pruning nodes left empty
+     */
+    private void rerank(Deque<Node> path) {
+        Node child = null;
+        char childLabel = 0;
+        for (Node node = path.pollLast(); node != null; node = path.pollLast()) {
+            if (child != null && child.isEmpty()) {
+                node.removeChild(childLabel);
+            }
+            node.top = merge(node);
+            if (!path.isEmpty()) {
+                childLabel = path.peekLast().labelOf(node);
+            }
+            child = node;
+        }
+    }
+
+    private void rankSubtree(Node node) {
+        for (Node child : node.children) {
+            rankSubtree(child);
+        }
+        node.top = merge(node);
+    }
+
+    private Suggestion[] merge(Node node) {
+        if (node.children.length == 0 && node.terminals.size() <= 1) {
+            return node.terminals.isEmpty() ? NO_SUGGESTIONS : node.terminals.values().toArray(NO_SUGGESTIONS);
+        }
+        Map<String, Suggestion> candidates = new HashMap<>(node.terminals);
+        for (Node child : node.children) {
+            for (Suggestion suggestion : child.top) {
+                candidates.putIfAbsent(suggestion.id(), suggestion);
+            }
+        }
+        List<Suggestion> ranked = new ArrayList<>(candidates.values());
+        ranked.sort(RANKING);
+        return ranked.subList(0, Math.min(k, ranked.size())).toArray(NO_SUGGESTIONS);
+    }
+
+    /**
+     * Children are kept in parallel arrays sorted by label, which is far smaller than a map per node
+     */
+    private static final class Node {
+        private char[] labels = NO_LABELS;
+        private Node[] children = NO_CHILDREN;
+        // entries whose key ends at this node, by ID
+        private Map<String, Suggestion> terminals = Map.of();
+        private Suggestion[] top = NO_SUGGESTIONS;
+
+        Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node childOrCreate(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertAt = -index - 1;
+            Node child = new Node();
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newLabels[insertAt] = label;
+            newChildren[insertAt] = child;
+            System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            labels = newLabels;
+            children = newChildren;
+            return child;
+        }
+
+        char labelOf(Node child) {
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == child) {
+                    return labels[i];
+                }
+            }
+            throw new IllegalStateException("Not a child of this node");
+        }
+
+        void removeChild(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            if (index < 0) {
+                return;
+            }
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(labels, index + 1, newLabels, index, labels.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            labels = newLabels;
+            children = newChildren;
+        }
+
+        boolean isEmpty() {
+            return children.length == 0 && terminals.isEmpty();
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.saveitforlater.ecommerce.domain.util;
 
 import java.text.Normalizer;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Locale;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 /**
@@ -63,4 +66,67 @@ public class SlugGenerator {
     public static String generateUniqueSlug(String baseSlug, int counter) {
         return baseSlug + "-" + counter;
     }
+
+    /**
+     * Regular expression matching the counter variants of a base slug ("base-2", not "base-x"),
+     * with characters of the base slug other than letters, digits, '_' and '-' escaped.
+     *
+     * @param baseSlug the base slug
+     * @return the REGEXP pattern
+     */
+    public static String variantPattern(String baseSlug) {
+        StringBuilder pattern = new StringBuilder(baseSlug.length() + 10).append('^');
+        for (int i = 0; i < baseSlug.length(); i++) {
+            char c = baseSlug.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '-') {
+                pattern.append('\\');
+            }
+            pattern.append(c);
+        }
+        return pattern.append("-[0-9]+$").toString();
+    }
+
+    /**
+     * Picks the first free slug given the base slug and its existing variants: the base slug itself,
+     * or the base slug with the lowest unused counter, as {@link #generateUniqueSlug} would produce it.
+     *
+     * @param baseSlug the base slug
+     * @param existing slugs already taken; entries that are not the base slug or one of its
+     *                 counter variants are ignored
+     * @return a slug not contained in {@code existing}
+     */
+    public static String nextAvailableSlug(String baseSlug, Collection<String> existing) {
+        Set<Integer> usedCounters = new HashSet<>();
+        boolean baseTaken = false;
+        String prefix = baseSlug + "-";
+        for (String slug : existing) {
+            if (slug.equals(baseSlug)) {
+                baseTaken = true;
+            } else if (slug.startsWith(prefix)) {
+                parseCounter(slug.substring(prefix.length()), usedCounters);
+            }
+        }
+        if (!baseTaken) {
+            return baseSlug;
+        }
+        int counter = 1;
+        while (usedCounters.contains(counter)) {
+            counter++;
+        }
+        return generateUniqueSlug(baseSlug, counter);
+    }
+
+    private static void parseCounter(String suffix, Set<Integer> usedCounters) {
+        // Only canonical counters ("2", not "02" or "2a") can collide with a generated slug
+        if (suffix.isEmpty() || suffix.length() > 9 || suffix.charAt(0) == '0') {
+            return;
+        }
+        for (int i = 0; i < suffix.length(); i++) {
+            char c = suffix.charAt(i);
+            if (c < '0' || c > '9') {
+                return;
+            }
+        }
+        usedCounters.add(Integer.parseInt(suffix));
+    }
 }
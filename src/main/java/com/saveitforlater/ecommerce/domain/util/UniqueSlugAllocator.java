@@ -0,0 +1,61 @@
+package com.saveitforlater.ecommerce.domain.util;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * Creates entities under a unique slug derived from a base slug.
+ * <p>
+ * The base slug and all of its counter variants are read with one query and the first free slug is
+ * picked in memory. The unique constraint on the slug column decides races: the entity is created
+ * and flushed in its own transaction, and when the insert fails because a concurrent create took
+ * the same slug, the allocation is retried with fresh variants.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UniqueSlugAllocator {
+
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Look up the slugs already taken for a base slug and its counter variants
+     */
+    @FunctionalInterface
+    public interface SlugVariantLookup {
+        Collection<String> findSlugVariants(String slug, String pattern);
+    }
+
+    /**
+     * Create an entity under the first free variant of {@code baseSlug}.
+     *
+     * @param baseSlug the slug to use, or to append a counter to when taken
+     * @param lookup   query returning the existing variants of a slug
+     * @param creator  creates and flushes the entity with the allocated slug; runs in a new transaction
+     * @return the creator's result
+     * @throws DataIntegrityViolationException when the insert fails for any reason other than a
+     *                                         slug taken concurrently, or keeps failing on the slug
+     */
+    public <T> T create(String baseSlug, SlugVariantLookup lookup, Function<String, T> creator) {
+        String pattern = SlugGenerator.variantPattern(baseSlug);
+        for (int attempt = 1; ; attempt++) {
+            String slug = SlugGenerator.nextAvailableSlug(baseSlug, lookup.findSlugVariants(baseSlug, pattern));
+            try {
+                return transactionTemplate.execute(status -> creator.apply(slug));
+            } catch (DataIntegrityViolationException ex) {
+                if (attempt == MAX_ATTEMPTS || !lookup.findSlugVariants(baseSlug, pattern).contains(slug)) {
+                    throw ex;
+                }
+                log.debug("Slug {} was taken concurrently, retrying allocation (attempt {})", slug, attempt);
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.saveitforlater.ecommerce.persistence.entity.cart;
 
 import com.saveitforlater.ecommerce.persistence.entity.product.Product;
+import com.saveitforlater.ecommerce.persistence.id.PooledId;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -22,7 +23,7 @@ import java.util.UUID;
 public class CartItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId(sequence = "cart_item_seq")
     private Long id;
 
     @Column(nullable = false, unique = true, updatable = false, length = 36)
@@ -72,8 +73,6 @@ public class CartItem {
 
     // Get current product price (might be different from priceAtAddition)
     public BigDecimal getCurrentPrice() {
-        return product.getSalePrice().compareTo(BigDecimal.ZERO) > 0 
-                ? product.getSalePrice() 
-                : product.getPrice();
+        return product.getEffectivePrice();
     }
 }
@@ -1,6 +1,7 @@
 package com.saveitforlater.ecommerce.persistence.entity.category;
 
 import com.saveitforlater.ecommerce.persistence.entity.product.Product;
+import com.saveitforlater.ecommerce.persistence.id.PooledId;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -21,7 +22,7 @@ import java.util.UUID;
 public class Category {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId(sequence = "category_seq")
     private Long id;
 
     @Column(nullable = false, unique = true, updatable = false, length = 36)
@@ -0,0 +1,43 @@
+package com.saveitforlater.ecommerce.persistence.entity.category;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+
+/**
+ * One (ancestor, descendant) pair of the category hierarchy; every category is also paired with
+ * itself at depth 0. Rows are written by CategoryClosureRepository's bulk statements only.
+ */
+@Entity
+@Table(name = "category_closure")
+@IdClass(CategoryClosure.Key.class)
+@Getter
+@NoArgsConstructor // Required by JPA
+@Immutable
+public class CategoryClosure {
+
+    @Id
+    @Column(name = "ancestor_id")
+    private Long ancestorId;
+
+    @Id
+    @Column(name = "descendant_id")
+    private Long descendantId;
+
+    @Column(nullable = false)
+    private int depth;
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long ancestorId;
+        private Long descendantId;
+    }
+}
@@ -1,5 +1,6 @@
 package com.saveitforlater.ecommerce.persistence.entity.file;
 
+import com.saveitforlater.ecommerce.persistence.id.PooledId;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -18,7 +19,7 @@ import java.util.UUID;
 public class FileMetadata {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId(sequence = "file_metadata_seq")
     private Long id;
 
     @Column(nullable = false, unique = true, updatable = false, length = 36)
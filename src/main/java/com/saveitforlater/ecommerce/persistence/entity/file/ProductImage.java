@@ -1,6 +1,7 @@
 package com.saveitforlater.ecommerce.persistence.entity.file;
 
 import com.saveitforlater.ecommerce.persistence.entity.product.Product;
+import com.saveitforlater.ecommerce.persistence.id.PooledId;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -19,7 +20,7 @@ import java.util.UUID;
 public class ProductImage {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId(sequence = "product_image_seq")
     private Long id;
 
     @Column(nullable = false, unique = true, updatable = false, length = 36)
@@ -1,6 +1,7 @@
 package com.saveitforlater.ecommerce.persistence.entity.order;
 
 import com.saveitforlater.ecommerce.persistence.entity.user.User;
+import com.saveitforlater.ecommerce.persistence.id.PooledId;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -22,7 +23,7 @@ import java.util.UUID;
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId(sequence = "orders_seq")
     private Long id;
 
     @Column(nullable = false, unique = true, updatable = false, length = 36)
@@ -1,6 +1,7 @@
 package com.saveitforlater.ecommerce.persistence.entity.order;
 
 import com.saveitforlater.ecommerce.persistence.entity.product.Product;
+import com.saveitforlater.ecommerce.persistence.id.PooledId;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -20,7 +21,7 @@ import java.util.UUID;
 public class OrderItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId(sequence = "order_item_seq")
     private Long id;
 
     @Column(nullable = false, unique = true, updatable = false, length = 36)
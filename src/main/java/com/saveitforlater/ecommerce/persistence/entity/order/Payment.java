@@ -1,5 +1,6 @@
 package com.saveitforlater.ecommerce.persistence.entity.order;
 
+import com.saveitforlater.ecommerce.persistence.id.PooledId;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -19,7 +20,7 @@ import java.util.UUID;
 public class Payment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId(sequence = "payment_seq")
     private Long id;
 
     @Column(nullable = false, unique = true, updatable = false, length = 36)
@@ -1,5 +1,6 @@
 package com.saveitforlater.ecommerce.persistence.entity.product;
 
+import com.saveitforlater.ecommerce.persistence.id.PooledId;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -28,7 +29,7 @@ import java.util.UUID;
 public class Attribute {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId(sequence = "attribute_seq")
     private Long id;
 
     @Column(nullable = false, unique = true, updatable = false, length = 36)
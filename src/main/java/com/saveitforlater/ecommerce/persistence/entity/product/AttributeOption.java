@@ -1,5 +1,6 @@
 package com.saveitforlater.ecommerce.persistence.entity.product;
 
+import com.saveitforlater.ecommerce.persistence.id.PooledId;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -26,7 +27,7 @@ import java.util.UUID;
 public class AttributeOption {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId(sequence = "attribute_option_seq")
     private Long id;
 
     @Column(nullable = false, unique = true, updatable = false, length = 36)
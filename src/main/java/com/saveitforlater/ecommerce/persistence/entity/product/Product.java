@@ -4,10 +4,13 @@ package com.saveitforlater.ecommerce.persistence.entity.product;
 
 import com.saveitforlater.ecommerce.persistence.entity.category.Category;
 import com.saveitforlater.ecommerce.persistence.entity.file.ProductImage;
+import com.saveitforlater.ecommerce.persistence.id.PooledId;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -27,7 +30,7 @@ import java.util.UUID;
 public class Product {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId(sequence = "product_seq")
     private Long id;
 
     @Column(nullable = false, unique = true, updatable = false, length = 36)
@@ -55,9 +58,20 @@ public class Product {
     @Column(nullable = false, precision = 19, scale = 2)
     private BigDecimal salePrice;
 
+    // Denormalized for indexed price filtering and sorting; kept in sync on persist and update
+    @Setter(AccessLevel.NONE)
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal effectivePrice;
+
     @Column(nullable = false)
     private int stockQuantity = 0;
 
+    // Weighted view, add-to-cart and purchase count; written only by ProductStatsCounters' periodic flush
+    @Setter(AccessLevel.NONE)
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long popularity;
+
     // This is the "owning" side of the relationship.
     // Hibernate will automatically create the "product_category" join table.
     @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE})
@@ -90,6 +104,23 @@ public class Product {
         if (this.publicId == null) {
             this.publicId = UUID.randomUUID().toString();
         }
+        this.effectivePrice = getEffectivePrice();
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        this.effectivePrice = getEffectivePrice();
+    }
+
+    /**
+     * The price a customer pays: the sale price when one is set, otherwise the regular price
+     */
+    public BigDecimal getEffectivePrice() {
+        return effectivePriceOf(price, salePrice);
+    }
+
+    public static BigDecimal effectivePriceOf(BigDecimal price, BigDecimal salePrice) {
+        return salePrice != null && salePrice.signum() > 0 ? salePrice : price;
     }
 
     // Helper methods for managing attribute values
@@ -1,5 +1,6 @@
 package com.saveitforlater.ecommerce.persistence.entity.product;
 
+import com.saveitforlater.ecommerce.persistence.id.PooledId;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -24,7 +25,7 @@ import java.time.Instant;
 public class ProductAttributeValue {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId(sequence = "product_attribute_value_seq")
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,44 @@
+package com.saveitforlater.ecommerce.persistence.entity.product;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.Instant;
+
+/**
+ * Running engagement counts of a product. Rows are only written by the batched upserts of
+ * ProductStatsCounters, so the entity is read-only.
+ */
+@Entity
+@Table(name = "product_stats")
+@Getter
+@NoArgsConstructor // Required by JPA
+@Immutable
+public class ProductStats {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Product product;
+
+    @Column(nullable = false)
+    private long viewCount;
+
+    @Column(nullable = false)
+    private long addToCartCount;
+
+    @Column(nullable = false)
+    private long purchaseCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
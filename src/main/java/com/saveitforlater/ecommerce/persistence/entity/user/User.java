@@ -1,5 +1,6 @@
 package com.saveitforlater.ecommerce.persistence.entity.user;
 
+import com.saveitforlater.ecommerce.persistence.id.PooledId;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
@@ -23,7 +24,7 @@ import java.util.UUID;
 public class User implements UserDetails {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId(sequence = "appuser_seq")
     private Long id;
 
     @Column(nullable = false, unique = true, updatable = false, length = 36)
@@ -0,0 +1,108 @@
+package com.saveitforlater.ecommerce.persistence.id;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Reserves ranges of IDs from the sequence tables used by {@link PooledId} entities, for code that
+ * inserts rows with plain JDBC or native SQL (bulk import, cart upserts). Uses the same table protocol as {@link PooledIdGenerator},
+ * so IDs handed out by either never overlap.
+ * <p>
+ * A sequence table has a single row holding the next free ID; reserving n IDs adds n to it.
+ */
+@Component
+public class IdBlockAllocator {
+
+    private static final Pattern SEQUENCE_NAME = Pattern.compile("[a-z][a-z0-9_]*_seq");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int blockSize;
+
+    // sequence -> IDs reserved for single-row inserts and not handed out yet
+    private final Map<String, IdBlock> blocks = new ConcurrentHashMap<>();
+
+    public IdBlockAllocator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                            @Value("${app.id.block-size:50}") int blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * One ID for a single-row insert. Handed out from memory; like {@link PooledIdGenerator}, only one
+     * call per block size reserves a new block.
+     */
+    public long next(String sequence) {
+        return blocks.computeIfAbsent(checkSequenceName(sequence), IdBlock::new).next();
+    }
+
+    /**
+     * Reserve {@code count} consecutive IDs and return the first. Runs in its own transaction,
+     * so the reservation holds even if the caller's transaction rolls back.
+     */
+    public long allocate(String sequence, int count) {
+        checkSequenceName(sequence);
+        if (count <= 0) {
+            throw new IllegalArgumentException("ID count must be positive: " + count);
+        }
+        Long firstId = transactionTemplate.execute(status -> jdbcTemplate.execute(
+                (ConnectionCallback<Long>) connection -> reserve(connection, sequence, count)));
+        return firstId;
+    }
+
+    static long reserve(Connection connection, String sequence, int count) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE " + sequence + " SET next_val = next_val + ?")) {
+            update.setLong(1, count);
+            if (update.executeUpdate() != 1) {
+                throw new IllegalStateException("Sequence table " + sequence + " must contain exactly one row");
+            }
+        }
+        try (PreparedStatement select = connection.prepareStatement("SELECT next_val FROM " + sequence);
+             ResultSet resultSet = select.executeQuery()) {
+            resultSet.next();
+            return resultSet.getLong(1) - count;
+        }
+    }
+
+    private final class IdBlock {
+        private final String sequence;
+        private long nextId = 0;
+        private long blockEnd = 0;
+
+        IdBlock(String sequence) {
+            this.sequence = sequence;
+        }
+
+        synchronized long next() {
+            if (nextId == blockEnd) {
+                nextId = allocate(sequence, blockSize);
+                blockEnd = nextId + blockSize;
+            }
+            return nextId++;
+        }
+    }
+
+    static String checkSequenceName(String sequence) {
+        // Table names cannot be bound as parameters; only allow plain identifiers
+        if (!SEQUENCE_NAME.matcher(sequence).matches()) {
+            throw new IllegalArgumentException("Invalid sequence table name: " + sequence);
+        }
+        return sequence;
+    }
+}
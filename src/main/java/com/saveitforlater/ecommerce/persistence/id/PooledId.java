@@ -0,0 +1,25 @@
+package com.saveitforlater.ecommerce.persistence.id;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Assigns entity IDs from blocks reserved in a single-row sequence table (see {@link PooledIdGenerator}).
+ * Unlike IDENTITY the ID is known before the INSERT, which lets Hibernate batch inserts.
+ */
+@IdGeneratorType(PooledIdGenerator.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface PooledId {
+
+    /**
+     * Name of the sequence table holding the next free ID, by convention {@code <table>_seq}
+     */
+    String sequence();
+}
@@ -0,0 +1,77 @@
+package com.saveitforlater.ecommerce.persistence.id;
+
+import org.hibernate.boot.model.relational.Database;
+import org.hibernate.boot.model.relational.SimpleAuxiliaryDatabaseObject;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.jdbc.AbstractReturningWork;
+
+import java.lang.reflect.Member;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Hibernate generator behind {@link PooledId}. Reserves a block of IDs from the sequence table in a
+ * separate transaction and hands them out from memory, so only one in every block-size inserts
+ * touches the sequence table. Works the same on MySQL and H2.
+ */
+public class PooledIdGenerator implements BeforeExecutionGenerator {
+
+    /**
+     * Hibernate setting with the number of IDs reserved per round trip
+     */
+    public static final String BLOCK_SIZE_SETTING = "app.id.block-size";
+
+    private static final int DEFAULT_BLOCK_SIZE = 50;
+
+    private final String sequence;
+    private final int blockSize;
+
+    private long nextId = 0;
+    private long blockEnd = 0;
+
+    public PooledIdGenerator(PooledId config, Member member, CustomIdGeneratorCreationContext context) {
+        this.sequence = IdBlockAllocator.checkSequenceName(config.sequence());
+        this.blockSize = ConfigurationHelper.getInt(BLOCK_SIZE_SETTING,
+                context.getServiceRegistry().requireService(ConfigurationService.class).getSettings(),
+                DEFAULT_BLOCK_SIZE);
+
+        // Lets schema generation (embedded databases) create the table; Flyway creates it everywhere else
+        Database database = context.getDatabase();
+        database.addAuxiliaryDatabaseObject(new SimpleAuxiliaryDatabaseObject(
+                database.getDefaultNamespace(),
+                new String[]{"create table " + sequence + " (next_val bigint not null)",
+                        "insert into " + sequence + " (next_val) values (1)"},
+                new String[]{"drop table if exists " + sequence},
+                Set.of()));
+    }
+
+    @Override
+    public synchronized Object generate(SharedSessionContractImplementor session, Object owner,
+                                        Object currentValue, EventType eventType) {
+        if (nextId == blockEnd) {
+            // Reserve outside the current transaction so the sequence row is not locked until it commits
+            nextId = session.getTransactionCoordinator().createIsolationDelegate().delegateWork(
+                    new AbstractReturningWork<Long>() {
+                        @Override
+                        public Long execute(Connection connection) throws SQLException {
+                            return IdBlockAllocator.reserve(connection, sequence, blockSize);
+                        }
+                    }, true);
+            blockEnd = nextId + blockSize;
+        }
+        return nextId++;
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
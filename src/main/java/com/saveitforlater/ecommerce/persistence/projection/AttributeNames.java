@@ -0,0 +1,10 @@
+package com.saveitforlater.ecommerce.persistence.projection;
+
+/**
+ * The columns an attribute can be looked up by.
+ */
+public record AttributeNames(
+        Long id,
+        String name,
+        String slug
+) {}
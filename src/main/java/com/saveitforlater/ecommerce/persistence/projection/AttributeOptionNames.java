@@ -0,0 +1,11 @@
+package com.saveitforlater.ecommerce.persistence.projection;
+
+/**
+ * The columns an attribute option can be looked up by within its attribute.
+ */
+public record AttributeOptionNames(
+        Long id,
+        Long attributeId,
+        String name,
+        String slug
+) {}
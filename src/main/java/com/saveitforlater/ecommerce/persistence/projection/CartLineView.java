@@ -0,0 +1,28 @@
+package com.saveitforlater.ecommerce.persistence.projection;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * One row of a cart read: the cart columns (repeated on every row) and one item with the product
+ * summary columns. An empty cart reads as a single row whose item and product columns are null.
+ */
+public record CartLineView(
+        Long cartId,
+        String cartPublicId,
+        String userPublicId,
+        Instant cartCreatedAt,
+        Instant cartUpdatedAt,
+        String itemPublicId,
+        Integer quantity,
+        BigDecimal priceAtAddition,
+        Instant itemCreatedAt,
+        Instant itemUpdatedAt,
+        String productPublicId,
+        String sku,
+        String productName,
+        String productSlug,
+        BigDecimal price,
+        BigDecimal salePrice,
+        Integer stockQuantity
+) {}
@@ -0,0 +1,16 @@
+package com.saveitforlater.ecommerce.persistence.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * The product columns a cart item response shows.
+ */
+public record CartProductView(
+        String publicId,
+        String sku,
+        String name,
+        String slug,
+        BigDecimal price,
+        BigDecimal salePrice,
+        int stockQuantity
+) {}
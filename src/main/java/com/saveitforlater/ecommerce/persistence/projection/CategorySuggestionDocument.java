@@ -0,0 +1,11 @@
+package com.saveitforlater.ecommerce.persistence.projection;
+
+/**
+ * The category columns indexed for typeahead suggestions.
+ */
+public record CategorySuggestionDocument(
+        Long id,
+        String publicId,
+        String name,
+        String slug
+) {}
@@ -0,0 +1,13 @@
+package com.saveitforlater.ecommerce.persistence.projection;
+
+/**
+ * One category with its parent's ID, enough to assemble the category tree from a single query.
+ */
+public record CategoryTreeRow(
+        Long id,
+        String publicId,
+        String name,
+        String slug,
+        String description,
+        Long parentId
+) {}
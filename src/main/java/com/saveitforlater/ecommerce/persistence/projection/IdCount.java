@@ -0,0 +1,9 @@
+package com.saveitforlater.ecommerce.persistence.projection;
+
+/**
+ * An aggregate count keyed by entity ID.
+ */
+public record IdCount(
+        Long id,
+        Long count
+) {}
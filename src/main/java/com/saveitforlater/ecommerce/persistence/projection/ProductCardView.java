@@ -0,0 +1,18 @@
+package com.saveitforlater.ecommerce.persistence.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Slim read-only projection of a product and its primary image, used by listing pages.
+ * Built with a JPQL constructor expression so the TEXT description and associations are never loaded.
+ */
+public record ProductCardView(
+        Long id,
+        String publicId,
+        String name,
+        String slug,
+        BigDecimal price,
+        BigDecimal salePrice,
+        int stockQuantity,
+        String primaryImagePublicId // null when the product has no primary image
+) {}
@@ -0,0 +1,13 @@
+package com.saveitforlater.ecommerce.persistence.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * The product columns the facet index keeps per product.
+ */
+public record ProductFacetRow(
+        Long id,
+        BigDecimal price,
+        BigDecimal salePrice,
+        int stockQuantity
+) {}
@@ -0,0 +1,9 @@
+package com.saveitforlater.ecommerce.persistence.projection;
+
+/**
+ * A (product ID, related entity ID) pair, e.g. a product's category or attribute option.
+ */
+public record ProductLink(
+        Long productId,
+        Long targetId
+) {}
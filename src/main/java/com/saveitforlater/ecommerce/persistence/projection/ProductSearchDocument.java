@@ -0,0 +1,11 @@
+package com.saveitforlater.ecommerce.persistence.projection;
+
+/**
+ * The product columns indexed for full-text search.
+ */
+public record ProductSearchDocument(
+        Long id,
+        String name,
+        String shortDescription,
+        String sku
+) {}
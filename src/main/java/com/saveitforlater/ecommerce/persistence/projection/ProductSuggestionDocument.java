@@ -0,0 +1,13 @@
+package com.saveitforlater.ecommerce.persistence.projection;
+
+/**
+ * The product columns indexed for typeahead suggestions.
+ */
+public record ProductSuggestionDocument(
+        Long id,
+        String publicId,
+        String name,
+        String slug,
+        String sku,
+        long popularity
+) {}
@@ -6,8 +6,14 @@ import com.saveitforlater.ecommerce.persistence.entity.product.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -20,4 +26,32 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     Page<CartItem> findByCart(Cart cart, Pageable pageable);
     
     void deleteByCart(Cart cart);
+
+    @Query("SELECT ci FROM CartItem ci JOIN FETCH ci.product WHERE ci.cart.id = :cartId")
+    List<CartItem> findWithProductByCartId(@Param("cartId") Long cartId);
+
+    // Add a product to a cart at its current effective price, or add to the quantity already in the cart
+    // (unique_cart_product), in one statement. Nothing is written, and 0 returned, when the product does
+    // not exist or the cart would then hold more than its stock. The new row is a derived table so the
+    // update can refer to it by name (VALUES() is deprecated).
+    @Modifying
+    @Query(value = "INSERT INTO cart_item (id, public_id, cart_id, product_id, quantity, price_at_addition, created_at, updated_at) " +
+                   "SELECT * FROM (" +
+                   "SELECT :id AS id, :publicId AS public_id, :cartId AS cart_id, p.id AS product_id, :quantity AS quantity, " +
+                   "p.effective_price AS price_at_addition, :now AS created_at, :now AS updated_at " +
+                   "FROM product p LEFT JOIN cart_item ci ON ci.cart_id = :cartId AND ci.product_id = p.id " +
+                   "WHERE p.public_id = :productPublicId AND p.stock_quantity >= :quantity + COALESCE(ci.quantity, 0)" +
+                   ") AS delta " +
+                   "ON DUPLICATE KEY UPDATE quantity = cart_item.quantity + delta.quantity, updated_at = delta.updated_at",
+           nativeQuery = true)
+    int upsertItem(@Param("id") long id, @Param("publicId") String publicId, @Param("cartId") Long cartId,
+                   @Param("productPublicId") String productPublicId, @Param("quantity") int quantity,
+                   @Param("now") Instant now);
+
+    @Query("SELECT ci.quantity FROM CartItem ci WHERE ci.cart.id = :cartId AND ci.product.publicId = :productPublicId")
+    Optional<Integer> findQuantity(@Param("cartId") Long cartId, @Param("productPublicId") String productPublicId);
+
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.id IN :cartIds")
+    int deleteByCartIdIn(@Param("cartIds") Collection<Long> cartIds);
 }
@@ -2,17 +2,70 @@ package com.saveitforlater.ecommerce.persistence.repository.cart;
 
 import com.saveitforlater.ecommerce.persistence.entity.cart.Cart;
 import com.saveitforlater.ecommerce.persistence.entity.user.User;
+import com.saveitforlater.ecommerce.persistence.projection.CartLineView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
 
+    String CART_LINES = "SELECT new com.saveitforlater.ecommerce.persistence.projection.CartLineView(" +
+            "c.id, c.publicId, u.publicId, c.createdAt, c.updatedAt, " +
+            "i.publicId, i.quantity, i.priceAtAddition, i.createdAt, i.updatedAt, " +
+            "p.publicId, p.sku, p.name, p.slug, p.price, p.salePrice, p.stockQuantity) " +
+            "FROM Cart c JOIN c.user u LEFT JOIN c.items i LEFT JOIN i.product p ";
+
     Optional<Cart> findByPublicId(String publicId);
     
     Optional<Cart> findByUser(User user);
     
     Optional<Cart> findByUserPublicId(String userPublicId);
+
+    @Query("SELECT c.id FROM Cart c WHERE c.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+
+    // Mark the user's cart as in use, so the abandoned cart purge keeps it; waits while a purge has it locked
+    @Modifying
+    @Query("UPDATE Cart c SET c.updatedAt = :now WHERE c.user.id = :userId")
+    int touchByUserId(@Param("userId") Long userId, @Param("now") Instant now);
+
+    // The user's cart ID, locking the cart row until the transaction ends so item writes to one cart queue up
+    @Query(value = "SELECT c.id FROM cart c WHERE c.user_id = :userId FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockIdByUserId(@Param("userId") Long userId);
+
+    // A whole cart with its items and their product summaries in one query, items in the order they were added
+    @Query(CART_LINES + "WHERE c.id = :cartId ORDER BY i.id")
+    List<CartLineView> findLinesByCartId(@Param("cartId") Long cartId);
+
+    @Query(CART_LINES + "WHERE u.id = :userId ORDER BY i.id")
+    List<CartLineView> findLinesByUserId(@Param("userId") Long userId);
+
+    @Query(CART_LINES + "WHERE u.publicId = :userPublicId ORDER BY i.id")
+    List<CartLineView> findLinesByUserPublicId(@Param("userPublicId") String userPublicId);
+
+    // Carts neither the cart row nor any item of which changed since the cutoff, in ID order after lastId
+    @Query("SELECT c.id FROM Cart c WHERE c.id > :lastId AND c.updatedAt < :cutoff " +
+           "AND NOT EXISTS (SELECT 1 FROM CartItem ci WHERE ci.cart = c AND ci.updatedAt >= :cutoff) ORDER BY c.id")
+    List<Long> findAbandonedIdsAfter(@Param("lastId") Long lastId, @Param("cutoff") Instant cutoff, Pageable pageable);
+
+    // Re-check and lock the given carts for deletion; carts changed since they were found are left out,
+    // and item writes to the locked carts wait for the deleting transaction
+    @Query(value = "SELECT c.id FROM cart c WHERE c.id IN (:ids) AND c.updated_at < :cutoff " +
+                   "AND NOT EXISTS (SELECT 1 FROM cart_item ci WHERE ci.cart_id = c.id AND ci.updated_at >= :cutoff) " +
+                   "FOR UPDATE",
+           nativeQuery = true)
+    List<Long> lockAbandonedIdsIn(@Param("ids") Collection<Long> ids, @Param("cutoff") Instant cutoff);
+
+    @Modifying
+    @Query("DELETE FROM Cart c WHERE c.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
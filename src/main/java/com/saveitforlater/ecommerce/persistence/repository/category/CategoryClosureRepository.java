@@ -0,0 +1,45 @@
+package com.saveitforlater.ecommerce.persistence.repository.category;
+
+import com.saveitforlater.ecommerce.persistence.entity.category.CategoryClosure;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CategoryClosureRepository extends JpaRepository<CategoryClosure, CategoryClosure.Key> {
+
+    boolean existsByAncestorIdAndDescendantId(Long ancestorId, Long descendantId);
+
+    // The category and all of its descendants
+    @Query("SELECT cc.descendantId FROM CategoryClosure cc WHERE cc.ancestorId = :id")
+    List<Long> findSubtreeIds(@Param("id") Long id);
+
+    // Link a new category to itself
+    @Modifying
+    @Query(value = "INSERT INTO category_closure (ancestor_id, descendant_id, depth) VALUES (:id, :id, 0)",
+           nativeQuery = true)
+    int insertSelfLink(@Param("id") Long id);
+
+    // Detach a subtree from its current ancestors, keeping the links within it
+    @Modifying
+    @Query("DELETE FROM CategoryClosure cc WHERE cc.descendantId IN :subtreeIds AND cc.ancestorId NOT IN :subtreeIds")
+    int deleteExternalLinks(@Param("subtreeIds") Collection<Long> subtreeIds);
+
+    // Attach a detached subtree under a new parent: every ancestor of the parent to every node of the subtree
+    @Modifying
+    @Query(value = "INSERT INTO category_closure (ancestor_id, descendant_id, depth) " +
+                   "SELECT above.ancestor_id, below.descendant_id, above.depth + below.depth + 1 " +
+                   "FROM category_closure above CROSS JOIN category_closure below " +
+                   "WHERE above.descendant_id = :parentId AND below.ancestor_id = :id",
+           nativeQuery = true)
+    int insertSubtreeLinks(@Param("id") Long id, @Param("parentId") Long parentId);
+
+    @Modifying
+    @Query("DELETE FROM CategoryClosure cc WHERE cc.ancestorId = :id OR cc.descendantId = :id")
+    int deleteByCategoryId(@Param("id") Long id);
+}
@@ -1,9 +1,16 @@
 package com.saveitforlater.ecommerce.persistence.repository.category;
 
 import com.saveitforlater.ecommerce.persistence.entity.category.Category;
+import com.saveitforlater.ecommerce.persistence.projection.CategorySuggestionDocument;
+import com.saveitforlater.ecommerce.persistence.projection.CategoryTreeRow;
+import com.saveitforlater.ecommerce.persistence.projection.IdCount;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -12,10 +19,41 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
 
     Optional<Category> findByPublicId(String publicId);
 
+    List<Category> findByPublicIdIn(Collection<String> publicIds);
+
     Optional<Category> findByName(String name);
 
     Optional<Category> findBySlug(String slug);
 
+    // The slug and its counter variants, for unique slug allocation; the prefix LIKE keeps the
+    // lookup on the slug index and the pattern narrows it to numeric suffixes
+    @Query(value = "SELECT c.slug FROM category c WHERE c.slug = :slug " +
+                   "OR (c.slug LIKE CONCAT(:slug, '-%') AND c.slug REGEXP :pattern)",
+           nativeQuery = true)
+    List<String> findSlugVariants(@Param("slug") String slug, @Param("pattern") String pattern);
+
+    // Every category with its parent's ID, for the in-memory category tree
+    @Query("SELECT new com.saveitforlater.ecommerce.persistence.projection.CategoryTreeRow(" +
+           "c.id, c.publicId, c.name, c.slug, c.description, p.id) FROM Category c LEFT JOIN c.parent p ORDER BY c.id")
+    List<CategoryTreeRow> findTreeRows();
+
+    // Typeahead suggestion documents
+    @Query("SELECT new com.saveitforlater.ecommerce.persistence.projection.CategorySuggestionDocument(" +
+           "c.id, c.publicId, c.name, c.slug) FROM Category c")
+    List<CategorySuggestionDocument> findAllSuggestionDocuments();
+
+    @Query("SELECT new com.saveitforlater.ecommerce.persistence.projection.CategorySuggestionDocument(" +
+           "c.id, c.publicId, c.name, c.slug) FROM Category c WHERE c.id = :id")
+    Optional<CategorySuggestionDocument> findSuggestionDocumentById(@Param("id") Long id);
+
+    // Number of products directly assigned to each category that has any
+    @Query("SELECT new com.saveitforlater.ecommerce.persistence.projection.IdCount(c.id, COUNT(p)) " +
+           "FROM Product p JOIN p.categories c GROUP BY c.id")
+    List<IdCount> countProductsByCategory();
+
+    @Query("SELECT COUNT(p) FROM Product p JOIN p.categories c WHERE c.id = :id")
+    long countProductsByCategoryId(@Param("id") Long id);
+
     // Finds all top-level categories
     Set<Category> findByParentIsNull();
 }
\ No newline at end of file
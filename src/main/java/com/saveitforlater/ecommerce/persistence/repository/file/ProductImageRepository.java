@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +19,10 @@ public interface ProductImageRepository extends JpaRepository<ProductImage, Long
     List<ProductImage> findByProductIdOrderByDisplayOrderAsc(Long productId);
     
     List<ProductImage> findByProductPublicIdOrderByDisplayOrderAsc(String productPublicId);
+
+    @Query("SELECT pi FROM ProductImage pi JOIN FETCH pi.product p JOIN FETCH pi.fileMetadata " +
+           "WHERE p.id IN :productIds ORDER BY p.id, pi.displayOrder ASC")
+    List<ProductImage> findByProductIdsOrderByDisplayOrderAsc(@Param("productIds") Collection<Long> productIds);
     
     Optional<ProductImage> findByProductIdAndIsPrimaryTrue(Long productId);
     
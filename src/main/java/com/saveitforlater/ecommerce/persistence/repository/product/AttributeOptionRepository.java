@@ -2,6 +2,7 @@ package com.saveitforlater.ecommerce.persistence.repository.product;
 
 import com.saveitforlater.ecommerce.persistence.entity.product.Attribute;
 import com.saveitforlater.ecommerce.persistence.entity.product.AttributeOption;
+import com.saveitforlater.ecommerce.persistence.projection.AttributeOptionNames;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -30,6 +31,15 @@ public interface AttributeOptionRepository extends JpaRepository<AttributeOption
     @Query("SELECT ao FROM AttributeOption ao WHERE ao.attribute.publicId = :attributePublicId AND ao.isActive = true")
     List<AttributeOption> findActiveOptionsByAttributePublicId(@Param("attributePublicId") String attributePublicId);
     
+    // Lookup keys for the attribute registry
+    @Query("SELECT new com.saveitforlater.ecommerce.persistence.projection.AttributeOptionNames(" +
+           "ao.id, ao.attribute.id, ao.name, ao.slug) FROM AttributeOption ao")
+    List<AttributeOptionNames> findAllNames();
+
+    @Query("SELECT new com.saveitforlater.ecommerce.persistence.projection.AttributeOptionNames(" +
+           "ao.id, ao.attribute.id, ao.name, ao.slug) FROM AttributeOption ao WHERE ao.attribute.id = :attributeId")
+    List<AttributeOptionNames> findNamesByAttributeId(@Param("attributeId") Long attributeId);
+
     @Query("SELECT COUNT(ao) > 0 FROM AttributeOption ao WHERE ao.attribute = :attribute AND ao.name = :name AND ao.id != :id")
     boolean existsByAttributeAndNameAndIdNot(@Param("attribute") Attribute attribute, @Param("name") String name, @Param("id") Long id);
     
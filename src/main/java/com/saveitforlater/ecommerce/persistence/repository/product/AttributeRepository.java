@@ -1,6 +1,7 @@
 package com.saveitforlater.ecommerce.persistence.repository.product;
 
 import com.saveitforlater.ecommerce.persistence.entity.product.Attribute;
+import com.saveitforlater.ecommerce.persistence.projection.AttributeNames;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -27,6 +28,15 @@ public interface AttributeRepository extends JpaRepository<Attribute, Long> {
     @Query("SELECT a FROM Attribute a WHERE a.isActive = true ORDER BY a.name")
     List<Attribute> findAllActiveOrderByName();
     
+    // Lookup keys for the attribute registry
+    @Query("SELECT new com.saveitforlater.ecommerce.persistence.projection.AttributeNames(a.id, a.name, a.slug) " +
+           "FROM Attribute a")
+    List<AttributeNames> findAllNames();
+
+    @Query("SELECT new com.saveitforlater.ecommerce.persistence.projection.AttributeNames(a.id, a.name, a.slug) " +
+           "FROM Attribute a WHERE a.publicId = :publicId")
+    Optional<AttributeNames> findNamesByPublicId(@Param("publicId") String publicId);
+
     @Query("SELECT COUNT(a) > 0 FROM Attribute a WHERE a.name = :name AND a.id != :id")
     boolean existsByNameAndIdNot(@Param("name") String name, @Param("id") Long id);
     
@@ -4,11 +4,13 @@ import com.saveitforlater.ecommerce.persistence.entity.product.Attribute;
 import com.saveitforlater.ecommerce.persistence.entity.product.Product;
 import com.saveitforlater.ecommerce.persistence.entity.product.ProductAttributeValue;
 import com.saveitforlater.ecommerce.persistence.entity.product.AttributeOption;
+import com.saveitforlater.ecommerce.persistence.projection.ProductLink;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -41,4 +43,8 @@ public interface ProductAttributeValueRepository extends JpaRepository<ProductAt
     void deleteByProductAndAttribute(Product product, Attribute attribute);
     
     void deleteByProductAndAttributeAndAttributeOption(Product product, Attribute attribute, AttributeOption attributeOption);
-}
\ No newline at end of file
+
+    @Query("SELECT new com.saveitforlater.ecommerce.persistence.projection.ProductLink(pav.product.id, pav.attributeOption.id) " +
+           "FROM ProductAttributeValue pav WHERE pav.product.id IN :productIds AND pav.isActive = true")
+    List<ProductLink> findActiveOptionLinksByProductIdIn(@Param("productIds") Collection<Long> productIds);
+}
@@ -1,16 +1,107 @@
 package com.saveitforlater.ecommerce.persistence.repository.product;
 
 import com.saveitforlater.ecommerce.persistence.entity.product.Product;
+import com.saveitforlater.ecommerce.persistence.projection.CartProductView;
+import com.saveitforlater.ecommerce.persistence.projection.ProductFacetRow;
+import com.saveitforlater.ecommerce.persistence.projection.ProductLink;
+import com.saveitforlater.ecommerce.persistence.projection.ProductSearchDocument;
+import com.saveitforlater.ecommerce.persistence.projection.ProductSuggestionDocument;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+        ProductRepositoryCustom {
 
     Optional<Product> findByPublicId(String publicId);
     Optional<Product> findBySku(String sku);
     Optional<Product> findBySlug(String slug);
-}
\ No newline at end of file
+    List<Product> findByPublicIdIn(Collection<String> publicIds);
+
+    // The slug and its counter variants, for unique slug allocation; the prefix LIKE keeps the
+    // lookup on the slug index and the pattern narrows it to numeric suffixes
+    @Query(value = "SELECT p.slug FROM product p WHERE p.slug = :slug " +
+                   "OR (p.slug LIKE CONCAT(:slug, '-%') AND p.slug REGEXP :pattern)",
+           nativeQuery = true)
+    List<String> findSlugVariants(@Param("slug") String slug, @Param("pattern") String pattern);
+
+    // Set lookups for bulk import conflict checks
+    @Query("SELECT p.sku FROM Product p WHERE p.sku IN :skus")
+    List<String> findExistingSkus(@Param("skus") Collection<String> skus);
+
+    @Query("SELECT p.slug FROM Product p WHERE p.slug IN :slugs")
+    List<String> findExistingSlugs(@Param("slugs") Collection<String> slugs);
+
+    // Fetch plans for listing pages: load a page of products first, then initialize their
+    // associations with one fetch-join per collection (two collections in one query would
+    // produce a cartesian product).
+    @EntityGraph(attributePaths = {"categories", "categories.parent"})
+    List<Product> findWithCategoriesByIdIn(Collection<Long> ids);
+
+    @EntityGraph(attributePaths = {"attributeValues", "attributeValues.attribute", "attributeValues.attributeOption"})
+    List<Product> findWithAttributeValuesByIdIn(Collection<Long> ids);
+
+    // Search index documents, read in ID order so the index can be built in batches
+    @Query("SELECT new com.saveitforlater.ecommerce.persistence.projection.ProductSearchDocument(" +
+           "p.id, p.name, p.shortDescription, p.sku) FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+    List<ProductSearchDocument> findSearchDocumentsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.saveitforlater.ecommerce.persistence.projection.ProductSearchDocument(" +
+           "p.id, p.name, p.shortDescription, p.sku) FROM Product p WHERE p.id IN :ids")
+    List<ProductSearchDocument> findSearchDocumentsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Typeahead suggestion documents, read in ID order so the index can be built in batches
+    @Query("SELECT new com.saveitforlater.ecommerce.persistence.projection.ProductSuggestionDocument(" +
+           "p.id, p.publicId, p.name, p.slug, p.sku, p.popularity) FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+    List<ProductSuggestionDocument> findSuggestionDocumentsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.saveitforlater.ecommerce.persistence.projection.ProductSuggestionDocument(" +
+           "p.id, p.publicId, p.name, p.slug, p.sku, p.popularity) FROM Product p WHERE p.id IN :ids")
+    List<ProductSuggestionDocument> findSuggestionDocumentsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.saveitforlater.ecommerce.persistence.projection.ProductSuggestionDocument(" +
+           "p.id, p.publicId, p.name, p.slug, p.sku, p.popularity) FROM Product p WHERE p.publicId IN :publicIds")
+    List<ProductSuggestionDocument> findSuggestionDocumentsByPublicIdIn(@Param("publicIds") Collection<String> publicIds);
+
+    // Product summaries of the items of a cart held in memory (write-behind cart store)
+    @Query("SELECT new com.saveitforlater.ecommerce.persistence.projection.CartProductView(" +
+           "p.publicId, p.sku, p.name, p.slug, p.price, p.salePrice, p.stockQuantity) FROM Product p WHERE p.publicId IN :publicIds")
+    List<CartProductView> findCartProductViewsByPublicIdIn(@Param("publicIds") Collection<String> publicIds);
+
+    // Facet index rows, read in ID order so the index can be built in batches
+    @Query("SELECT new com.saveitforlater.ecommerce.persistence.projection.ProductFacetRow(" +
+           "p.id, p.price, p.salePrice, p.stockQuantity) FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+    List<ProductFacetRow> findFacetRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.saveitforlater.ecommerce.persistence.projection.ProductFacetRow(" +
+           "p.id, p.price, p.salePrice, p.stockQuantity) FROM Product p WHERE p.id IN :ids")
+    List<ProductFacetRow> findFacetRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.saveitforlater.ecommerce.persistence.projection.ProductLink(p.id, c.id) " +
+           "FROM Product p JOIN p.categories c WHERE p.id IN :ids")
+    List<ProductLink> findCategoryLinksByProductIdIn(@Param("ids") Collection<Long> ids);
+
+    // Keyset page of the catalog for the export; read-only entities keep no snapshots for dirty checking
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT p FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+    List<Product> findAllAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Bump updated_at when a change is made through a child table (images, attribute values)
+    @Modifying
+    @Query("UPDATE Product p SET p.updatedAt = :updatedAt WHERE p.id = :id")
+    int touch(@Param("id") Long id, @Param("updatedAt") Instant updatedAt);
+}
@@ -0,0 +1,26 @@
+package com.saveitforlater.ecommerce.persistence.repository.product;
+
+import com.saveitforlater.ecommerce.persistence.entity.product.Product;
+import com.saveitforlater.ecommerce.persistence.projection.ProductCardView;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Custom queries for {@link ProductRepository} that need the Criteria API directly.
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Find a page of product cards matching the specification.
+     * Selects only the card columns plus the primary image ID.
+     */
+    Page<ProductCardView> findCards(Specification<Product> spec, Pageable pageable);
+
+    /**
+     * Find the IDs of all products matching the specification, without loading the entities.
+     */
+    List<Long> findIds(Specification<Product> spec);
+}
@@ -0,0 +1,96 @@
+package com.saveitforlater.ecommerce.persistence.repository.product;
+
+import com.saveitforlater.ecommerce.persistence.entity.file.ProductImage;
+import com.saveitforlater.ecommerce.persistence.entity.product.Product;
+import com.saveitforlater.ecommerce.persistence.projection.ProductCardView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<ProductCardView> findCards(Specification<Product> spec, Pageable pageable) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductCardView> query = criteriaBuilder.createQuery(ProductCardView.class);
+        Root<Product> root = query.from(Product.class);
+
+        // Left join restricted to the primary image keeps products without images in the result
+        Join<Product, ProductImage> primaryImage = root.join("images", JoinType.LEFT);
+        primaryImage.on(criteriaBuilder.isTrue(primaryImage.get("isPrimary")));
+
+        query.select(criteriaBuilder.construct(ProductCardView.class,
+                root.get("id"),
+                root.get("publicId"),
+                root.get("name"),
+                root.get("slug"),
+                root.get("price"),
+                root.get("salePrice"),
+                root.get("stockQuantity"),
+                primaryImage.get("publicId")));
+
+        Predicate predicate = toPredicate(spec, root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(toOrders(pageable.getSort(), root, criteriaBuilder));
+        }
+
+        TypedQuery<ProductCardView> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+
+        return PageableExecutionUtils.getPage(typedQuery.getResultList(), pageable, () -> count(spec));
+    }
+
+    @Override
+    public List<Long> findIds(Specification<Product> spec) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<Product> root = query.from(Product.class);
+
+        query.select(root.get("id"));
+        Predicate predicate = toPredicate(spec, root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    private long count(Specification<Product> spec) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<Product> root = query.from(Product.class);
+
+        Predicate predicate = toPredicate(spec, root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(query.isDistinct() ? criteriaBuilder.countDistinct(root) : criteriaBuilder.count(root));
+        // The specification may request DISTINCT; it is already handled by countDistinct
+        query.distinct(false);
+
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static Predicate toPredicate(Specification<Product> spec, Root<Product> root,
+                                         CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+        return spec == null ? null : spec.toPredicate(root, query, criteriaBuilder);
+    }
+}
@@ -2,6 +2,7 @@ package com.saveitforlater.ecommerce.persistence.specification;
 
 import com.saveitforlater.ecommerce.api.product.dto.ProductFilterRequest;
 import com.saveitforlater.ecommerce.persistence.entity.category.Category;
+import com.saveitforlater.ecommerce.persistence.entity.category.CategoryClosure;
 import com.saveitforlater.ecommerce.persistence.entity.product.Attribute;
 import com.saveitforlater.ecommerce.persistence.entity.product.AttributeOption;
 import com.saveitforlater.ecommerce.persistence.entity.product.Product;
@@ -10,8 +11,8 @@ import jakarta.persistence.criteria.*;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.util.StringUtils;
 
-import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class ProductSpecification {
@@ -39,32 +40,27 @@ public class ProductSpecification {
             // Category filter
             if (filter.categoryIds() != null && !filter.categoryIds().isEmpty()) {
                 Join<Product, Category> categoryJoin = root.join("categories", JoinType.INNER);
-                predicates.add(categoryJoin.get("publicId").in(filter.categoryIds()));
+                if (filter.includesSubcategories()) {
+                    // Every category under a selected one, read from the closure table's primary key
+                    Subquery<Long> subtree = query.subquery(Long.class);
+                    Root<CategoryClosure> closure = subtree.from(CategoryClosure.class);
+                    Root<Category> ancestor = subtree.from(Category.class);
+                    subtree.select(closure.get("descendantId"))
+                            .where(criteriaBuilder.equal(closure.get("ancestorId"), ancestor.get("id")),
+                                    ancestor.get("publicId").in(filter.categoryIds()));
+                    predicates.add(categoryJoin.get("id").in(subtree));
+                } else {
+                    predicates.add(categoryJoin.get("publicId").in(filter.categoryIds()));
+                }
             }
 
-            // Price range filters
+            // Price range filters on the price the customer pays (indexed)
             if (filter.minPrice() != null) {
-                // Check both price and salePrice
-                Predicate priceMin = criteriaBuilder.greaterThanOrEqualTo(
-                        root.get("price"), filter.minPrice());
-                Predicate salePriceMin = criteriaBuilder.and(
-                        criteriaBuilder.isNotNull(root.get("salePrice")),
-                        criteriaBuilder.greaterThan(root.get("salePrice"), BigDecimal.ZERO),
-                        criteriaBuilder.greaterThanOrEqualTo(root.get("salePrice"), filter.minPrice())
-                );
-                predicates.add(criteriaBuilder.or(priceMin, salePriceMin));
+                predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("effectivePrice"), filter.minPrice()));
             }
 
             if (filter.maxPrice() != null) {
-                // Check both price and salePrice
-                Predicate priceMax = criteriaBuilder.lessThanOrEqualTo(
-                        root.get("price"), filter.maxPrice());
-                Predicate salePriceMax = criteriaBuilder.and(
-                        criteriaBuilder.isNotNull(root.get("salePrice")),
-                        criteriaBuilder.greaterThan(root.get("salePrice"), BigDecimal.ZERO),
-                        criteriaBuilder.lessThanOrEqualTo(root.get("salePrice"), filter.maxPrice())
-                );
-                predicates.add(criteriaBuilder.or(priceMax, salePriceMax));
+                predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("effectivePrice"), filter.maxPrice()));
             }
 
             // Stock filter
@@ -117,4 +113,36 @@ public class ProductSpecification {
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
     }
+
+    /**
+     * Restrict to the given product IDs; an empty collection matches nothing
+     */
+    public static Specification<Product> withIds(Collection<Long> ids) {
+        return (root, query, criteriaBuilder) -> ids.isEmpty()
+                ? criteriaBuilder.disjunction()
+                : root.get("id").in(ids);
+    }
+
+    /**
+     * Keyset predicate: rows strictly after (sortKey, id) in the given direction.
+     * The ID tie-breaker makes the position unique even when sort keys repeat.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Product> seekAfter(String property, Comparable key, Long id, boolean descending) {
+        return (root, query, criteriaBuilder) -> {
+            Expression<Comparable> keyPath = root.get(property);
+            Expression<Long> idPath = root.get("id");
+
+            Predicate pastKey = descending
+                    ? criteriaBuilder.lessThan(keyPath, key)
+                    : criteriaBuilder.greaterThan(keyPath, key);
+            Predicate pastId = descending
+                    ? criteriaBuilder.lessThan(idPath, id)
+                    : criteriaBuilder.greaterThan(idPath, id);
+
+            return criteriaBuilder.or(
+                    pastKey,
+                    criteriaBuilder.and(criteriaBuilder.equal(keyPath, key), pastId));
+        };
+    }
 }
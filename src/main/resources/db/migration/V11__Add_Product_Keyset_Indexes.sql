@@ -0,0 +1,10 @@
+-- ===================================================================
+-- V11: Add Product Keyset Indexes
+-- Composite (sort key, id) indexes backing cursor pagination so each
+-- page is an index range scan regardless of how deep it is.
+-- idx_product_name already covers (name, id) since InnoDB secondary
+-- indexes carry the primary key.
+-- ===================================================================
+
+CREATE INDEX idx_product_price_id ON product(price, id);
+CREATE INDEX idx_product_created_at_id ON product(created_at, id);
@@ -0,0 +1,18 @@
+-- ===================================================================
+-- V12: Add Catalog Update Time Precision
+-- updated_at validates HTTP responses (ETag / Last-Modified) of the
+-- catalog, so two changes within the same second must not share a
+-- value. Stores microseconds on the catalog tables.
+-- ===================================================================
+
+ALTER TABLE product
+    MODIFY updated_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6);
+
+ALTER TABLE category
+    MODIFY updated_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6);
+
+ALTER TABLE attribute
+    MODIFY updated_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6);
+
+ALTER TABLE attribute_option
+    MODIFY updated_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6);
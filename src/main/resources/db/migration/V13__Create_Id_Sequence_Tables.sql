@@ -0,0 +1,46 @@
+-- ===================================================================
+-- V13: Create ID Sequence Tables
+-- Entities get their IDs from pooled blocks reserved in these tables
+-- instead of AUTO_INCREMENT, so Hibernate can batch inserts. Each table
+-- holds one row with the next free ID, starting after the current maximum.
+-- Rows must no longer be inserted without an explicit ID.
+-- ===================================================================
+
+CREATE TABLE appuser_seq (next_val BIGINT NOT NULL);
+INSERT INTO appuser_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM appuser;
+
+CREATE TABLE category_seq (next_val BIGINT NOT NULL);
+INSERT INTO category_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM category;
+
+CREATE TABLE product_seq (next_val BIGINT NOT NULL);
+INSERT INTO product_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM product;
+
+CREATE TABLE attribute_seq (next_val BIGINT NOT NULL);
+INSERT INTO attribute_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM attribute;
+
+CREATE TABLE attribute_option_seq (next_val BIGINT NOT NULL);
+INSERT INTO attribute_option_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM attribute_option;
+
+CREATE TABLE product_attribute_value_seq (next_val BIGINT NOT NULL);
+INSERT INTO product_attribute_value_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM product_attribute_value;
+
+CREATE TABLE cart_seq (next_val BIGINT NOT NULL);
+INSERT INTO cart_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM cart;
+
+CREATE TABLE cart_item_seq (next_val BIGINT NOT NULL);
+INSERT INTO cart_item_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM cart_item;
+
+CREATE TABLE orders_seq (next_val BIGINT NOT NULL);
+INSERT INTO orders_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM orders;
+
+CREATE TABLE order_item_seq (next_val BIGINT NOT NULL);
+INSERT INTO order_item_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM order_item;
+
+CREATE TABLE payment_seq (next_val BIGINT NOT NULL);
+INSERT INTO payment_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM payment;
+
+CREATE TABLE file_metadata_seq (next_val BIGINT NOT NULL);
+INSERT INTO file_metadata_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM file_metadata;
+
+CREATE TABLE product_image_seq (next_val BIGINT NOT NULL);
+INSERT INTO product_image_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM product_image;
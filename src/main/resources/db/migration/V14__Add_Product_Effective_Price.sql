@@ -0,0 +1,22 @@
+-- ===================================================================
+-- V14: Add Product Effective Price
+-- The price a customer pays: sale_price when it is set (> 0),
+-- otherwise price. Maintained by the application on every write so
+-- price range filters and price sorting use one indexed column
+-- instead of OR-ing predicates over price and sale_price.
+-- Replaces idx_product_price_id: cursor pagination by price now
+-- seeks on (effective_price, id).
+-- ===================================================================
+
+ALTER TABLE product
+    ADD COLUMN effective_price DECIMAL(19,2) NULL AFTER sale_price;
+
+UPDATE product
+SET effective_price = CASE WHEN sale_price > 0 THEN sale_price ELSE price END;
+
+ALTER TABLE product
+    MODIFY effective_price DECIMAL(19,2) NOT NULL;
+
+CREATE INDEX idx_product_effective_price_id ON product(effective_price, id);
+
+DROP INDEX idx_product_price_id ON product;
@@ -0,0 +1,22 @@
+-- ===================================================================
+-- V15: Create Product Stats Table
+-- Running view, add-to-cart and purchase counts per product. Counts
+-- are collected in memory and added here in periodic batched upserts
+-- instead of updating a row on every request.
+-- product.popularity holds the weighted score of those counts so
+-- listings can sort by it with a keyset index on (popularity, id).
+-- ===================================================================
+
+CREATE TABLE product_stats (
+    product_id BIGINT NOT NULL PRIMARY KEY,
+    view_count BIGINT NOT NULL DEFAULT 0,
+    add_to_cart_count BIGINT NOT NULL DEFAULT 0,
+    purchase_count BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    CONSTRAINT fk_product_stats_product FOREIGN KEY (product_id) REFERENCES product(id) ON DELETE CASCADE
+);
+
+ALTER TABLE product
+    ADD COLUMN popularity BIGINT NOT NULL DEFAULT 0 AFTER stock_quantity;
+
+CREATE INDEX idx_product_popularity_id ON product(popularity, id);
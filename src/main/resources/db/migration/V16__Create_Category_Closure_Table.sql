@@ -0,0 +1,30 @@
+-- ===================================================================
+-- V16: Create Category Closure Table
+-- One row per (ancestor, descendant) pair of the category hierarchy,
+-- including each category paired with itself at depth 0. Lets
+-- "products in this category or any subcategory" and descendant
+-- checks use one indexed lookup instead of walking parent links.
+-- Maintained by CategoryService on create, move and delete.
+-- ===================================================================
+
+CREATE TABLE category_closure (
+    ancestor_id BIGINT NOT NULL,
+    descendant_id BIGINT NOT NULL,
+    depth INT NOT NULL,
+    PRIMARY KEY (ancestor_id, descendant_id),
+    CONSTRAINT fk_category_closure_ancestor FOREIGN KEY (ancestor_id) REFERENCES category(id) ON DELETE CASCADE,
+    CONSTRAINT fk_category_closure_descendant FOREIGN KEY (descendant_id) REFERENCES category(id) ON DELETE CASCADE
+);
+
+-- Ancestors of a category
+CREATE INDEX idx_category_closure_descendant ON category_closure(descendant_id, ancestor_id);
+
+INSERT INTO category_closure (ancestor_id, descendant_id, depth)
+WITH RECURSIVE paths (ancestor_id, descendant_id, depth) AS (
+    SELECT id, id, 0 FROM category
+    UNION ALL
+    SELECT paths.ancestor_id, category.id, paths.depth + 1
+    FROM paths
+    JOIN category ON category.parent_category_id = paths.descendant_id
+)
+SELECT ancestor_id, descendant_id, depth FROM paths;
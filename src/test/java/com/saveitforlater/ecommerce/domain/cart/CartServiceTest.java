@@ -0,0 +1,161 @@
+package com.saveitforlater.ecommerce.domain.cart;
+
+import com.saveitforlater.ecommerce.api.cart.dto.AddToCartRequest;
+import com.saveitforlater.ecommerce.api.cart.dto.CartBatchRequest;
+import com.saveitforlater.ecommerce.api.cart.mapper.CartMapper;
+import com.saveitforlater.ecommerce.domain.cart.exception.InsufficientStockException;
+import com.saveitforlater.ecommerce.domain.product.exception.ProductNotFoundException;
+import com.saveitforlater.ecommerce.domain.product.stats.ProductStatsCounters;
+import com.saveitforlater.ecommerce.persistence.entity.cart.Cart;
+import com.saveitforlater.ecommerce.persistence.entity.cart.CartItem;
+import com.saveitforlater.ecommerce.persistence.entity.product.Product;
+import com.saveitforlater.ecommerce.persistence.entity.user.User;
+import com.saveitforlater.ecommerce.persistence.id.IdBlockAllocator;
+import com.saveitforlater.ecommerce.persistence.repository.cart.CartItemRepository;
+import com.saveitforlater.ecommerce.persistence.repository.cart.CartRepository;
+import com.saveitforlater.ecommerce.persistence.repository.product.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CartServiceTest {
+
+    private static final long USER_ID = 1L;
+    private static final long CART_ID = 7L;
+
+    private final CartRepository cartRepository = mock(CartRepository.class);
+    private final CartItemRepository cartItemRepository = mock(CartItemRepository.class);
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductStatsCounters productStatsCounters = mock(ProductStatsCounters.class);
+    private final Cart cart = new Cart();
+
+    private CartService cartService;
+
+    @BeforeEach
+    void setUp() {
+        cartService = new CartService(cartRepository, cartItemRepository, productRepository, mock(CartMapper.class),
+                productStatsCounters, mock(IdBlockAllocator.class), Optional.empty());
+
+        User user = User.builder().id(USER_ID).publicId("user-1").email("user@example.com").build();
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken(user, null, List.of()));
+        when(cartRepository.lockIdByUserId(USER_ID)).thenReturn(Optional.of(CART_ID));
+        when(cartRepository.getReferenceById(CART_ID)).thenReturn(cart);
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void addIsOneStockGuardedUpsertIntoTheLockedCart() {
+        when(cartItemRepository.upsertItem(anyLong(), anyString(), eq(CART_ID), eq("A"), eq(2), any(Instant.class)))
+                .thenReturn(1);
+
+        cartService.addToCart(new AddToCartRequest("A", 2));
+
+        verify(cartRepository).lockIdByUserId(USER_ID);
+        verify(productStatsCounters).recordAddToCart("A");
+        verify(productRepository, never()).findByPublicId(any());
+    }
+
+    @Test
+    void addRejectedByTheStockGuardReportsTheQuantityAlreadyInTheCart() {
+        when(cartItemRepository.upsertItem(anyLong(), anyString(), eq(CART_ID), eq("A"), anyInt(), any(Instant.class)))
+                .thenReturn(0);
+        when(productRepository.findByPublicId("A")).thenReturn(Optional.of(product("A", 4)));
+        when(cartItemRepository.findQuantity(CART_ID, "A")).thenReturn(Optional.of(2));
+
+        assertThatThrownBy(() -> cartService.addToCart(new AddToCartRequest("A", 3)))
+                .isInstanceOf(InsufficientStockException.class)
+                .hasMessage("Insufficient stock for product 'Product A'. Requested: 5, Available: 4");
+        verify(productStatsCounters, never()).recordAddToCart(any());
+    }
+
+    @Test
+    void addOfAnUnknownProductIsRejectedAsNotFound() {
+        when(cartItemRepository.upsertItem(anyLong(), anyString(), eq(CART_ID), eq("missing"), anyInt(), any(Instant.class)))
+                .thenReturn(0);
+        when(productRepository.findByPublicId("missing")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> cartService.addToCart(new AddToCartRequest("missing", 1)))
+                .isInstanceOf(ProductNotFoundException.class);
+    }
+
+    @Test
+    void batchLocksTheCartRowBeforeReadingItsItems() {
+        Product product = product("A", 5);
+        CartItem item = new CartItem(cart, product, 1, product.getPrice());
+        when(productRepository.findByPublicIdIn(anyCollection())).thenReturn(List.of(product));
+        when(cartItemRepository.findWithProductByCartId(CART_ID)).thenReturn(List.of(item));
+
+        cartService.applyBatch(batch(operation(CartBatchRequest.Type.ADD, "A", 2)));
+
+        verify(cartRepository).lockIdByUserId(USER_ID);
+        verify(cartRepository, never()).findByUser(any());
+        assertThat(item.getQuantity()).isEqualTo(3);
+    }
+
+    @Test
+    void productAddedAndRemovedWithinTheBatchWritesNothing() {
+        when(productRepository.findByPublicIdIn(anyCollection())).thenReturn(List.of(product("A", 5)));
+        when(cartItemRepository.findWithProductByCartId(CART_ID)).thenReturn(List.of());
+
+        cartService.applyBatch(batch(
+                operation(CartBatchRequest.Type.ADD, "A", 2),
+                operation(CartBatchRequest.Type.REMOVE, "A", null)));
+
+        verify(cartItemRepository, never()).delete(any());
+        verify(cartItemRepository, never()).save(any());
+    }
+
+    @Test
+    void removingAnItemInTheCartDeletesIt() {
+        Product product = product("A", 5);
+        CartItem item = new CartItem(cart, product, 1, product.getPrice());
+        when(productRepository.findByPublicIdIn(anyCollection())).thenReturn(List.of(product));
+        when(cartItemRepository.findWithProductByCartId(CART_ID)).thenReturn(List.of(item));
+
+        cartService.applyBatch(batch(operation(CartBatchRequest.Type.REMOVE, "A", null)));
+
+        verify(cartItemRepository).delete(item);
+    }
+
+    private static CartBatchRequest batch(CartBatchRequest.Operation... operations) {
+        return new CartBatchRequest(List.of(operations));
+    }
+
+    private static CartBatchRequest.Operation operation(CartBatchRequest.Type type, String productId, Integer quantity) {
+        return new CartBatchRequest.Operation(type, productId, quantity);
+    }
+
+    private static Product product(String publicId, int stock) {
+        Product product = new Product();
+        product.setPublicId(publicId);
+        product.setName("Product " + publicId);
+        product.setPrice(new BigDecimal("9.99"));
+        product.setStockQuantity(stock);
+        return product;
+    }
+}
@@ -0,0 +1,131 @@
+package com.saveitforlater.ecommerce.domain.cart.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CartJournalTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readCoalescesToTheLastWriteOfEachItem() {
+        CartJournal journal = new CartJournal(directory, false);
+        journal.appendWrites(List.of(item(1, "i1", "A", 1), item(1, "i2", "B", 1)));
+        journal.appendWrites(List.of(item(1, "i1", "A", 3), ItemState.removed(1, "i2", "B")));
+
+        long current = journal.rotate();
+
+        // Ordered by each item's last write
+        assertThat(journal.read(current)).containsExactly(item(1, "i1", "A", 3), ItemState.removed(1, "i2", "B"));
+    }
+
+    @Test
+    void flushMarkerDropsOnlyTheEarlierWritesOfItsCart() {
+        CartJournal journal = new CartJournal(directory, false);
+        journal.appendWrites(List.of(item(1, "i1", "A", 1), item(2, "i2", "A", 2)));
+        journal.appendFlushed(1);
+        journal.appendWrites(List.of(item(1, "i3", "B", 4)));
+
+        long current = journal.rotate();
+
+        assertThat(journal.read(current)).containsExactly(item(2, "i2", "A", 2), item(1, "i3", "B", 4));
+    }
+
+    @Test
+    void flushMarkerCoversWritesInEarlierSegments() {
+        CartJournal journal = new CartJournal(directory, false);
+        journal.appendWrites(List.of(item(1, "i1", "A", 1)));
+        journal.rotate();
+        journal.appendFlushed(1);
+
+        long current = journal.rotate();
+
+        assertThat(journal.read(current)).isEmpty();
+    }
+
+    @Test
+    void tornLinesOfCrashedProcessesAreSkipped() throws IOException {
+        CartJournal crashed = new CartJournal(directory, false);
+        crashed.appendWrites(List.of(item(1, "i1", "A", 2)));
+        crashed.close();
+        append(onlySegment(), "U|1|i2|B|5|9.99|2026-01-01T1");
+
+        // A torn flush marker must not drop the cart's writes
+        CartJournal crashedAgain = new CartJournal(directory, false);
+        crashedAgain.appendWrites(List.of(item(1, "i3", "C", 1)));
+        crashedAgain.close();
+        append(directory.resolve("cart-journal-2.log"), "F|");
+
+        CartJournal journal = new CartJournal(directory, false);
+        long current = journal.rotate();
+
+        assertThat(journal.read(current)).containsExactly(item(1, "i1", "A", 2), item(1, "i3", "C", 1));
+        assertThat(journal.corruptLines()).isZero();
+    }
+
+    @Test
+    void corruptLinesBeforeTheLastLineAreSkippedAndCounted() throws IOException {
+        CartJournal damaged = new CartJournal(directory, false);
+        damaged.appendWrites(List.of(item(1, "i1", "A", 2)));
+        damaged.close();
+        Path segment = onlySegment();
+        append(segment, "U|1|i2|B|x|9.99|garbage\n");
+        append(segment, "U|1|i3|C|1|9.99|" + NOW + "|" + NOW + "\n");
+        append(segment, "D|1|i3");
+
+        CartJournal journal = new CartJournal(directory, false);
+        long current = journal.rotate();
+
+        // The torn last line is not counted
+        assertThat(journal.read(current)).containsExactly(item(1, "i1", "A", 2), item(1, "i3", "C", 1));
+        assertThat(journal.corruptLines()).isEqualTo(1);
+    }
+
+    @Test
+    void segmentsContinueAfterExistingOnesAndAreDeletedOnceFlushed() throws IOException {
+        CartJournal previous = new CartJournal(directory, false);
+        previous.appendWrites(List.of(item(1, "i1", "A", 1)));
+        previous.close();
+
+        CartJournal journal = new CartJournal(directory, false);
+        journal.appendWrites(List.of(item(1, "i2", "B", 1)));
+        long current = journal.rotate();
+
+        assertThat(journal.read(current)).containsExactly(item(1, "i1", "A", 1), item(1, "i2", "B", 1));
+
+        journal.deleteBefore(current);
+
+        assertThat(journal.read(Long.MAX_VALUE)).isEmpty();
+        assertThat(onlySegment().getFileName().toString()).isEqualTo("cart-journal-" + current + ".log");
+    }
+
+    private static void append(Path segment, String text) throws IOException {
+        Files.writeString(segment, text, StandardOpenOption.APPEND);
+    }
+
+    private Path onlySegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = files.toList();
+            assertThat(segments).hasSize(1);
+            return segments.get(0);
+        }
+    }
+
+    private static ItemState item(long cartId, String publicId, String productPublicId, int quantity) {
+        return new ItemState(cartId, publicId, productPublicId, quantity, new BigDecimal("9.99"), NOW, NOW, false);
+    }
+}
@@ -0,0 +1,329 @@
+package com.saveitforlater.ecommerce.domain.cart.store;
+
+import com.saveitforlater.ecommerce.api.cart.dto.CartItemResponse;
+import com.saveitforlater.ecommerce.api.cart.dto.CartResponse;
+import com.saveitforlater.ecommerce.api.cart.mapper.CartMapper;
+import com.saveitforlater.ecommerce.persistence.entity.product.Product;
+import com.saveitforlater.ecommerce.persistence.entity.user.User;
+import com.saveitforlater.ecommerce.persistence.id.IdBlockAllocator;
+import com.saveitforlater.ecommerce.persistence.projection.CartLineView;
+import com.saveitforlater.ecommerce.persistence.projection.CartProductView;
+import com.saveitforlater.ecommerce.persistence.repository.cart.CartRepository;
+import com.saveitforlater.ecommerce.persistence.repository.product.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mapstruct.factory.Mappers;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WriteBehindCartStoreTest {
+
+    private static final Duration NEVER = Duration.ofHours(1);
+
+    @TempDir
+    Path journalDir;
+
+    // The cart_item table the mocked JdbcTemplate writes to, by item public ID; cart ID = user ID
+    private final Map<String, ItemState> database = new LinkedHashMap<>();
+    // Statements in the order they were executed, e.g. "delete i1", "upsert i2"
+    private final List<String> statements = new ArrayList<>();
+    private final AtomicInteger failingWrites = new AtomicInteger();
+    private volatile CountDownLatch writing;
+    private volatile CountDownLatch releaseWrite;
+
+    private final CartRepository cartRepository = mock(CartRepository.class);
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final IdBlockAllocator idBlockAllocator = mock(IdBlockAllocator.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    @BeforeEach
+    void setUp() {
+        when(cartRepository.findLinesByUserId(anyLong())).thenAnswer(call -> lines(call.getArgument(0)));
+        when(productRepository.findCartProductViewsByPublicIdIn(anyCollection())).thenAnswer(call ->
+                call.<Collection<String>>getArgument(0).stream()
+                        .map(publicId -> new CartProductView(publicId, "SKU-" + publicId, publicId, publicId,
+                                new BigDecimal("9.99"), null, 100))
+                        .toList());
+        AtomicLong ids = new AtomicLong();
+        when(idBlockAllocator.next(anyString())).thenAnswer(call -> ids.incrementAndGet());
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(call ->
+                execute(call.getArgument(0), call.getArgument(1)));
+    }
+
+    @Test
+    void changesReachTheDatabaseOnFlushCoalescedToTheirLastState() {
+        WriteBehindCartStore store = newStore(100, NEVER);
+        User user = user(1);
+
+        set(store, user, "A", 1);
+        set(store, user, "A", 3);
+        set(store, user, "B", 2);
+        set(store, user, "B", 0);
+
+        assertThat(database).isEmpty();
+        assertThat(quantities(store.read(user))).containsExactly(Map.entry("A", 3));
+
+        store.flush();
+
+        assertThat(databaseCart(1)).containsExactly(Map.entry("A", 3));
+        assertThat(statements).filteredOn(statement -> statement.startsWith("upsert")).hasSize(1);
+    }
+
+    @Test
+    void itemRemovedAndAddedAgainWithinOneFlushIsReplaced() {
+        database.put("old", new ItemState(1, "old", "A", 2, new BigDecimal("9.99"),
+                Instant.now(), Instant.now(), false));
+        WriteBehindCartStore store = newStore(100, NEVER);
+        User user = user(1);
+
+        set(store, user, "A", 0);
+        set(store, user, "A", 5);
+        store.flush();
+
+        // The fake table enforces the (cart, product) key, so the removal must have been written first
+        assertThat(databaseCart(1)).containsExactly(Map.entry("A", 5));
+        assertThat(database).doesNotContainKey("old");
+        assertThat(statements.get(0)).isEqualTo("delete old");
+    }
+
+    @Test
+    void failedFlushIsRetriedWithChangesMadeSince() {
+        WriteBehindCartStore store = newStore(100, NEVER);
+        User user = user(1);
+        set(store, user, "A", 1);
+        set(store, user, "B", 1);
+
+        failingWrites.set(1);
+        store.flush();
+        assertThat(database).isEmpty();
+
+        set(store, user, "A", 4);
+        store.flush();
+
+        assertThat(databaseCart(1)).containsOnly(Map.entry("A", 4), Map.entry("B", 1));
+    }
+
+    @Test
+    void journalOfACrashedProcessIsReplayedOnStartup() {
+        WriteBehindCartStore crashed = newStore(100, NEVER);
+        set(crashed, user(1), "A", 2);
+        set(crashed, user(1), "B", 1);
+        set(crashed, user(1), "B", 0);
+        set(crashed, user(2), "C", 3);
+        assertThat(database).isEmpty();
+
+        newStore(100, NEVER);
+
+        assertThat(databaseCart(1)).containsExactly(Map.entry("A", 2));
+        assertThat(databaseCart(2)).containsExactly(Map.entry("C", 3));
+    }
+
+    @Test
+    void checkedOutCartIsNotReplayedAfterACrash() {
+        WriteBehindCartStore crashed = newStore(100, NEVER);
+        User buyer = user(1);
+        set(crashed, buyer, "A", 2);
+        set(crashed, user(2), "B", 1);
+
+        // Checkout: flush, read and clear the database cart, then drop the cart from memory
+        crashed.flushUser(buyer.getPublicId());
+        assertThat(databaseCart(1)).containsExactly(Map.entry("A", 2));
+        database.values().removeIf(item -> item.cartId() == 1);
+        crashed.discardAfterCommit(buyer.getPublicId());
+
+        newStore(100, NEVER);
+
+        assertThat(databaseCart(1)).isEmpty();
+        assertThat(databaseCart(2)).containsExactly(Map.entry("B", 1));
+    }
+
+    @Test
+    void discardAfterCommitKeepsTheCartUntilTheTransactionCommits() {
+        WriteBehindCartStore store = newStore(100, NEVER);
+        User user = user(1);
+        set(store, user, "A", 1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            store.discardAfterCommit(user.getPublicId());
+            assertThat(store.cartIds()).containsExactly(1L);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(store.cartIds()).isEmpty();
+    }
+
+    @Test
+    void checkoutWaitsForARunningFlush() throws Exception {
+        WriteBehindCartStore store = newStore(100, NEVER);
+        User buyer = user(1);
+        set(store, buyer, "A", 1);
+
+        writing = new CountDownLatch(1);
+        releaseWrite = new CountDownLatch(1);
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(store::flush);
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Void> checkout = CompletableFuture.runAsync(() -> {
+            store.flushUser(buyer.getPublicId());
+            store.discardAfterCommit(buyer.getPublicId());
+        });
+        Thread.sleep(200);
+        assertThat(checkout).isNotDone();
+
+        releaseWrite.countDown();
+        flush.get(5, TimeUnit.SECONDS);
+        checkout.get(5, TimeUnit.SECONDS);
+
+        assertThat(databaseCart(1)).containsExactly(Map.entry("A", 1));
+        assertThat(store.cartIds()).isEmpty();
+
+        // Nothing of the discarded cart is left to replay over the checked-out one
+        database.clear();
+        newStore(100, NEVER);
+        assertThat(database).isEmpty();
+    }
+
+    @Test
+    void idleCartsAreFlushedAndEvicted() throws InterruptedException {
+        WriteBehindCartStore store = newStore(100, Duration.ZERO);
+        User user = user(1);
+        set(store, user, "A", 1);
+        Thread.sleep(5);
+
+        store.flush();
+
+        assertThat(store.cartIds()).isEmpty();
+        assertThat(databaseCart(1)).containsExactly(Map.entry("A", 1));
+        // Loaded again from the database on the next use
+        assertThat(quantities(store.read(user))).containsExactly(Map.entry("A", 1));
+    }
+
+    @Test
+    void leastRecentlyUsedCartsAreEvictedOverCapacity() throws InterruptedException {
+        WriteBehindCartStore store = newStore(2, NEVER);
+        for (long userId = 1; userId <= 3; userId++) {
+            set(store, user(userId), "A", 1);
+            Thread.sleep(5);
+        }
+        store.read(user(1));
+
+        // Over capacity: down to 90% of it, the least recently used first
+        store.flush();
+
+        assertThat(store.cartIds()).containsExactly(1L);
+        assertThat(database.values()).extracting(ItemState::cartId).containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    private WriteBehindCartStore newStore(int maxCarts, Duration idleTimeout) {
+        WriteBehindCartStore store = new WriteBehindCartStore(cartRepository, productRepository,
+                Mappers.getMapper(CartMapper.class), idBlockAllocator, jdbcTemplate, transactionManager,
+                maxCarts, idleTimeout, journalDir, false);
+        store.replayJournal();
+        return store;
+    }
+
+    private static void set(WriteBehindCartStore store, User user, String productPublicId, int quantity) {
+        store.update(user, Map.of(productPublicId, product(productPublicId)),
+                cart -> Map.of(productPublicId, quantity));
+    }
+
+    private int[] execute(String sql, List<Object[]> rows) throws InterruptedException {
+        if (writing != null) {
+            writing.countDown();
+            releaseWrite.await(5, TimeUnit.SECONDS);
+        }
+        if (failingWrites.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+            throw new TransientDataAccessResourceException("Database unavailable");
+        }
+        for (Object[] row : rows) {
+            if (sql.startsWith("DELETE")) {
+                database.remove((String) row[0]);
+                statements.add("delete " + row[0]);
+            } else {
+                ItemState item = new ItemState((Long) row[7], (String) row[1], (String) row[6], (Integer) row[2],
+                        (BigDecimal) row[3], ((Timestamp) row[4]).toInstant(), ((Timestamp) row[5]).toInstant(), false);
+                boolean duplicate = database.values().stream().anyMatch(existing -> existing.cartId() == item.cartId()
+                        && existing.productPublicId().equals(item.productPublicId())
+                        && !existing.publicId().equals(item.publicId()));
+                if (duplicate) {
+                    throw new DuplicateKeyException("unique_cart_product");
+                }
+                database.put(item.publicId(), item);
+                statements.add("upsert " + item.publicId());
+            }
+        }
+        return new int[rows.size()];
+    }
+
+    private List<CartLineView> lines(long userId) {
+        Instant created = Instant.parse("2026-01-01T00:00:00Z");
+        List<CartLineView> lines = database.values().stream()
+                .filter(item -> item.cartId() == userId)
+                .map(item -> new CartLineView(userId, "cart-" + userId, "user-" + userId, created, created,
+                        item.publicId(), item.quantity(), item.priceAtAddition(), item.createdAt(), item.updatedAt(),
+                        item.productPublicId(), null, null, null, null, null, null))
+                .collect(Collectors.toCollection(ArrayList::new));
+        if (lines.isEmpty()) {
+            lines.add(new CartLineView(userId, "cart-" + userId, "user-" + userId, created, created,
+                    null, null, null, null, null, null, null, null, null, null, null, null));
+        }
+        return lines;
+    }
+
+    private Map<String, Integer> databaseCart(long cartId) {
+        return database.values().stream()
+                .filter(item -> item.cartId() == cartId)
+                .collect(Collectors.toMap(ItemState::productPublicId, ItemState::quantity));
+    }
+
+    private static Map<String, Integer> quantities(CartResponse cart) {
+        return cart.items().stream()
+                .collect(Collectors.toMap(item -> item.product().id(), CartItemResponse::quantity));
+    }
+
+    private static User user(long id) {
+        return User.builder().id(id).publicId("user-" + id).build();
+    }
+
+    private static Product product(String publicId) {
+        Product product = new Product();
+        product.setPublicId(publicId);
+        product.setPrice(new BigDecimal("9.99"));
+        return product;
+    }
+}
@@ -0,0 +1,266 @@
+package com.saveitforlater.ecommerce.domain.product.facet;
+
+import com.saveitforlater.ecommerce.api.product.dto.ProductFacets;
+import com.saveitforlater.ecommerce.api.product.dto.ProductFilterRequest;
+import com.saveitforlater.ecommerce.domain.category.tree.CategoryTreeCache;
+import com.saveitforlater.ecommerce.domain.product.event.ProductChangedEvent;
+import com.saveitforlater.ecommerce.persistence.entity.category.Category;
+import com.saveitforlater.ecommerce.persistence.entity.product.Attribute;
+import com.saveitforlater.ecommerce.persistence.entity.product.AttributeOption;
+import com.saveitforlater.ecommerce.persistence.projection.ProductFacetRow;
+import com.saveitforlater.ecommerce.persistence.projection.ProductLink;
+import com.saveitforlater.ecommerce.persistence.repository.category.CategoryRepository;
+import com.saveitforlater.ecommerce.persistence.repository.product.AttributeOptionRepository;
+import com.saveitforlater.ecommerce.persistence.repository.product.AttributeRepository;
+import com.saveitforlater.ecommerce.persistence.repository.product.ProductAttributeValueRepository;
+import com.saveitforlater.ecommerce.persistence.repository.product.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductFacetIndexTest {
+
+    private static final long COLOR = 1L, RED = 10L, BLUE = 11L;
+    private static final long SIZE = 2L, SMALL = 20L, LARGE = 21L;
+    private static final long PHONES = 100L, TABLETS = 101L;
+
+    // The catalog the mocked repositories answer from, by product ID
+    private final Map<Long, ProductFacetRow> rows = new TreeMap<>();
+    private final Map<Long, Set<Long>> categoriesOf = new TreeMap<>();
+    private final Map<Long, Set<Long>> optionsOf = new TreeMap<>();
+
+    private ProductFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        product(1, "20", null, 5, PHONES, RED, SMALL);
+        product(2, "60", "40", 0, PHONES, BLUE, LARGE);
+        product(3, "100", null, 3, TABLETS, RED, LARGE);
+        product(4, "250", null, 1, TABLETS, BLUE, SMALL);
+        product(5, "24.99", null, 2, PHONES, RED, LARGE);
+
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.findFacetRowsAfter(anyLong(), any(Pageable.class))).thenAnswer(call -> {
+            long afterId = call.getArgument(0);
+            Pageable page = call.getArgument(1);
+            return rows.values().stream().filter(row -> row.id() > afterId).limit(page.getPageSize()).toList();
+        });
+        when(productRepository.findFacetRowsByIdIn(anyCollection())).thenAnswer(call ->
+                call.<Collection<Long>>getArgument(0).stream().filter(rows::containsKey).map(rows::get).toList());
+        when(productRepository.findCategoryLinksByProductIdIn(anyCollection())).thenAnswer(call ->
+                links(categoriesOf, call.getArgument(0)));
+
+        ProductAttributeValueRepository attributeValueRepository = mock(ProductAttributeValueRepository.class);
+        when(attributeValueRepository.findActiveOptionLinksByProductIdIn(anyCollection())).thenAnswer(call ->
+                links(optionsOf, call.getArgument(0)));
+
+        Attribute color = attribute(COLOR, "Color");
+        Attribute size = attribute(SIZE, "Size");
+        AttributeRepository attributeRepository = mock(AttributeRepository.class);
+        when(attributeRepository.findAll()).thenReturn(List.of(color, size));
+        AttributeOptionRepository optionRepository = mock(AttributeOptionRepository.class);
+        when(optionRepository.findAll()).thenReturn(List.of(
+                option(RED, color, "Red"), option(BLUE, color, "Blue"),
+                option(SMALL, size, "S"), option(LARGE, size, "L")));
+        CategoryRepository categoryRepository = mock(CategoryRepository.class);
+        when(categoryRepository.findAll()).thenReturn(List.of(category(PHONES, "Phones"), category(TABLETS, "Tablets")));
+
+        index = new ProductFacetIndex(productRepository, attributeValueRepository, attributeRepository,
+                optionRepository, categoryRepository, mock(CategoryTreeCache.class));
+        ReflectionTestUtils.setField(index, "batchSize", 2);
+        ReflectionTestUtils.setField(index, "priceRangeBounds", new BigDecimal[]{
+                new BigDecimal("25"), new BigDecimal("50"), new BigDecimal("100"), new BigDecimal("250")});
+        index.build();
+    }
+
+    @Test
+    void combinedFiltersAndEachFacetIsCountedWithoutItsOwnFilter() {
+        ProductFacetResult result = index.search(filter(List.of("c" + PHONES), null, null, null,
+                List.of(new ProductFilterRequest.AttributeFilter("color", List.of("RED")))), null);
+
+        assertThat(result.productIds()).containsExactly(1L, 5L);
+        // Color ignores the color filter: red and blue phones
+        assertThat(optionCounts(result, "Color")).isEqualTo(Map.of("Red", 2L, "Blue", 1L));
+        assertThat(optionCounts(result, "Size")).isEqualTo(Map.of("S", 1L, "L", 1L));
+        // Categories ignore the category filter: red products anywhere
+        assertThat(result.facets().categories())
+                .extracting(ProductFacets.CategoryFacet::categoryName, ProductFacets.CategoryFacet::count,
+                        ProductFacets.CategoryFacet::selected)
+                .containsExactly(
+                        tuple("Phones", 2L, true),
+                        tuple("Tablets", 1L, false));
+        assertThat(result.facets().stock()).isEqualTo(new ProductFacets.StockFacet(2, 0));
+    }
+
+    @Test
+    void optionsOfOneAttributeAreOredAndAttributesAnded() {
+        ProductFacetResult result = index.search(filter(null, null, null, false, List.of(
+                new ProductFilterRequest.AttributeFilter("Color", List.of("Red", "Blue")),
+                new ProductFilterRequest.AttributeFilter("Size", List.of("L")))), null);
+
+        assertThat(result.productIds()).containsExactly(2L);
+        // Stock ignores the stock filter: every large product
+        assertThat(result.facets().stock()).isEqualTo(new ProductFacets.StockFacet(2, 1));
+    }
+
+    @Test
+    void searchIdsRestrictResultsAndCounts() {
+        ProductFacetResult result = index.search(filter(null, null, null, null, null), List.of(3L, 4L, 99L));
+
+        assertThat(result.productIds()).containsExactly(3L, 4L);
+        assertThat(optionCounts(result, "Color")).isEqualTo(Map.of("Red", 1L, "Blue", 1L));
+    }
+
+    @Test
+    void priceFilterIsInclusiveOnBothEndsAndUsesTheSalePrice() {
+        assertThat(index.search(filter(null, "25", "100", null, null), null).productIds())
+                .containsExactly(2L, 3L);
+        assertThat(index.search(filter(null, "24.99", "24.99", null, null), null).productIds())
+                .containsExactly(5L);
+        // Product 2 is listed at 60 but sells at 40
+        assertThat(index.search(filter(null, "50", "99.99", null, null), null).productIds()).isEmpty();
+        assertThat(index.search(filter(null, null, "20", null, null), null).productIds()).containsExactly(1L);
+        assertThat(index.search(filter(null, "250", null, null, null), null).productIds()).containsExactly(4L);
+    }
+
+    @Test
+    void priceFilterTakesWholeRangesAndChecksOnlyTheEdgeRanges() {
+        // 25-50 and 50-100 lie inside the filter, 0-25 and 100-250 are cut by its bounds
+        assertThat(index.search(filter(null, "24", "100", null, null), null).productIds())
+                .containsExactly(2L, 3L, 5L);
+        // Whole ranges are still limited to the search matches
+        assertThat(index.search(filter(null, "25", "1000", null, null), List.of(2L, 4L, 5L)).productIds())
+                .containsExactly(2L, 4L);
+        assertThat(index.search(filter(null, "0", null, null, null), null).productIds())
+                .containsExactly(1L, 2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    void priceRangesAreInclusiveBelowAndIgnoreThePriceFilter() {
+        ProductFacetResult result = index.search(filter(null, "25", "100", null, null), null);
+
+        assertThat(result.facets().priceRanges())
+                .extracting(ProductFacets.PriceRangeFacet::from, ProductFacets.PriceRangeFacet::count)
+                .containsExactly(
+                        tuple(BigDecimal.ZERO, 2L),          // 20, 24.99
+                        tuple(new BigDecimal("25"), 1L),     // 40 on sale
+                        tuple(new BigDecimal("50"), 0L),
+                        tuple(new BigDecimal("100"), 1L),    // exactly 100
+                        tuple(new BigDecimal("250"), 1L));   // open-ended
+        assertThat(result.facets().priceRanges().get(4).to()).isNull();
+    }
+
+    @Test
+    void updatedProductMovesBetweenBitmaps() {
+        rows.put(1L, new ProductFacetRow(1L, new BigDecimal("300"), null, 0));
+        categoriesOf.put(1L, Set.of(TABLETS));
+        optionsOf.put(1L, Set.of(BLUE, SMALL));
+        index.onProductChanged(new ProductChangedEvent(Map.of(1L, "p1"), ProductChangedEvent.Type.UPDATED));
+
+        assertThat(index.search(filter(null, null, null, null,
+                List.of(new ProductFilterRequest.AttributeFilter("Color", List.of("Red")))), null).productIds())
+                .containsExactly(3L, 5L);
+        assertThat(index.search(filter(List.of("c" + TABLETS), null, null, false, null), null).productIds())
+                .containsExactly(1L);
+        assertThat(index.search(filter(null, "250", null, null, null), null).productIds())
+                .containsExactly(1L, 4L);
+        assertThat(index.search(filter(null, null, null, null, null), null).facets().stock())
+                .isEqualTo(new ProductFacets.StockFacet(3, 2));
+    }
+
+    @Test
+    void createdProductIsAddedAndDeletedProductRemoved() {
+        product(6, "10", null, 1, PHONES, BLUE, SMALL);
+        index.onProductChanged(new ProductChangedEvent(Map.of(6L, "p6"), ProductChangedEvent.Type.CREATED));
+        rows.remove(2L);
+        index.onProductChanged(new ProductChangedEvent(Map.of(2L, "p2"), ProductChangedEvent.Type.DELETED));
+
+        ProductFacetResult result = index.search(filter(null, null, null, null,
+                List.of(new ProductFilterRequest.AttributeFilter("Color", List.of("Blue")))), null);
+        assertThat(result.productIds()).containsExactly(4L, 6L);
+        assertThat(optionCounts(result, "Size")).isEqualTo(Map.of("S", 2L));
+        assertThat(index.search(filter(null, null, null, null, null), null).productIds())
+                .containsExactly(1L, 3L, 4L, 5L, 6L);
+    }
+
+    @Test
+    void updateOfAProductThatNoLongerExistsRemovesIt() {
+        rows.remove(3L);
+        index.onProductChanged(new ProductChangedEvent(Map.of(3L, "p3"), ProductChangedEvent.Type.UPDATED));
+
+        assertThat(index.search(filter(List.of("c" + TABLETS), null, null, null, null), null).productIds())
+                .containsExactly(4L);
+    }
+
+    private void product(long id, String price, String salePrice, int stock, long categoryId, long... optionIds) {
+        rows.put(id, new ProductFacetRow(id, new BigDecimal(price),
+                salePrice == null ? null : new BigDecimal(salePrice), stock));
+        categoriesOf.put(id, Set.of(categoryId));
+        optionsOf.put(id, Arrays.stream(optionIds).boxed().collect(Collectors.toSet()));
+    }
+
+    private static List<ProductLink> links(Map<Long, Set<Long>> targets, Collection<Long> productIds) {
+        return productIds.stream()
+                .flatMap(productId -> targets.getOrDefault(productId, Set.of()).stream()
+                        .map(targetId -> new ProductLink(productId, targetId)))
+                .toList();
+    }
+
+    private static ProductFilterRequest filter(List<String> categoryIds, String minPrice, String maxPrice,
+                                               Boolean inStock, List<ProductFilterRequest.AttributeFilter> attributes) {
+        return new ProductFilterRequest(null, categoryIds,
+                minPrice == null ? null : new BigDecimal(minPrice),
+                maxPrice == null ? null : new BigDecimal(maxPrice),
+                inStock, attributes, null);
+    }
+
+    private static Map<String, Long> optionCounts(ProductFacetResult result, String attributeName) {
+        return result.facets().attributes().stream()
+                .filter(facet -> facet.attributeName().equals(attributeName))
+                .flatMap(facet -> facet.options().stream())
+                .collect(Collectors.toMap(ProductFacets.OptionCount::optionName, ProductFacets.OptionCount::count));
+    }
+
+    private static Attribute attribute(long id, String name) {
+        Attribute attribute = new Attribute();
+        attribute.setId(id);
+        attribute.setPublicId("a" + id);
+        attribute.setName(name);
+        return attribute;
+    }
+
+    private static AttributeOption option(long id, Attribute attribute, String name) {
+        AttributeOption option = new AttributeOption();
+        option.setId(id);
+        option.setPublicId("o" + id);
+        option.setName(name);
+        option.setAttribute(attribute);
+        return option;
+    }
+
+    private static Category category(long id, String name) {
+        Category category = new Category();
+        category.setId(id);
+        category.setPublicId("c" + id);
+        category.setName(name);
+        return category;
+    }
+}
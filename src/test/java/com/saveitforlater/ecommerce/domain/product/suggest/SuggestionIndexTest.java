@@ -0,0 +1,114 @@
+package com.saveitforlater.ecommerce.domain.product.suggest;
+
+import com.saveitforlater.ecommerce.api.product.dto.SuggestionResponse;
+import com.saveitforlater.ecommerce.domain.category.count.CategoryProductCounts;
+import com.saveitforlater.ecommerce.domain.product.event.ProductChangedEvent;
+import com.saveitforlater.ecommerce.domain.product.event.ProductPopularityChangedEvent;
+import com.saveitforlater.ecommerce.persistence.projection.CategorySuggestionDocument;
+import com.saveitforlater.ecommerce.persistence.projection.IdCount;
+import com.saveitforlater.ecommerce.persistence.projection.ProductSuggestionDocument;
+import com.saveitforlater.ecommerce.persistence.repository.category.CategoryRepository;
+import com.saveitforlater.ecommerce.persistence.repository.product.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SuggestionIndexTest {
+
+    private static final long PHONES = 100L, PHONE_CASES = 101L;
+
+    // The catalog the mocked repositories answer from, by product ID
+    private final Map<Long, ProductSuggestionDocument> products = new TreeMap<>();
+
+    private CategoryProductCounts categoryProductCounts;
+    private SuggestionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        product(1, "Galaxy Phone", 10);
+        product(2, "Galaxy Tab", 5);
+        product(3, "Galaxy Watch", 1);
+
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.findSuggestionDocumentsAfter(anyLong(), any(Pageable.class))).thenAnswer(call -> {
+            long afterId = call.getArgument(0);
+            Pageable page = call.getArgument(1);
+            return products.values().stream().filter(document -> document.id() > afterId)
+                    .limit(page.getPageSize()).toList();
+        });
+        when(productRepository.findSuggestionDocumentsByIdIn(anyCollection())).thenAnswer(call ->
+                call.<Collection<Long>>getArgument(0).stream().filter(products::containsKey).map(products::get).toList());
+        when(productRepository.findSuggestionDocumentsByPublicIdIn(anyCollection())).thenAnswer(call -> {
+            Collection<String> publicIds = call.getArgument(0);
+            return products.values().stream().filter(document -> publicIds.contains(document.publicId())).toList();
+        });
+
+        CategoryRepository categoryRepository = mock(CategoryRepository.class);
+        when(categoryRepository.countProductsByCategory()).thenReturn(List.of(
+                new IdCount(PHONES, 3L), new IdCount(PHONE_CASES, 1L)));
+        when(categoryRepository.findAllSuggestionDocuments()).thenReturn(List.of(
+                new CategorySuggestionDocument(PHONES, "c" + PHONES, "Phones", "phones"),
+                new CategorySuggestionDocument(PHONE_CASES, "c" + PHONE_CASES, "Phone Cases", "phone-cases")));
+
+        categoryProductCounts = mock(CategoryProductCounts.class);
+        when(categoryProductCounts.directTotals()).thenReturn(Map.of(PHONES, 3L, PHONE_CASES, 1L));
+
+        index = new SuggestionIndex(productRepository, categoryRepository, categoryProductCounts, 10, 2);
+        index.build();
+    }
+
+    @Test
+    void productsAreRankedByPopularity() {
+        assertThat(ids(index.suggest("gal", 10).products())).containsExactly("p1", "p2", "p3");
+    }
+
+    @Test
+    void popularityFlushReRanksProducts() {
+        product(3, "Galaxy Watch", 50);
+        product(2, "Galaxy Tab", 20);
+        index.onProductPopularityChanged(new ProductPopularityChangedEvent(List.of("p2", "p3")));
+
+        assertThat(ids(index.suggest("gal", 10).products())).containsExactly("p3", "p2", "p1");
+        assertThat(ids(index.suggest("watch", 10).products())).containsExactly("p3");
+    }
+
+    @Test
+    void popularityFlushDoesNotIndexProductsWithoutTheirChangeEvent() {
+        product(4, "Galaxy Buds", 100);
+        index.onProductPopularityChanged(new ProductPopularityChangedEvent(List.of("p4")));
+
+        assertThat(ids(index.suggest("gal", 10).products())).containsExactly("p1", "p2", "p3");
+    }
+
+    @Test
+    void productChangesReWeighCategoriesByTheirProductCounts() {
+        assertThat(ids(index.suggest("phone", 10).categories())).containsExactly("c" + PHONES, "c" + PHONE_CASES);
+
+        // Products moved into Phone Cases
+        when(categoryProductCounts.directTotals()).thenReturn(Map.of(PHONES, 1L, PHONE_CASES, 4L));
+        index.onProductChanged(new ProductChangedEvent(Map.of(1L, "p1"), ProductChangedEvent.Type.UPDATED));
+
+        assertThat(ids(index.suggest("phone", 10).categories())).containsExactly("c" + PHONE_CASES, "c" + PHONES);
+    }
+
+    private void product(long id, String name, long popularity) {
+        products.put(id, new ProductSuggestionDocument(id, "p" + id, name, name.toLowerCase().replace(' ', '-'),
+                "SKU-" + id, popularity));
+    }
+
+    private static List<String> ids(List<SuggestionResponse.Item> items) {
+        return items.stream().map(SuggestionResponse.Item::id).toList();
+    }
+}
@@ -0,0 +1,124 @@
+package com.saveitforlater.ecommerce.domain.product.suggest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopKTrieTest {
+
+    @Test
+    void returnsTheBestEntriesUnderAPrefix() {
+        TopKTrie trie = new TopKTrie(3);
+        trie.put(entry("1", "phone case", 5), List.of("phone case", "case"));
+        trie.put(entry("2", "phone", 9), List.of("phone"));
+        trie.put(entry("3", "photo frame", 7), List.of("photo frame", "frame"));
+        trie.put(entry("4", "pho soup", 1), List.of("pho soup", "soup"));
+
+        assertThat(ids(trie.top("pho", 10))).containsExactly("2", "3", "1");
+        assertThat(ids(trie.top("phone", 10))).containsExactly("2", "1");
+        assertThat(ids(trie.top("pho", 2))).containsExactly("2", "3");
+        assertThat(ids(trie.top("c", 10))).containsExactly("1");
+        assertThat(trie.top("x", 10)).isEmpty();
+        assertThat(trie.top("phone cases", 10)).isEmpty();
+    }
+
+    @Test
+    void tiesAreBrokenByShorterNameThenNameThenId() {
+        TopKTrie trie = new TopKTrie(5);
+        trie.put(entry("b", "tab", 3), List.of("tab"));
+        trie.put(entry("a", "tab", 3), List.of("tab"));
+        trie.put(entry("c", "table", 3), List.of("table"));
+        trie.put(entry("d", "taa", 3), List.of("taa"));
+
+        assertThat(ids(trie.top("ta", 10))).containsExactly("d", "a", "b", "c");
+    }
+
+    @Test
+    void entryStoredUnderSeveralKeysIsReturnedOnce() {
+        TopKTrie trie = new TopKTrie(3);
+        trie.put(entry("1", "red red", 5), List.of("red red", "red", "red", ""));
+        trie.put(entry("2", "redwood", 4), List.of("redwood"));
+
+        assertThat(ids(trie.top("red", 10))).containsExactly("1", "2");
+        assertThat(ids(trie.top("", 10))).containsExactly("1", "2");
+    }
+
+    @Test
+    void putReplacesThePreviousVersionAndItsKeys() {
+        TopKTrie trie = new TopKTrie(3);
+        trie.put(entry("1", "lamp", 1), List.of("lamp"));
+        trie.put(entry("2", "ladder", 2), List.of("ladder"));
+        trie.put(entry("1", "desk lamp", 10), List.of("desk lamp", "lamp"));
+
+        assertThat(trie.top("la", 10)).containsExactly(entry("1", "desk lamp", 10), entry("2", "ladder", 2));
+        assertThat(ids(trie.top("desk", 10))).containsExactly("1");
+        assertThat(trie.size()).isEqualTo(2);
+
+        trie.put(entry("1", "desk", 10), List.of("desk"));
+        assertThat(ids(trie.top("la", 10))).containsExactly("2");
+    }
+
+    @Test
+    void removeDropsTheEntryAndPrunesEmptyBranches() {
+        TopKTrie trie = new TopKTrie(2);
+        trie.put(entry("1", "mouse", 9), List.of("mouse"));
+        trie.put(entry("2", "mouse pad", 8), List.of("mouse pad"));
+        trie.put(entry("3", "monitor", 1), List.of("monitor"));
+
+        // The cache at "mo" holds only the best two; the third must come back once one is removed
+        assertThat(ids(trie.top("mo", 10))).containsExactly("1", "2");
+        trie.remove("1");
+        assertThat(ids(trie.top("mo", 10))).containsExactly("2", "3");
+        trie.remove("2");
+        assertThat(ids(trie.top("mo", 10))).containsExactly("3");
+        assertThat(trie.top("mou", 10)).isEmpty();
+        trie.remove("unknown");
+        assertThat(trie.size()).isEqualTo(1);
+    }
+
+    @Test
+    void bulkLoadRanksLikeIncrementalPuts() {
+        Random random = new Random(42);
+        List<Suggestion> entries = IntStream.range(0, 500)
+                .mapToObj(i -> entry("id" + i, randomWord(random), random.nextInt(50)))
+                .toList();
+        TopKTrie loaded = new TopKTrie(5);
+        TopKTrie incremental = new TopKTrie(5);
+        for (Suggestion entry : entries) {
+            loaded.load(entry, List.of(entry.name()));
+            incremental.put(entry, List.of(entry.name()));
+        }
+        loaded.rankAll();
+
+        for (String prefix : List.of("", "a", "b", "ab", "ba", "abc", "cab")) {
+            List<Suggestion> expected = entries.stream()
+                    .filter(entry -> entry.name().startsWith(prefix))
+                    .sorted(TopKTrie.RANKING)
+                    .limit(5)
+                    .toList();
+            assertThat(loaded.top(prefix, 5)).as(prefix).isEqualTo(expected);
+            assertThat(incremental.top(prefix, 5)).as(prefix).isEqualTo(expected);
+        }
+    }
+
+    private static String randomWord(Random random) {
+        StringBuilder word = new StringBuilder();
+        int length = 1 + random.nextInt(5);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(3)));
+        }
+        return word.toString();
+    }
+
+    private static Suggestion entry(String id, String name, long weight) {
+        return new Suggestion(id, name, name.replace(' ', '-'), weight);
+    }
+
+    private static List<String> ids(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::id).toList();
+    }
+}
@@ -0,0 +1,151 @@
+package com.saveitforlater.ecommerce.repository;
+
+import com.saveitforlater.ecommerce.api.category.dto.UpdateCategoryRequest;
+import com.saveitforlater.ecommerce.api.category.mapper.CategoryMapperImpl;
+import com.saveitforlater.ecommerce.api.product.dto.ProductFilterRequest;
+import com.saveitforlater.ecommerce.domain.category.CategoryService;
+import com.saveitforlater.ecommerce.domain.category.count.CategoryProductCounts;
+import com.saveitforlater.ecommerce.domain.category.tree.CategoryTreeCache;
+import com.saveitforlater.ecommerce.domain.util.UniqueSlugAllocator;
+import com.saveitforlater.ecommerce.persistence.entity.category.Category;
+import com.saveitforlater.ecommerce.persistence.entity.category.CategoryClosure;
+import com.saveitforlater.ecommerce.persistence.entity.product.Product;
+import com.saveitforlater.ecommerce.persistence.repository.category.CategoryClosureRepository;
+import com.saveitforlater.ecommerce.persistence.repository.category.CategoryRepository;
+import com.saveitforlater.ecommerce.persistence.repository.product.ProductRepository;
+import com.saveitforlater.ecommerce.persistence.specification.ProductSpecification;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest(properties = "spring.flyway.enabled=false")
+@Import({CategoryService.class, CategoryMapperImpl.class})
+class CategoryClosureRepositoryTest {
+
+    @Autowired
+    private CategoryService categoryService;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private CategoryClosureRepository categoryClosureRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockBean
+    private UniqueSlugAllocator uniqueSlugAllocator;
+    @MockBean
+    private CategoryTreeCache categoryTreeCache;
+    @MockBean
+    private CategoryProductCounts categoryProductCounts;
+
+    @Test
+    void movingASubtreeRelinksEveryNodeToTheNewAncestorsOnly() {
+        // clothing > shirts > formal > silk, and an unrelated sale root
+        Category clothing = category("Clothing", null);
+        Category shirts = category("Shirts", clothing);
+        Category formal = category("Formal", shirts);
+        Category silk = category("Silk", formal);
+        Category sale = category("Sale", null);
+        Category outlet = category("Outlet", sale);
+
+        categoryService.updateCategory(shirts.getPublicId(),
+                new UpdateCategoryRequest("Shirts", "shirts", null, outlet.getPublicId()));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(categoryClosureRepository.findAll())
+                .extracting(CategoryClosure::getAncestorId, CategoryClosure::getDescendantId, CategoryClosure::getDepth)
+                .containsExactlyInAnyOrder(
+                        tuple(clothing.getId(), clothing.getId(), 0),
+                        tuple(sale.getId(), sale.getId(), 0),
+                        tuple(sale.getId(), outlet.getId(), 1),
+                        tuple(sale.getId(), shirts.getId(), 2),
+                        tuple(sale.getId(), formal.getId(), 3),
+                        tuple(sale.getId(), silk.getId(), 4),
+                        tuple(outlet.getId(), outlet.getId(), 0),
+                        tuple(outlet.getId(), shirts.getId(), 1),
+                        tuple(outlet.getId(), formal.getId(), 2),
+                        tuple(outlet.getId(), silk.getId(), 3),
+                        tuple(shirts.getId(), shirts.getId(), 0),
+                        tuple(shirts.getId(), formal.getId(), 1),
+                        tuple(shirts.getId(), silk.getId(), 2),
+                        tuple(formal.getId(), formal.getId(), 0),
+                        tuple(formal.getId(), silk.getId(), 1),
+                        tuple(silk.getId(), silk.getId(), 0));
+        assertThat(categoryRepository.findByPublicId(shirts.getPublicId()))
+                .hasValueSatisfying(moved -> assertThat(moved.getParent().getId()).isEqualTo(outlet.getId()));
+    }
+
+    @Test
+    void subcategoryFilterFollowsAMovedSubtree() {
+        Category clothing = category("Clothing", null);
+        Category shirts = category("Shirts", clothing);
+        Category formal = category("Formal", shirts);
+        Category silk = category("Silk", formal);
+        Category sale = category("Sale", null);
+        product("SILK-1", silk);
+        product("CLOTHING-1", clothing);
+
+        categoryService.updateCategory(shirts.getPublicId(),
+                new UpdateCategoryRequest("Shirts", "shirts", null, sale.getPublicId()));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(skusUnder(sale)).containsExactly("SILK-1");
+        assertThat(skusUnder(clothing)).containsExactly("CLOTHING-1");
+
+        // Moving the subtree back to the top level detaches it from every former ancestor
+        categoryService.updateCategory(shirts.getPublicId(),
+                new UpdateCategoryRequest("Shirts", "shirts", null, null));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(skusUnder(sale)).isEmpty();
+        assertThat(skusUnder(shirts)).containsExactly("SILK-1");
+    }
+
+    private List<String> skusUnder(Category category) {
+        ProductFilterRequest filter = new ProductFilterRequest(null, List.of(category.getPublicId()),
+                null, null, null, null, true);
+        return productRepository.findAll(ProductSpecification.withFilters(filter)).stream()
+                .map(Product::getSku)
+                .toList();
+    }
+
+    // Inserts a category and its closure rows the way CategoryService#createCategory does
+    private Category category(String name, Category parent) {
+        Category category = new Category();
+        category.setName(name);
+        category.setSlug(name.toLowerCase());
+        category.setParent(parent);
+        Category saved = categoryRepository.saveAndFlush(category);
+        categoryClosureRepository.insertSelfLink(saved.getId());
+        if (parent != null) {
+            categoryClosureRepository.insertSubtreeLinks(saved.getId(), parent.getId());
+        }
+        return saved;
+    }
+
+    private void product(String sku, Category category) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName(sku);
+        product.setSlug(sku.toLowerCase());
+        product.setPrice(new BigDecimal("10.00"));
+        product.setSalePrice(BigDecimal.ZERO);
+        product.setCategories(Set.of(category));
+        productRepository.saveAndFlush(product);
+    }
+}